@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.benchmarks;
+
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
+
+/**
+ * A four-page wizard, cloned (as a real view model would be) by copying its fields.
+ */
+public class BenchmarkWizard extends AbstractWizard<BenchmarkWizard, BenchmarkWizard.State> {
+
+    public enum State implements AbstractWizard.State<BenchmarkWizard> {
+        DETAILS, ADDRESS, PAYMENT, CONFIRM;
+
+        private static final State[] STATES = values();
+
+        @Override
+        public State next() {
+            return ordinal() < STATES.length - 1 ? STATES[ordinal() + 1] : null;
+        }
+        @Override
+        public String disableNext(final BenchmarkWizard w) {
+            return next() == null ? "No more pages" : null;
+        }
+        @Override
+        public State previous() {
+            return ordinal() > 0 ? STATES[ordinal() - 1] : null;
+        }
+        @Override
+        public String disablePrevious(final BenchmarkWizard w) {
+            return previous() == null ? "No more pages" : null;
+        }
+    }
+
+    public BenchmarkWizard() {
+        setState(State.DETAILS);
+    }
+
+    private String name;
+    private String address;
+    private int quantity;
+
+    public String getName() {
+        return name;
+    }
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+    public void setAddress(final String address) {
+        this.address = address;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+    public void setQuantity(final int quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String viewModelMemento() {
+        return getState() + ":" + name + ":" + address + ":" + quantity;
+    }
+
+    @Override
+    public void viewModelInit(final String memento) {
+        final String[] parts = memento.split(":");
+        setState(State.valueOf(parts[0]));
+        name = parts[1];
+        address = parts[2];
+        quantity = Integer.parseInt(parts[3]);
+    }
+
+    @Override
+    public BenchmarkWizard clone() {
+        return cloneThis();
+    }
+
+    @Override
+    protected BenchmarkWizard cloneThis() {
+        final BenchmarkWizard clone = new BenchmarkWizard();
+        clone.setState(getState());
+        clone.name = name;
+        clone.address = address;
+        clone.quantity = quantity;
+        return clone;
+    }
+
+    @Override
+    public Object finish() {
+        return null;
+    }
+
+    @Override
+    public String disableFinish() {
+        return getState() != State.CONFIRM ? "Not yet confirmed" : null;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal stand-ins for metamodel interfaces, so that the component can be benchmarked without bootstrapping
+ * Apache Isis.
+ *
+ * <p>
+ * Each stub answers by method name: either a fixed value, or an {@link Answer} computed from the arguments. Any
+ * other method returns the default value for its return type.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    interface Answer {
+        Object answer(Object[] args);
+    }
+
+    static <T> Builder<T> stub(final Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    static final class Builder<T> {
+        private final Class<T> type;
+        private final Map<String, Object> answers = new HashMap<>();
+
+        private Builder(final Class<T> type) {
+            this.type = type;
+        }
+
+        Builder<T> returning(final String methodName, final Object value) {
+            answers.put(methodName, value);
+            return this;
+        }
+
+        Builder<T> answering(final String methodName, final Answer answer) {
+            answers.put(methodName, answer);
+            return this;
+        }
+
+        T build(final Class<?>... additionalTypes) {
+            final Class<?>[] types = new Class<?>[additionalTypes.length + 1];
+            types[0] = type;
+            System.arraycopy(additionalTypes, 0, types, 1, additionalTypes.length);
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), types, new Handler(type, answers)));
+        }
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final Class<?> type;
+        private final Map<String, Object> answers;
+
+        private Handler(final Class<?> type, final Map<String, Object> answers) {
+            this.type = type;
+            this.answers = answers;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            final String name = method.getName();
+            final Object answer = answers.get(name);
+            if(answer instanceof Answer) {
+                return ((Answer) answer).answer(args);
+            }
+            if(answer != null) {
+                return answer;
+            }
+            switch (name) {
+                case "equals": return proxy == args[0];
+                case "hashCode": return System.identityHashCode(proxy);
+                case "toString": return "stub " + type.getSimpleName();
+            }
+            return defaultFor(method.getReturnType());
+        }
+
+        private static Object defaultFor(final Class<?> returnType) {
+            if(!returnType.isPrimitive() || returnType == void.class) {
+                return null;
+            }
+            if(returnType == boolean.class) {
+                return false;
+            }
+            if(returnType == char.class) {
+                return '\0';
+            }
+            if(returnType == long.class) {
+                return 0L;
+            }
+            if(returnType == float.class) {
+                return 0f;
+            }
+            if(returnType == double.class) {
+                return 0d;
+            }
+            if(returnType == byte.class) {
+                return (byte) 0;
+            }
+            if(returnType == short.class) {
+                return (short) 0;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.isisaddons.wicket.wizard.fixture.app.ToDoItemWizard;
+import org.isisaddons.wicket.wizard.fixture.app.ToDoItemWizardMemento;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.apache.isis.applib.services.memento.MementoService;
+import org.apache.isis.core.runtime.services.memento.MementoServiceDefault;
+
+/**
+ * Memento round trips and clones of a {@link ToDoItemWizard}: the {@link ToDoItemWizardMemento generated codec}
+ * used by {@link org.isisaddons.wicket.wizard.fixture.app.ToDoItemWizardSupport} against the {@link MementoService} that it used previously.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToDoItemWizardMementoBenchmark {
+
+    private MementoService mementoService;
+
+    private ToDoItemWizard wizard;
+    private ToDoItemWizard target;
+
+    @Setup
+    public void setUp() {
+        mementoService = new MementoServiceDefault();
+
+        wizard = new ToDoItemWizard();
+        wizard.setState(ToDoItemWizard.State.DUE_BY);
+        wizard.setDescription("Buy milk and bread from the corner shop");
+        wizard.setCategory(WizardWicketToDoItem.Category.Domestic);
+        wizard.setSubcategory(WizardWicketToDoItem.Subcategory.Shopping);
+        wizard.setDueBy(new LocalDate(2014, 6, 1));
+
+        target = new ToDoItemWizard();
+    }
+
+    @Benchmark
+    public ToDoItemWizard generated() {
+        final String memento = ToDoItemWizardMemento.INSTANCE.mementoFor(wizard);
+        ToDoItemWizardMemento.INSTANCE.initOf(memento, target);
+        return target;
+    }
+
+    @Benchmark
+    public ToDoItemWizard generatedClone() {
+        return ToDoItemWizardMemento.INSTANCE.copy(wizard, new ToDoItemWizard());
+    }
+
+    /**
+     * As previously used both for mementos and (via <tt>newViewModelInstance</tt>) for clones.
+     */
+    @Benchmark
+    public ToDoItemWizard mementoService() {
+        final MementoService.Memento memento = mementoService.create();
+        memento.set("state", wizard.getState());
+        memento.set("description", wizard.getDescription());
+        memento.set("category", wizard.getCategory());
+        memento.set("subcategory", wizard.getSubcategory());
+        memento.set("dueBy", wizard.getDueBy());
+        final String mementoStr = memento.asString();
+
+        final MementoService.Memento parsed = mementoService.parse(mementoStr);
+        target.setState(parsed.get("state", ToDoItemWizard.State.class));
+        target.setDescription(parsed.get("description", String.class));
+        target.setCategory(parsed.get("category", WizardWicketToDoItem.Category.class));
+        target.setSubcategory(parsed.get("subcategory", WizardWicketToDoItem.Subcategory.class));
+        target.setDueBy(parsed.get("dueBy", LocalDate.class));
+        return target;
+    }
+}
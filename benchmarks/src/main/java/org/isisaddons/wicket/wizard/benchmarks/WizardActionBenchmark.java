@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardFacet;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardInterfaceFacetFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.apache.isis.core.metamodel.facetapi.FacetHolderImpl;
+import org.apache.isis.core.metamodel.facets.FacetFactory.ProcessClassContext;
+import org.apache.isis.core.metamodel.facets.ImperativeFacet;
+import org.apache.isis.core.metamodel.facets.MethodRemoverConstants;
+import org.apache.isis.core.metamodel.facets.actions.action.invocation.ActionInvocationFacet;
+import org.apache.isis.core.metamodel.spec.feature.ObjectAction;
+
+/**
+ * {@link WizardFacet#isWizardAction(ObjectAction)}, as called for each action when building the action panels,
+ * for both an action that implements the wizard (<tt>next</tt>) and one that does not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WizardActionBenchmark {
+
+    private WizardFacet wizardFacet;
+    private ObjectAction wizardAction;
+    private ObjectAction otherAction;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        final FacetHolderImpl holder = new FacetHolderImpl();
+        new WizardInterfaceFacetFactory().process(new ProcessClassContext(BenchmarkWizard.class, MethodRemoverConstants.NULL, holder));
+        wizardFacet = holder.getFacet(WizardFacet.class);
+
+        wizardAction = actionFor(BenchmarkWizard.class.getMethod("next"));
+        otherAction = actionFor(BenchmarkWizard.class.getMethod("setName", String.class));
+    }
+
+    private static ObjectAction actionFor(final Method method) {
+        final ActionInvocationFacet invocationFacet = Stubs.stub(ActionInvocationFacet.class)
+                .returning("getMethods", Collections.singletonList(method))
+                .build(ImperativeFacet.class);
+        return Stubs.stub(ObjectAction.class)
+                .answering("getFacet", new Stubs.Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return args[0] == ActionInvocationFacet.class ? invocationFacet : null;
+                    }
+                })
+                .build();
+    }
+
+    @Benchmark
+    public boolean wizardAction() {
+        return wizardFacet.isWizardAction(wizardAction);
+    }
+
+    @Benchmark
+    public boolean otherAction() {
+        return wizardFacet.isWizardAction(otherAction);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardFacet;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardFacetForInterface;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardInterfaceFacetFactory;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardNavigationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.apache.isis.core.metamodel.facetapi.FacetHolderImpl;
+import org.apache.isis.core.metamodel.facets.FacetFactory.ProcessClassContext;
+import org.apache.isis.core.metamodel.facets.MethodRemoverConstants;
+
+/**
+ * {@link WizardFacet} dispatch, comparing the facet created by {@link WizardInterfaceFacetFactory} (with a
+ * precompiled state graph and in-place transitions) against one that always delegates to the wizard.
+ *
+ * <p>
+ * Each navigation benchmark moves forward and then back, so that the wizard stays on the same page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WizardFacetDispatchBenchmark {
+
+    private WizardFacet precompiled;
+    private WizardFacet delegating;
+    private BenchmarkWizard wizard;
+
+    @Setup
+    public void setUp() {
+        final FacetHolderImpl holder = new FacetHolderImpl();
+        new WizardInterfaceFacetFactory().process(new ProcessClassContext(BenchmarkWizard.class, MethodRemoverConstants.NULL, holder));
+        precompiled = holder.getFacet(WizardFacet.class);
+        delegating = new WizardFacetForInterface(new FacetHolderImpl());
+
+        wizard = new BenchmarkWizard();
+        wizard.setState(BenchmarkWizard.State.ADDRESS);
+    }
+
+    @Benchmark
+    public void navigatePrecompiled() {
+        precompiled.next(wizard);
+        precompiled.previous(wizard);
+    }
+
+    @Benchmark
+    public void navigateDelegating() {
+        delegating.next(wizard);
+        delegating.previous(wizard);
+    }
+
+    @Benchmark
+    public void disablePrecompiled(final Blackhole blackhole) {
+        blackhole.consume(precompiled.disableNext(wizard));
+        blackhole.consume(precompiled.disablePrevious(wizard));
+        blackhole.consume(precompiled.disableFinish(wizard));
+    }
+
+    @Benchmark
+    public void disableDelegating(final Blackhole blackhole) {
+        blackhole.consume(delegating.disableNext(wizard));
+        blackhole.consume(delegating.disablePrevious(wizard));
+        blackhole.consume(delegating.disableFinish(wizard));
+    }
+
+    @Benchmark
+    public WizardNavigationState navigationStatePrecompiled() {
+        return precompiled.navigationStateOf(wizard);
+    }
+
+    @Benchmark
+    public WizardNavigationState navigationStateDelegating() {
+        return delegating.navigationStateOf(wizard);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.isisaddons.wicket.wizard.cpt.ui.WizardPropertiesPanel;
+import org.isisaddons.wicket.wizard.cpt.ui.WizardPropertiesPanelFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.apache.wicket.Component;
+import org.apache.wicket.model.IModel;
+import org.apache.isis.core.metamodel.adapter.ObjectAdapter;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
+import org.apache.isis.viewer.wicket.model.mementos.ObjectAdapterMemento;
+import org.apache.isis.viewer.wicket.model.models.EntityModel;
+import org.apache.isis.viewer.wicket.ui.ComponentFactory;
+import org.apache.isis.viewer.wicket.ui.ComponentType;
+import org.apache.isis.viewer.wicket.ui.app.registry.ComponentFactoryRegistrar;
+import org.apache.isis.viewer.wicket.ui.app.registry.ComponentFactoryRegistry;
+import org.apache.isis.viewer.wicket.ui.components.entity.EntityComponentFactoryAbstract;
+import org.apache.isis.viewer.wicket.viewer.registries.components.ComponentFactoryRegistrarDefault;
+import org.apache.isis.viewer.wicket.viewer.registries.components.ComponentFactoryRegistryDefault;
+
+/**
+ * {@link ComponentFactoryRegistry#findComponentFactory(ComponentType, IModel)} for the properties of an entity, as
+ * asked by the viewer for every entity rendered, for both a wizard and an ordinary entity.
+ *
+ * <p>
+ * The registry is the viewer's own, holding all of its component factories along with those found on the classpath
+ * (so including the {@link WizardPropertiesPanelFactory}).  The <tt>uncached</tt> benchmarks use a registry in which
+ * the {@link WizardPropertiesPanelFactory} is replaced by an {@link UncachedWizardPropertiesPanelFactory equivalent}
+ * without its cache, so that each lookup loads the model's adapter and checks its specification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WizardPanelFactoryBenchmark {
+
+    private ComponentFactoryRegistry registry;
+    private ComponentFactoryRegistry uncachedRegistry;
+    private EntityModel wizardModel;
+    private EntityModel entityModel;
+
+    @Setup
+    public void setUp() {
+        registry = new ComponentFactoryRegistryDefault(new ComponentFactoryRegistrarDefault());
+        uncachedRegistry = new ComponentFactoryRegistryDefault(new UncachedComponentFactoryRegistrar());
+        wizardModel = modelFor(specification(true));
+        entityModel = modelFor(specification(false));
+    }
+
+    static ObjectSpecification specification(final boolean wizard) {
+        return Stubs.stub(ObjectSpecification.class)
+                .returning("isNotCollection", true)
+                .returning("isWizard", wizard)
+                .build();
+    }
+
+    static EntityModel modelFor(final ObjectSpecification specification) {
+        final ObjectAdapter adapter = Stubs.stub(ObjectAdapter.class)
+                .returning("getSpecification", specification)
+                .build();
+        return new StubEntityModel(adapter, specification);
+    }
+
+    @Benchmark
+    public ComponentFactory wizard() {
+        return registry.findComponentFactory(ComponentType.ENTITY_PROPERTIES, wizardModel);
+    }
+
+    @Benchmark
+    public ComponentFactory entity() {
+        return registry.findComponentFactory(ComponentType.ENTITY_PROPERTIES, entityModel);
+    }
+
+    @Benchmark
+    public ComponentFactory wizardUncached() {
+        return uncachedRegistry.findComponentFactory(ComponentType.ENTITY_PROPERTIES, wizardModel);
+    }
+
+    @Benchmark
+    public ComponentFactory entityUncached() {
+        return uncachedRegistry.findComponentFactory(ComponentType.ENTITY_PROPERTIES, entityModel);
+    }
+
+    /**
+     * The viewer's component factories, but with an {@link UncachedWizardPropertiesPanelFactory} in place of the
+     * {@link WizardPropertiesPanelFactory}.
+     */
+    static class UncachedComponentFactoryRegistrar extends ComponentFactoryRegistrarDefault {
+        @Override
+        public void addComponentFactories(final ComponentFactoryRegistrar.ComponentFactoryList componentFactories) {
+            super.addComponentFactories(componentFactories);
+            componentFactories.replace(WizardPropertiesPanelFactory.class, new UncachedWizardPropertiesPanelFactory());
+        }
+    }
+
+    /**
+     * As {@link WizardPropertiesPanelFactory}, but determining its advice afresh each time (as it did before the
+     * advice was cached): loading the model's adapter (as per the superclass), then checking the specification.
+     */
+    static class UncachedWizardPropertiesPanelFactory extends EntityComponentFactoryAbstract {
+
+        private static final long serialVersionUID = 1L;
+
+        UncachedWizardPropertiesPanelFactory() {
+            super(ComponentType.ENTITY_PROPERTIES, WizardPropertiesPanel.class);
+        }
+
+        @Override
+        public Component createComponent(final String id, final IModel<?> model) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected ApplicationAdvice appliesTo(final IModel<?> model) {
+            final ApplicationAdvice applicationAdvice = super.appliesTo(model);
+            if(!applicationAdvice.applies()) {
+                return applicationAdvice;
+            }
+            final ObjectSpecification specification = ((EntityModel) model).getTypeOfSpecification();
+            return specification.isWizard() ? ApplicationAdvice.APPLIES_EXCLUSIVELY : ApplicationAdvice.DOES_NOT_APPLY;
+        }
+    }
+
+    /**
+     * Avoids the need for a persistence session to resolve the adapter and its specification.
+     */
+    static class StubEntityModel extends EntityModel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ObjectAdapter adapter;
+        private final transient ObjectSpecification specification;
+
+        StubEntityModel(final ObjectAdapter adapter, final ObjectSpecification specification) {
+            super((ObjectAdapterMemento) null);
+            this.adapter = adapter;
+            this.specification = specification;
+        }
+
+        @Override
+        public ObjectAdapter load() {
+            return adapter;
+        }
+
+        @Override
+        public ObjectSpecification getTypeOfSpecification() {
+            return specification;
+        }
+    }
+}
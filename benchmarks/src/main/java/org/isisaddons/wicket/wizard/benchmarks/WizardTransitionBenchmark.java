@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard} transitions: the <tt>next()</tt> and
+ * <tt>previous()</tt> actions (which clone the wizard) against the in-place <tt>toNextState()</tt> and
+ * <tt>toPreviousState()</tt>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WizardTransitionBenchmark {
+
+    private BenchmarkWizard wizard;
+
+    @Setup
+    public void setUp() {
+        wizard = new BenchmarkWizard();
+        wizard.setName("Fred Smith");
+        wizard.setAddress("1 High Street");
+        wizard.setQuantity(3);
+        wizard.setState(BenchmarkWizard.State.ADDRESS);
+    }
+
+    @Benchmark
+    public void cloning(final Blackhole blackhole) {
+        blackhole.consume(wizard.next());
+        blackhole.consume(wizard.previous());
+    }
+
+    @Benchmark
+    public void inPlace() {
+        wizard.toNextState();
+        wizard.toPreviousState();
+    }
+}
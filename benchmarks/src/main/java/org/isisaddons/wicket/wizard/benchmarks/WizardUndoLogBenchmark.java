@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.isisaddons.wicket.wizard.cpt.ui.WizardUndoLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.apache.isis.core.metamodel.adapter.ObjectAdapter;
+import org.apache.isis.core.metamodel.adapter.oid.Oid;
+import org.apache.isis.core.metamodel.facets.object.encodeable.EncodableFacet;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
+import org.apache.isis.core.metamodel.spec.feature.ObjectAssociation;
+import org.apache.isis.core.metamodel.spec.feature.OneToOneAssociation;
+import org.apache.isis.core.runtime.memento.Memento;
+
+/**
+ * The rollback snapshot taken when a form's changes are applied to a wide view model: the {@link WizardUndoLog}
+ * (recording only the properties whose fields were edited, as does the wizard's form) against the {@link Memento}
+ * of the whole object that it replaces (for an object whose properties are all values).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WizardUndoLogBenchmark {
+
+    @Param({"50", "100", "200"})
+    private int width;
+
+    @Param({"1", "5"})
+    private int edits;
+
+    private ObjectAdapter owner;
+    private OneToOneAssociation[] properties;
+    private ObjectAdapter[] renderedValues;
+    private ObjectAdapter[] pendingValues;
+
+    @Setup
+    public void setUp() {
+        final EncodableFacet encodableFacet = Stubs.stub(EncodableFacet.class)
+                .answering("toEncodedString", new Stubs.Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return String.valueOf(((ObjectAdapter) args[0]).getObject());
+                    }
+                })
+                .build();
+        final ObjectSpecification valueSpecification = Stubs.stub(ObjectSpecification.class)
+                .returning("isEncodeable", true)
+                .returning("getFacet", encodableFacet)
+                .returning("getFullIdentifier", String.class.getName())
+                .build();
+
+        final List<ObjectAssociation> associations = new ArrayList<>(width);
+        properties = new OneToOneAssociation[width];
+        renderedValues = new ObjectAdapter[width];
+        pendingValues = new ObjectAdapter[width];
+        for (int i = 0; i < width; i++) {
+            final ObjectAdapter currentValue = adapterFor("value-" + i, valueSpecification);
+            properties[i] = Stubs.stub(OneToOneAssociation.class)
+                    .returning("getId", "property" + i)
+                    .returning("getSpecification", valueSpecification)
+                    .returning("isOneToOneAssociation", true)
+                    .returning("containsFacet", true)
+                    .returning("get", currentValue)
+                    .build();
+            associations.add(properties[i]);
+            // the property model only replaces the value if its field is edited
+            renderedValues[i] = currentValue;
+            pendingValues[i] = i < edits ? adapterFor("edited-" + i, valueSpecification) : currentValue;
+        }
+
+        final ObjectSpecification ownerSpecification = Stubs.stub(ObjectSpecification.class)
+                .returning("getAssociations", associations)
+                .returning("getFullIdentifier", "WideWizard")
+                .build();
+        owner = Stubs.stub(ObjectAdapter.class)
+                .returning("getOid", Stubs.stub(Oid.class).build())
+                .returning("getSpecification", ownerSpecification)
+                .build();
+    }
+
+    private static ObjectAdapter adapterFor(final String value, final ObjectSpecification specification) {
+        return Stubs.stub(ObjectAdapter.class)
+                .returning("getObject", value)
+                .returning("getSpecification", specification)
+                .build();
+    }
+
+    @Benchmark
+    public WizardUndoLog undoLog() {
+        final WizardUndoLog undoLog = new WizardUndoLog();
+        for (int i = 0; i < width; i++) {
+            if(pendingValues[i] == renderedValues[i]) {
+                continue;
+            }
+            undoLog.record(properties[i], owner, pendingValues[i]);
+        }
+        return undoLog;
+    }
+
+    @Benchmark
+    public Memento memento() {
+        return new Memento(owner);
+    }
+}
@@ -56,10 +56,22 @@ public void setState(final S state) {
     //region > next (action)
     @MemberOrder(sequence = "1")
     public W next() {
-        setState((S) getState().next());
+        toNextState();
         return cloneThis();
     }
 
+    /**
+     * Moves to the next state in place, without cloning.
+     *
+     * <p>
+     * Used by the wizard component (in preference to {@link #next()}) unless <tt>next()</tt> is overridden; the
+     * component takes care of any change in identity.
+     */
+    @Programmatic
+    public void toNextState() {
+        setState((S) getState().next());
+    }
+
     public String disableNext() {
         return getState().disableNext((W) this);
     }
@@ -68,10 +80,20 @@ public String disableNext() {
     //region > previous (action)
     @MemberOrder(sequence = "1")
     public W previous() {
-        setState((S) getState().previous());
+        toPreviousState();
         return cloneThis();
     }
 
+    /**
+     * Moves to the previous state in place, without cloning.
+     *
+     * @see #toNextState()
+     */
+    @Programmatic
+    public void toPreviousState() {
+        setState((S) getState().previous());
+    }
+
     public String disablePrevious() {
         return getState().disablePrevious((W) this);
     }
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.applib;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requests that a {@link WizardMementoCodec codec} be generated at compile time for an {@link AbstractWizard}
+ * subclass.
+ *
+ * <p>
+ * For a wizard <tt>FooWizard</tt>, the generated class is <tt>FooWizardMemento</tt>, in the same package.  It
+ * writes and reads each of the wizard's fields (including its {@link AbstractWizard#getState() state}) in
+ * declaration order, superclass fields first, and can also <tt>copy(from, to)</tt> them from one instance to
+ * another, for use when {@link AbstractWizard#cloneThis() cloning}.  Fields are accessed directly where visible
+ * to the generated class, otherwise through their getter and setter; <tt>static</tt>, <tt>transient</tt> and
+ * injected (<tt>@javax.inject.Inject</tt>) fields are ignored.
+ *
+ * <p>
+ * Supported field types are <tt>String</tt>, enums, <tt>org.joda.time.LocalDate</tt> and the primitives
+ * <tt>boolean</tt>, <tt>int</tt> and <tt>long</tt>; any other field must be made <tt>transient</tt>.
+ *
+ * @see org.isisaddons.wicket.wizard.cpt.processor.WizardMementoProcessor
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface WizardMemento {
+
+    /**
+     * The version of the generated codec; should be incremented whenever the wizard's fields change, so that
+     * mementos written previously (eg in bookmarked URLs) are rejected rather than misread.
+     */
+    int value() default 1;
+}
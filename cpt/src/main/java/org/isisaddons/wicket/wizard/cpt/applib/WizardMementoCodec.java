@@ -0,0 +1,332 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.applib;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+
+/**
+ * Compact, versioned binary encoding of the state of a wizard view model, for use as its
+ * {@link org.apache.isis.applib.ViewModel#viewModelMemento() memento}.
+ *
+ * <p>
+ * Subclasses write and read the wizard's fields in a fixed order; there are no keys.  Integers are written as
+ * varints, enums as ordinals and dates as epoch days.  The encoded bytes are deflated if that makes them smaller
+ * (see {@link #deflateThreshold()}) and then rendered as URL-safe base64.
+ *
+ * <p>
+ * The memento carries the {@link #getVersion() version} of the codec that wrote it, so that a codec can continue
+ * to {@link #read(Input, int, Object) read} mementos (eg in bookmarked URLs) written by a previous version.
+ */
+public abstract class WizardMementoCodec<W> {
+
+    private static final int FORMAT = 1;
+    private static final int FLAG_DEFLATED = 0x80;
+    private static final int FORMAT_MASK = 0x7F;
+
+    /**
+     * Mementos arrive in URLs, so are untrusted; a deflated memento inflating to more than this is rejected (rather
+     * than risk a small payload exhausting the heap).
+     */
+    static final int MAX_INFLATED_BYTES = 64 * 1024;
+
+    private final int version;
+
+    protected WizardMementoCodec(final int version) {
+        if(version < 0) {
+            throw new IllegalArgumentException("version cannot be negative");
+        }
+        this.version = version;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    //region > mementoFor, initOf
+
+    public String mementoFor(final W wizard) {
+        final Output output = new Output();
+        output.writeInt(version);
+        write(wizard, output);
+
+        byte[] payload = output.toByteArray();
+        int header = FORMAT;
+        final int deflateThreshold = deflateThreshold();
+        if(deflateThreshold >= 0 && payload.length > deflateThreshold) {
+            final byte[] deflated = deflate(payload);
+            if(deflated.length < payload.length) {
+                payload = deflated;
+                header |= FLAG_DEFLATED;
+            }
+        }
+
+        final byte[] bytes = new byte[payload.length + 1];
+        bytes[0] = (byte) header;
+        System.arraycopy(payload, 0, bytes, 1, payload.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public void initOf(final String memento, final W wizard) {
+        final byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(memento);
+        } catch(final IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Not a wizard memento: '" + memento + "'", ex);
+        }
+        if(bytes.length == 0 || (bytes[0] & FORMAT_MASK) != FORMAT) {
+            throw new IllegalArgumentException("Not a wizard memento: '" + memento + "'");
+        }
+        byte[] payload = Arrays.copyOfRange(bytes, 1, bytes.length);
+        if((bytes[0] & FLAG_DEFLATED) != 0) {
+            payload = inflate(payload);
+        }
+
+        final Input input = new Input(payload);
+        final int mementoVersion = input.readInt();
+        if(mementoVersion > version) {
+            throw new IllegalArgumentException(
+                    "Memento written by version " + mementoVersion + ", but this codec is version " + version);
+        }
+        read(input, mementoVersion, wizard);
+    }
+    //endregion
+
+    //region > hooks
+
+    /**
+     * Writes the fields of the wizard.
+     */
+    protected abstract void write(W wizard, Output output);
+
+    /**
+     * Reads the fields of the wizard, in the same order as they were {@link #write(Object, Output) written} by the
+     * provided version of the codec.
+     */
+    protected abstract void read(Input input, int version, W wizard);
+
+    /**
+     * Encodings longer than this many bytes are deflated (if that makes them smaller); a negative value means never
+     * deflate.
+     *
+     * <p>
+     * Most wizard mementos are only a few dozen bytes long, and for these deflating only adds overhead.
+     */
+    protected int deflateThreshold() {
+        return 128;
+    }
+    //endregion
+
+    //region > Output
+
+    public static final class Output {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        private Output() {
+        }
+
+        public Output writeBoolean(final boolean value) {
+            bytes.write(value ? 1 : 0);
+            return this;
+        }
+
+        /**
+         * Unsigned varint; negative values are permitted but use the maximum 5 bytes.
+         */
+        public Output writeInt(final int value) {
+            int v = value;
+            while((v & ~0x7F) != 0) {
+                bytes.write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes.write(v);
+            return this;
+        }
+
+        /**
+         * Zig-zag encoded varint, so that small negative values are also compact.
+         */
+        public Output writeLong(final long value) {
+            long v = (value << 1) ^ (value >> 63);
+            while((v & ~0x7FL) != 0) {
+                bytes.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            bytes.write((int) v);
+            return this;
+        }
+
+        public Output writeString(final String value) {
+            if(value == null) {
+                return writeInt(0);
+            }
+            final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(utf8.length + 1);
+            bytes.write(utf8, 0, utf8.length);
+            return this;
+        }
+
+        public Output writeEnum(final Enum<?> value) {
+            return writeInt(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        public Output writeDate(final LocalDate value) {
+            writeBoolean(value != null);
+            return value == null ? this : writeLong(epochDayOf(value));
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+    //endregion
+
+    //region > Input
+
+    public static final class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Input(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        public boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        public int readInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                final int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in wizard memento");
+        }
+
+        public long readLong() {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if((b & 0x80) == 0) {
+                    return (value >>> 1) ^ -(value & 1);
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in wizard memento");
+        }
+
+        public String readString() {
+            final int length = readInt() - 1;
+            if(length < 0) {
+                return null;
+            }
+            if(length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated wizard memento");
+            }
+            final String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        public <E extends Enum<E>> E readEnum(final Class<E> enumType) {
+            final int ordinal = readInt() - 1;
+            if(ordinal < 0) {
+                return null;
+            }
+            final E[] constants = enumType.getEnumConstants();
+            if(ordinal >= constants.length) {
+                throw new IllegalArgumentException("No " + enumType.getSimpleName() + " with ordinal " + ordinal);
+            }
+            return constants[ordinal];
+        }
+
+        public LocalDate readDate() {
+            return readBoolean() ? EPOCH.plusDays((int) readLong()) : null;
+        }
+
+        private int readByte() {
+            if(position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated wizard memento");
+            }
+            return bytes[position++] & 0xFF;
+        }
+    }
+    //endregion
+
+    //region > helpers
+
+    private static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+
+    private static long epochDayOf(final LocalDate date) {
+        return Days.daysBetween(EPOCH, date).getDays();
+    }
+
+    private static byte[] deflate(final byte[] bytes) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+            final byte[] buf = new byte[256];
+            while(!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(final byte[] bytes) {
+        final Inflater inflater = new Inflater(true);
+        try {
+            // the 'nowrap' inflater requires an extra dummy byte
+            inflater.setInput(Arrays.copyOf(bytes, bytes.length + 1));
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(bytes.length * 2, MAX_INFLATED_BYTES));
+            final byte[] buf = new byte[256];
+            while(!inflater.finished()) {
+                final int count = inflater.inflate(buf);
+                if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated wizard memento");
+                }
+                if(out.size() + count > MAX_INFLATED_BYTES) {
+                    throw new IllegalArgumentException("Wizard memento inflates to more than " + MAX_INFLATED_BYTES + " bytes");
+                }
+                out.write(buf, 0, count);
+            }
+            return out.toByteArray();
+        } catch(final DataFormatException ex) {
+            throw new IllegalArgumentException("Corrupt wizard memento", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+    //endregion
+}
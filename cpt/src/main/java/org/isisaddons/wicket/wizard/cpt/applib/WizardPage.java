@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.applib;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the wizard page(s) - that is, the {@link AbstractWizard.State state}(s), by name - on which a property
+ * is shown.
+ *
+ * <p>
+ * The wizard component renders an annotated property only on the listed pages, without evaluating its
+ * <tt>hideXxx()</tt> method (authorization and other hiding rules still apply).  Properties whose visibility also
+ * depends on other state (eg whether some value has been entered) should not be annotated; they continue to be
+ * evaluated on every render.  Each name must be that of a state; any other is rejected when the metamodel is
+ * validated.
+ *
+ * <p>
+ * Any <tt>hideXxx()</tt> methods can (and should) be retained, for the benefit of other viewers.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface WizardPage {
+
+    /**
+     * The names of the states on which the property is shown.
+     */
+    String[] value();
+}
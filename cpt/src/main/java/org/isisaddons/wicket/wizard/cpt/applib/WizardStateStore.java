@@ -0,0 +1,408 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.applib;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * Optional server-side store for the mementos of wizard view models, so that the wizard's
+ * {@link org.apache.isis.applib.ViewModel#viewModelMemento() memento} (and hence its URL) is just a short opaque
+ * token, however much state the wizard has collected.
+ *
+ * <p>
+ * Disabled by default, in which case {@link #mementoFor(String, String)} and {@link #resolve(String, String)} simply
+ * pass the memento through.  Configure using:
+ * <pre>
+ * isis.services.WizardStateStore.enabled=true
+ * isis.services.WizardStateStore.maxEntries=10000
+ * isis.services.WizardStateStore.maxEntriesPerSession=50
+ * isis.services.WizardStateStore.idleTimeoutSeconds=1800
+ * </pre>
+ *
+ * <p>
+ * The store is bounded: the least recently used entry is evicted once there are <tt>maxEntries</tt>, the least
+ * recently used entry of a (login) session is evicted once that session has <tt>maxEntriesPerSession</tt>, and
+ * entries not accessed for <tt>idleTimeoutSeconds</tt> expire.  Tokens are derived from the owner and memento, so
+ * storing the same state again reuses the existing entry; a token only resolves for the owner that stored it.
+ *
+ * <p>
+ * When enabled, the {@link #getStatistics() statistics} are also available over JMX, as
+ * <tt>org.isisaddons.wicket.wizard:type=WizardStateStore</tt> (see {@link WizardStateStoreMetrics}).
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class WizardStateStore {
+
+    static final String KEY_PREFIX = "isis.services.WizardStateStore.";
+
+    /**
+     * Not produced by URL-safe base64, so distinguishes tokens from (inline) mementos.
+     */
+    static final String TOKEN_PREFIX = "~";
+
+    private static final int TOKEN_BYTES = 12;
+
+    private boolean enabled;
+    private int maxEntries = 10000;
+    private int maxEntriesPerSession = 50;
+    private long idleTimeoutNanos = TimeUnit.MINUTES.toNanos(30);
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    /**
+     * The tokens of each session, least recently used first.
+     */
+    private final Map<String, LinkedHashSet<String>> tokensBySession = new HashMap<String, LinkedHashSet<String>>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    private final WizardStateStoreMetrics metrics = new WizardStateStoreMetrics(this);
+
+    //region > init
+
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        enabled = Boolean.parseBoolean(property(properties, "enabled", "false"));
+        maxEntries = Integer.parseInt(property(properties, "maxEntries", String.valueOf(maxEntries)));
+        maxEntriesPerSession = Integer.parseInt(property(properties, "maxEntriesPerSession", String.valueOf(maxEntriesPerSession)));
+        idleTimeoutNanos = TimeUnit.SECONDS.toNanos(
+                Long.parseLong(property(properties, "idleTimeoutSeconds", String.valueOf(TimeUnit.NANOSECONDS.toSeconds(idleTimeoutNanos)))));
+        if(enabled) {
+            metrics.register();
+        }
+    }
+
+    @PreDestroy
+    @Programmatic
+    public void shutdown() {
+        metrics.unregister();
+    }
+
+    private static String property(final Map<String, String> properties, final String key, final String defaultValue) {
+        final String value = properties != null ? properties.get(KEY_PREFIX + key) : null;
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    @Programmatic
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Programmatic
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Programmatic
+    public int getMaxEntriesPerSession() {
+        return maxEntriesPerSession;
+    }
+    //endregion
+
+    //region > mementoFor, resolve
+
+    /**
+     * Stores the memento on behalf of the owner (typically the current user) and the {@link #currentSession() current
+     * session}, returning the token to use as the wizard's memento instead; if the store is not enabled, just returns
+     * the memento.
+     */
+    @Programmatic
+    public String mementoFor(final String owner, final String memento) {
+        return enabled ? mementoFor(owner, currentSession(), memento) : memento;
+    }
+
+    /**
+     * As {@link #mementoFor(String, String)}, but for the specified session (counting towards its quota); the
+     * session is only used as a key, and may be <tt>null</tt> (in which case the owner's name is used instead).
+     */
+    @Programmatic
+    public String mementoFor(final String owner, final String session, final String memento) {
+        if(!enabled || memento == null) {
+            return memento;
+        }
+        final String token = TOKEN_PREFIX + tokenFor(owner, memento);
+        final String sessionKey = session != null ? session : owner;
+        final long now = now();
+        synchronized (entries) {
+            final Entry existing = entries.get(token);
+            if(existing != null) {
+                existing.lastAccessed = now;
+                if(existing.session.equals(sessionKey)) {
+                    touchInSession(sessionKey, token);
+                } else {
+                    removeFromSession(existing.session, token);
+                    existing.session = sessionKey;
+                    addToSession(sessionKey, token);
+                }
+                return token;
+            }
+            expireIdle(now);
+            entries.put(token, new Entry(owner, sessionKey, memento, now));
+            addToSession(sessionKey, token);
+            evictOverCapacity();
+        }
+        return token;
+    }
+
+    /**
+     * Returns the memento for a token previously returned by {@link #mementoFor(String, String)} for the same
+     * owner, or <tt>null</tt> if it was stored by a different owner, or has since been evicted or has expired.
+     * Anything that is not a token is returned unchanged.
+     */
+    @Programmatic
+    public String resolve(final String owner, final String mementoOrToken) {
+        if(mementoOrToken == null || !mementoOrToken.startsWith(TOKEN_PREFIX)) {
+            return mementoOrToken;
+        }
+        final long now = now();
+        synchronized (entries) {
+            final Entry entry = entries.get(mementoOrToken);
+            if(entry == null || !Objects.equals(entry.owner, owner)) {
+                // (someone else's entry is moved in the access order, but its idle time is unchanged)
+                misses.incrementAndGet();
+                return null;
+            }
+            if(isIdle(entry, now)) {
+                remove(mementoOrToken, entry);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            entry.lastAccessed = now;
+            touchInSession(entry.session, mementoOrToken);
+            hits.incrementAndGet();
+            return entry.memento;
+        }
+    }
+
+    /**
+     * Identifies the current session, if any: the applib does not expose the login session itself, so this is the
+     * current user (meaning that the quota applies to all of a user's sessions together).
+     */
+    protected String currentSession() {
+        return container != null ? container.getUser().getName() : null;
+    }
+
+    long now() {
+        return System.nanoTime();
+    }
+    //endregion
+
+    //region > statistics
+
+    @Programmatic
+    public Statistics getStatistics() {
+        final int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Statistics(size, hits.get(), misses.get(), evictions.get(), expirations.get());
+    }
+
+    /**
+     * Resets the counters (though not the store itself).
+     */
+    void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+        expirations.set(0);
+    }
+
+    public static final class Statistics {
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+
+        Statistics(final int size, final long hits, final long misses, final long evictions, final long expirations) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Entries evicted because the store, or their session's quota, was full.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Entries removed because they had not been accessed within the idle timeout.
+         */
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public double getHitRatio() {
+            final long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "size=" + size + ", hits=" + hits + ", misses=" + misses
+                    + ", evictions=" + evictions + ", expirations=" + expirations;
+        }
+    }
+    //endregion
+
+    //region > helpers (call only while synchronized on entries)
+
+    private void addToSession(final String session, final String token) {
+        LinkedHashSet<String> tokens = tokensBySession.get(session);
+        if(tokens == null) {
+            tokens = new LinkedHashSet<String>();
+            tokensBySession.put(session, tokens);
+        }
+        tokens.add(token);
+        while(tokens.size() > maxEntriesPerSession) {
+            final String leastRecentlyUsed = tokens.iterator().next();
+            remove(leastRecentlyUsed, entries.get(leastRecentlyUsed));
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Moves the token to the end (most recently used) of its session's tokens.
+     */
+    private void touchInSession(final String session, final String token) {
+        final LinkedHashSet<String> tokens = tokensBySession.get(session);
+        if(tokens != null && tokens.remove(token)) {
+            tokens.add(token);
+        }
+    }
+
+    private void evictOverCapacity() {
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while(entries.size() > maxEntries && iterator.hasNext()) {
+            final Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            removeFromSession(eldest.getValue().session, eldest.getKey());
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Entries are in (roughly) access order, so stops at the first entry that is not idle.
+     */
+    private void expireIdle(final long now) {
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while(iterator.hasNext()) {
+            final Map.Entry<String, Entry> eldest = iterator.next();
+            if(!isIdle(eldest.getValue(), now)) {
+                return;
+            }
+            iterator.remove();
+            removeFromSession(eldest.getValue().session, eldest.getKey());
+            expirations.incrementAndGet();
+        }
+    }
+
+    private boolean isIdle(final Entry entry, final long now) {
+        return now - entry.lastAccessed > idleTimeoutNanos;
+    }
+
+    private void remove(final String token, final Entry entry) {
+        if(entry == null) {
+            return;
+        }
+        entries.remove(token);
+        removeFromSession(entry.session, token);
+    }
+
+    private void removeFromSession(final String session, final String token) {
+        final LinkedHashSet<String> tokens = tokensBySession.get(session);
+        if(tokens == null) {
+            return;
+        }
+        tokens.remove(token);
+        if(tokens.isEmpty()) {
+            tokensBySession.remove(session);
+        }
+    }
+
+    private static String tokenFor(final String owner, final String memento) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(owner).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(memento.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), TOKEN_BYTES));
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class Entry {
+        private final String owner;
+        private final String memento;
+        private String session;
+        private long lastAccessed;
+
+        Entry(final String owner, final String session, final String memento, final long lastAccessed) {
+            this.owner = owner;
+            this.session = session;
+            this.memento = memento;
+            this.lastAccessed = lastAccessed;
+        }
+    }
+    //endregion
+
+    //region > injected services
+
+    @javax.inject.Inject
+    private DomainObjectContainer container;
+
+    //endregion
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.applib;
+
+/**
+ * The counters of the {@link WizardStateStore}, as exposed over JMX by {@link WizardStateStoreMetrics#register()}.
+ */
+public interface WizardStateStoreMXBean {
+
+    int getSize();
+
+    int getMaxEntries();
+
+    int getMaxEntriesPerSession();
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * Hits as a proportion of all lookups of tokens, or 0 if there have been none.
+     */
+    double getHitRatio();
+
+    /**
+     * Entries evicted because the store, or their session's quota, was full.
+     */
+    long getEvictions();
+
+    /**
+     * Entries removed because they had not been accessed within the idle timeout.
+     */
+    long getExpirations();
+
+    /**
+     * Resets the counters (though not the store itself).
+     */
+    void reset();
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.applib;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exposes the {@link WizardStateStore#getStatistics() statistics} of a {@link WizardStateStore} as an MBean
+ * (<tt>org.isisaddons.wicket.wizard:type=WizardStateStore</tt>).
+ *
+ * <p>
+ * {@link #register() Registered} by the store when it is initialized (if enabled), and
+ * {@link #unregister() unregistered} when it is shut down.
+ */
+public class WizardStateStoreMetrics implements WizardStateStoreMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WizardStateStoreMetrics.class);
+
+    static final String OBJECT_NAME = "org.isisaddons.wicket.wizard:type=WizardStateStore";
+
+    private final WizardStateStore store;
+    private final MBeanServer mBeanServer;
+
+    WizardStateStoreMetrics(final WizardStateStore store) {
+        this(store, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    WizardStateStoreMetrics(final WizardStateStore store, final MBeanServer mBeanServer) {
+        this.store = store;
+        this.mBeanServer = mBeanServer;
+    }
+
+    //region > WizardStateStoreMXBean
+
+    @Override
+    public int getSize() {
+        return store.getStatistics().getSize();
+    }
+
+    @Override
+    public int getMaxEntries() {
+        return store.getMaxEntries();
+    }
+
+    @Override
+    public int getMaxEntriesPerSession() {
+        return store.getMaxEntriesPerSession();
+    }
+
+    @Override
+    public long getHits() {
+        return store.getStatistics().getHits();
+    }
+
+    @Override
+    public long getMisses() {
+        return store.getStatistics().getMisses();
+    }
+
+    @Override
+    public double getHitRatio() {
+        return store.getStatistics().getHitRatio();
+    }
+
+    @Override
+    public long getEvictions() {
+        return store.getStatistics().getEvictions();
+    }
+
+    @Override
+    public long getExpirations() {
+        return store.getStatistics().getExpirations();
+    }
+
+    @Override
+    public void reset() {
+        store.resetStatistics();
+    }
+    //endregion
+
+    //region > register, unregister (JMX)
+
+    public void register() {
+        try {
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if(mBeanServer.isRegistered(objectName)) {
+                // eg left over from an earlier deployment within the same JVM
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (final JMException ex) {
+            LOG.warn("Could not register wizard state store metrics", ex);
+        }
+    }
+
+    public void unregister() {
+        try {
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if(mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (final JMException ex) {
+            LOG.debug("Could not unregister wizard state store metrics", ex);
+        }
+    }
+    //endregion
+}
@@ -16,6 +16,7 @@
  */
 package org.isisaddons.wicket.wizard.cpt.metamodel;
 
+import java.util.List;
 import org.apache.isis.core.metamodel.facetapi.Facet;
 import org.apache.isis.core.metamodel.spec.feature.ObjectAction;
 
@@ -38,4 +39,32 @@ public interface WizardFacet extends Facet {
     public String disableFinish(Object pojo);
 
     boolean isWizardAction(ObjectAction input);
+
+    /**
+     * The wizard's actions, other than those that {@link #isWizardAction(ObjectAction) implement the wizard}.
+     */
+    List<ObjectAction> getNonWizardActions();
+
+    /**
+     * The precompiled transitions between the wizard's pages, or <tt>null</tt> if the wizard's state is not an enum
+     * (in which case navigation always delegates to the wizard itself).
+     */
+    WizardStateGraph getStateGraph();
+
+    /**
+     * The wizard's properties indexed by page, or <tt>null</tt> if there is no {@link #getStateGraph() state graph}
+     * or none of the properties declares its page(s).
+     */
+    WizardPageIndex getPageIndex();
+
+    /**
+     * Whether any of the wizard's properties is changed through a <tt>modifyXxx()</tt> or <tt>clearXxx()</tt> method
+     * rather than just its setter; such a method may also change other properties.
+     */
+    boolean hasModifyOrClearMethods();
+
+    /**
+     * Evaluates the current page and all of the transitions of the wizard in one go.
+     */
+    WizardNavigationState navigationStateOf(Object pojo);
 }
@@ -17,39 +17,179 @@
 package org.isisaddons.wicket.wizard.cpt.metamodel;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
 import org.isisaddons.wicket.wizard.cpt.applib.Wizard;
 import org.apache.isis.core.metamodel.facetapi.FacetHolder;
 import org.apache.isis.core.metamodel.facets.ImperativeFacet;
 import org.apache.isis.core.metamodel.facets.actions.action.invocation.ActionInvocationFacet;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
+import org.apache.isis.core.metamodel.spec.feature.Contributed;
 import org.apache.isis.core.metamodel.spec.feature.ObjectAction;
 
 public class WizardFacetForInterface extends WizardFacetAbstract {
 
+    private static final String NO_MORE_PAGES = "No more pages";
+
+    private final Set<Method> wizardMethods;
+    private final WizardStateGraph stateGraph;
+    private final boolean inPlaceTransitions;
+    private final boolean modifyOrClearMethods;
+
     public WizardFacetForInterface(final FacetHolder holder) {
+        this(holder, null, null, false);
+    }
+
+    /**
+     * @param wizardClass - if known, the methods that implement {@link Wizard} are resolved up-front, so that
+     *                    {@link #isWizardAction(ObjectAction)} is a simple lookup.
+     * @param inPlaceTransitions - whether the wizard is an {@link AbstractWizard} that does not override
+     *                           <tt>next()</tt> or <tt>previous()</tt>, so can move between states without being cloned.
+     */
+    public WizardFacetForInterface(
+            final FacetHolder holder,
+            final Class<?> wizardClass,
+            final WizardStateGraph stateGraph,
+            final boolean inPlaceTransitions) {
         super(holder);
+        this.wizardMethods = wizardClass != null ? wizardMethodsOf(wizardClass) : null;
+        this.stateGraph = stateGraph;
+        this.inPlaceTransitions = inPlaceTransitions;
+        // if the class is not known, then assume the worst
+        this.modifyOrClearMethods = wizardClass == null || hasModifyOrClearMethods(wizardClass);
+    }
+
+    /**
+     * The methods of the {@link Wizard} interface, along with every method of the class (or its superclasses) that
+     * implements or overrides them, including any bridge methods for covariant return types.
+     *
+     * <p>
+     * (<tt>Method</tt>s are copied each time they are obtained by reflection, so are held in a set based on equality
+     * rather than identity.)
+     */
+    static Set<Method> wizardMethodsOf(final Class<?> wizardClass) {
+        final Method[] interfaceMethods = Wizard.class.getDeclaredMethods();
+        final Set<Method> methods = Sets.newHashSet(Arrays.asList(interfaceMethods));
+        for(Class<?> cls = wizardClass; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (final Method method : cls.getDeclaredMethods()) {
+                for (final Method interfaceMethod : interfaceMethods) {
+                    if(method.getName().equals(interfaceMethod.getName()) &&
+                       Arrays.equals(method.getParameterTypes(), interfaceMethod.getParameterTypes())) {
+                        methods.add(method);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableSet(methods);
+    }
+
+    /**
+     * Whether the class has a <tt>modifyXxx(...)</tt> or <tt>clearXxx()</tt> method for any of its properties (as
+     * identified by their getters), following the Isis naming conventions.
+     */
+    static boolean hasModifyOrClearMethods(final Class<?> wizardClass) {
+        final Method[] methods = wizardClass.getMethods();
+        final Set<String> properties = Sets.newHashSet();
+        for (final Method method : methods) {
+            if(method.getParameterTypes().length != 0 || method.getReturnType() == void.class) {
+                continue;
+            }
+            final String name = method.getName();
+            if(name.startsWith("get") && name.length() > 3) {
+                properties.add(name.substring(3));
+            } else if(name.startsWith("is") && name.length() > 2) {
+                properties.add(name.substring(2));
+            }
+        }
+        for (final Method method : methods) {
+            final String name = method.getName();
+            final int parameterCount = method.getParameterTypes().length;
+            if(name.startsWith("modify") && parameterCount == 1 && properties.contains(name.substring(6)) ||
+               name.startsWith("clear") && parameterCount == 0 && properties.contains(name.substring(5))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasModifyOrClearMethods() {
+        return modifyOrClearMethods;
+    }
+
+    @Override
+    public WizardStateGraph getStateGraph() {
+        return stateGraph;
+    }
+
+    private volatile boolean pageIndexCreated;
+    private WizardPageIndex pageIndex;
+
+    /**
+     * Created lazily, because the properties of the {@link ObjectSpecification} are not yet available when
+     * this facet is created.
+     */
+    @Override
+    public WizardPageIndex getPageIndex() {
+        if(!pageIndexCreated) {
+            synchronized (this) {
+                if(!pageIndexCreated) {
+                    final FacetHolder holder = getFacetHolder();
+                    if(stateGraph != null && holder instanceof ObjectSpecification) {
+                        pageIndex = WizardPageIndex.create((ObjectSpecification) holder, stateGraph);
+                    }
+                    pageIndexCreated = true;
+                }
+            }
+        }
+        return pageIndex;
     }
 
     @Override
     public void next(Object pojo) {
+        if(stateGraph != null && !stateGraph.hasNext(stateGraph.stateOf(pojo))) {
+            return;
+        }
+        if(inPlaceTransitions) {
+            ((AbstractWizard<?, ?>) pojo).toNextState();
+            return;
+        }
         final Wizard wizard = (Wizard) pojo;
         wizard.next();
     }
 
     @Override
     public String disableNext(Object pojo) {
+        if(stateGraph != null && !stateGraph.hasNext(stateGraph.stateOf(pojo))) {
+            return NO_MORE_PAGES;
+        }
         final Wizard wizard = (Wizard) pojo;
         return wizard.disableNext();
     }
 
     @Override
     public void previous(Object pojo) {
+        if(stateGraph != null && !stateGraph.hasPrevious(stateGraph.stateOf(pojo))) {
+            return;
+        }
+        if(inPlaceTransitions) {
+            ((AbstractWizard<?, ?>) pojo).toPreviousState();
+            return;
+        }
         final Wizard wizard = (Wizard) pojo;
         wizard.previous();
     }
 
     @Override
     public String disablePrevious(Object pojo) {
+        if(stateGraph != null && !stateGraph.hasPrevious(stateGraph.stateOf(pojo))) {
+            return NO_MORE_PAGES;
+        }
         final Wizard wizard = (Wizard) pojo;
         return wizard.disablePrevious();
     }
@@ -66,14 +206,37 @@ public String disableFinish(Object pojo) {
         return wizard.disableFinish();
     }
 
+    @Override
+    public WizardNavigationState navigationStateOf(Object pojo) {
+        final Enum<?> state = stateGraph != null ? stateGraph.stateOf(pojo) : null;
+        return new WizardNavigationState(
+                state,
+                stateGraph != null ? stateGraph.pageIndexOf(state) : -1,
+                stateGraph != null ? stateGraph.getPageCount() : -1,
+                disableNext(pojo),
+                disablePrevious(pojo),
+                disableFinish(pojo));
+    }
+
     @Override
     public boolean isWizardAction(ObjectAction objectAction) {
         final ActionInvocationFacet actionInvocationFacet = objectAction.getFacet(ActionInvocationFacet.class);
+        if(actionInvocationFacet == null) {
+            return false;
+        }
         final ImperativeFacet facet = ImperativeFacet.Util.getImperativeFacet(actionInvocationFacet);
         if(facet == null) {
             return false;
         }
         final List<Method> actionMethods = facet.getMethods();
+        if(wizardMethods != null) {
+            for (int i = 0; i < actionMethods.size(); i++) {
+                if(wizardMethods.contains(actionMethods.get(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
         final Method[] wizardMethods = Wizard.class.getDeclaredMethods();
         for (Method actionMethod : actionMethods) {
             for (Method wizardMethod : wizardMethods) {
@@ -85,6 +248,34 @@ public boolean isWizardAction(ObjectAction objectAction) {
         return false;
     }
 
+    private volatile List<ObjectAction> nonWizardActions;
+
+    /**
+     * The actions of the wizard (including contributed actions) other than those that implement {@link Wizard}.
+     *
+     * <p>
+     * Determined lazily (and then cached), because the actions of the {@link ObjectSpecification} are not yet
+     * available when this facet is created.
+     */
+    @Override
+    public List<ObjectAction> getNonWizardActions() {
+        List<ObjectAction> actions = nonWizardActions;
+        if(actions == null) {
+            final FacetHolder holder = getFacetHolder();
+            if(!(holder instanceof ObjectSpecification)) {
+                return Collections.emptyList();
+            }
+            final List<ObjectAction> nonWizard = Lists.newArrayList();
+            for (final ObjectAction objectAction : ((ObjectSpecification) holder).getObjectActions(Contributed.INCLUDED)) {
+                if(!isWizardAction(objectAction)) {
+                    nonWizard.add(objectAction);
+                }
+            }
+            nonWizardActions = actions = Collections.unmodifiableList(nonWizard);
+        }
+        return actions;
+    }
+
     private boolean match(Method method1, Method method2) {
         final Class<?> declaringClass1 = method1.getDeclaringClass();
         final Class<?> declaringClass2 = method2.getDeclaringClass();
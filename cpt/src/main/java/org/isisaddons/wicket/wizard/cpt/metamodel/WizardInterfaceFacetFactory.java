@@ -16,6 +16,7 @@
  */
 package org.isisaddons.wicket.wizard.cpt.metamodel;
 
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
 import org.isisaddons.wicket.wizard.cpt.applib.Wizard;
 import org.apache.isis.core.metamodel.facetapi.FacetHolder;
 import org.apache.isis.core.metamodel.facetapi.FacetUtil;
@@ -30,12 +31,25 @@ public WizardInterfaceFacetFactory() {
 
     @Override
     public void process(final ProcessClassContext processClassContaxt) {
-        boolean implementsInterface = Wizard.class.isAssignableFrom(processClassContaxt.getCls());
-        FacetUtil.addFacet(create(implementsInterface, processClassContaxt.getFacetHolder()));
+        final Class<?> cls = processClassContaxt.getCls();
+        boolean implementsInterface = Wizard.class.isAssignableFrom(cls);
+        FacetUtil.addFacet(create(implementsInterface, cls, processClassContaxt.getFacetHolder()));
     }
 
-    private WizardFacet create(final boolean implementsInterface, final FacetHolder holder) {
-        return !implementsInterface ? null : new WizardFacetForInterface(holder);
+    private WizardFacet create(final boolean implementsInterface, final Class<?> cls, final FacetHolder holder) {
+        return !implementsInterface ? null : new WizardFacetForInterface(holder, cls, WizardStateGraph.introspect(cls), supportsInPlaceTransitions(cls));
+    }
+
+    private static boolean supportsInPlaceTransitions(final Class<?> cls) {
+        if(!AbstractWizard.class.isAssignableFrom(cls)) {
+            return false;
+        }
+        try {
+            return cls.getMethod("next").getDeclaringClass() == AbstractWizard.class &&
+                   cls.getMethod("previous").getDeclaringClass() == AbstractWizard.class;
+        } catch (final NoSuchMethodException ex) {
+            return false;
+        }
     }
 
 }
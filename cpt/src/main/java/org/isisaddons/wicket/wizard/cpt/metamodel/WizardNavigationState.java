@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metamodel;
+
+import java.io.Serializable;
+
+/**
+ * Immutable snapshot of where a wizard is and where it can go: its current page, whether each of the
+ * transitions is enabled (and if not, why not), and its position among its pages.
+ *
+ * <p>
+ * Obtained from {@link WizardFacet#navigationStateOf(Object)}, so that the domain object is consulted just once
+ * for each transition, however many times the result is read.
+ */
+public final class WizardNavigationState implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Enum<?> page;
+    private final int pageIndex;
+    private final int pageCount;
+    private final String disableNextReason;
+    private final String disablePreviousReason;
+    private final String disableFinishReason;
+
+    public WizardNavigationState(
+            final Enum<?> page,
+            final int pageIndex,
+            final int pageCount,
+            final String disableNextReason,
+            final String disablePreviousReason,
+            final String disableFinishReason) {
+        this.page = page;
+        this.pageIndex = pageIndex;
+        this.pageCount = pageCount;
+        this.disableNextReason = disableNextReason;
+        this.disablePreviousReason = disablePreviousReason;
+        this.disableFinishReason = disableFinishReason;
+    }
+
+    //region > page
+
+    /**
+     * The current page, or <tt>null</tt> if the wizard has no {@link WizardStateGraph state graph}.
+     */
+    public Enum<?> getPage() {
+        return page;
+    }
+
+    /**
+     * The zero-based index of the current page, or <tt>-1</tt> if not known.
+     */
+    public int getPageIndex() {
+        return pageIndex;
+    }
+
+    /**
+     * The number of pages, or <tt>-1</tt> if not known.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+    //endregion
+
+    //region > transitions
+
+    public boolean isNextEnabled() {
+        return disableNextReason == null;
+    }
+
+    public String getDisableNextReason() {
+        return disableNextReason;
+    }
+
+    public boolean isPreviousEnabled() {
+        return disablePreviousReason == null;
+    }
+
+    public String getDisablePreviousReason() {
+        return disablePreviousReason;
+    }
+
+    public boolean isFinishEnabled() {
+        return disableFinishReason == null;
+    }
+
+    public String getDisableFinishReason() {
+        return disableFinishReason;
+    }
+    //endregion
+
+    @Override
+    public String toString() {
+        return "WizardNavigationState[" +
+                "page=" + page + (pageIndex >= 0 ? " (" + (pageIndex + 1) + " of " + pageCount + ")" : "") +
+                ", next=" + (isNextEnabled() ? "enabled" : disableNextReason) +
+                ", previous=" + (isPreviousEnabled() ? "enabled" : disablePreviousReason) +
+                ", finish=" + (isFinishEnabled() ? "enabled" : disableFinishReason) +
+                "]";
+    }
+}
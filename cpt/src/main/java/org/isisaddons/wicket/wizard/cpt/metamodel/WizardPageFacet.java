@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metamodel;
+
+import java.util.Set;
+import org.apache.isis.core.metamodel.facetapi.Facet;
+
+/**
+ * Indicates the wizard page(s) on which a property is shown.
+ *
+ * <p>
+ * In the standard Apache Isis Programming Model, corresponds to annotating the property with
+ * {@link org.isisaddons.wicket.wizard.cpt.applib.WizardPage <tt>@WizardPage</tt>}.
+ */
+public interface WizardPageFacet extends Facet {
+
+    /**
+     * The names of the states on which the property is shown.
+     */
+    Set<String> getPages();
+
+    boolean isShownOn(Enum<?> state);
+}
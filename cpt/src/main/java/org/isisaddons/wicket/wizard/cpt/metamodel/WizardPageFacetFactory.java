@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metamodel;
+
+import java.util.List;
+import java.util.Set;
+import org.isisaddons.wicket.wizard.cpt.applib.WizardPage;
+import org.apache.isis.core.commons.config.IsisConfiguration;
+import org.apache.isis.core.metamodel.facetapi.FacetUtil;
+import org.apache.isis.core.metamodel.facetapi.FeatureType;
+import org.apache.isis.core.metamodel.facetapi.MetaModelValidatorRefiner;
+import org.apache.isis.core.metamodel.facets.FacetFactoryAbstract;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
+import org.apache.isis.core.metamodel.spec.feature.Contributed;
+import org.apache.isis.core.metamodel.spec.feature.ObjectAssociation;
+import org.apache.isis.core.metamodel.specloader.validator.MetaModelValidatorComposite;
+import org.apache.isis.core.metamodel.specloader.validator.MetaModelValidatorVisiting;
+import org.apache.isis.core.metamodel.specloader.validator.ValidationFailures;
+
+public class WizardPageFacetFactory extends FacetFactoryAbstract implements MetaModelValidatorRefiner {
+
+    public WizardPageFacetFactory() {
+        super(FeatureType.PROPERTIES_ONLY);
+    }
+
+    @Override
+    public void process(final ProcessMethodContext processMethodContext) {
+        final WizardPage annotation = processMethodContext.getMethod().getAnnotation(WizardPage.class);
+        if(annotation == null) {
+            return;
+        }
+        FacetUtil.addFacet(new WizardPageFacetForAnnotation(annotation.value(), processMethodContext.getFacetHolder()));
+    }
+
+    /**
+     * Rejects any <tt>@WizardPage</tt> naming a page that is not a state of its wizard (which would otherwise
+     * silently never be shown).
+     */
+    @Override
+    public void refineMetaModelValidator(final MetaModelValidatorComposite metaModelValidator, final IsisConfiguration configuration) {
+        metaModelValidator.add(new MetaModelValidatorVisiting(new MetaModelValidatorVisiting.Visitor() {
+            @Override
+            public boolean visit(final ObjectSpecification objectSpec, final ValidationFailures validationFailures) {
+                validate(objectSpec, validationFailures);
+                return true;
+            }
+        }));
+    }
+
+    static void validate(final ObjectSpecification objectSpec, final ValidationFailures validationFailures) {
+        final WizardFacet wizardFacet = objectSpec.getFacet(WizardFacet.class);
+        final WizardStateGraph stateGraph = wizardFacet != null ? wizardFacet.getStateGraph() : null;
+        @SuppressWarnings("unchecked")
+        final List<ObjectAssociation> properties = objectSpec.getAssociations(Contributed.EXCLUDED, ObjectAssociation.Filters.PROPERTIES);
+        for (final ObjectAssociation property : properties) {
+            final WizardPageFacet pageFacet = property.getFacet(WizardPageFacet.class);
+            if(pageFacet == null) {
+                continue;
+            }
+            if(stateGraph == null) {
+                validationFailures.add(
+                        "%s#%s: @WizardPage is only supported on wizards whose state is an enum",
+                        objectSpec.getIdentifier().getClassName(), property.getId());
+                continue;
+            }
+            final Set<String> unknownPages = WizardPageIndex.unknownPages(pageFacet, stateGraph);
+            if(!unknownPages.isEmpty()) {
+                validationFailures.add(
+                        "%s#%s: @WizardPage names unknown page(s) %s; the pages are %s",
+                        objectSpec.getIdentifier().getClassName(), property.getId(), unknownPages, stateGraph.getStates());
+            }
+        }
+    }
+
+}
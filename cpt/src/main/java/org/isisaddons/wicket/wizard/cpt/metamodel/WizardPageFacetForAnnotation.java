@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metamodel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.apache.isis.core.metamodel.facetapi.FacetAbstract;
+import org.apache.isis.core.metamodel.facetapi.FacetHolder;
+
+public class WizardPageFacetForAnnotation extends FacetAbstract implements WizardPageFacet {
+
+    private final Set<String> pages;
+
+    public WizardPageFacetForAnnotation(final String[] pages, final FacetHolder holder) {
+        super(WizardPageFacet.class, holder, Derivation.NOT_DERIVED);
+        this.pages = Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(pages)));
+    }
+
+    @Override
+    public Set<String> getPages() {
+        return pages;
+    }
+
+    @Override
+    public boolean isShownOn(final Enum<?> state) {
+        return state != null && pages.contains(state.name());
+    }
+
+    @Override
+    protected String toStringValues() {
+        return "pages=" + pages;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metamodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.isis.applib.annotation.Where;
+import org.apache.isis.core.commons.authentication.AuthenticationSession;
+import org.apache.isis.core.metamodel.adapter.ObjectAdapter;
+import org.apache.isis.core.metamodel.consent.InteractionInvocationMethod;
+import org.apache.isis.core.metamodel.facetapi.Facet;
+import org.apache.isis.core.metamodel.facetapi.FacetFilters;
+import org.apache.isis.core.metamodel.facets.members.hidden.method.HideForContextFacetViaMethod;
+import org.apache.isis.core.metamodel.interactions.HidingInteractionAdvisor;
+import org.apache.isis.core.metamodel.interactions.VisibilityContext;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
+import org.apache.isis.core.metamodel.spec.feature.Contributed;
+import org.apache.isis.core.metamodel.spec.feature.ObjectAssociation;
+
+/**
+ * Index of a wizard's properties by page, precomputed from the {@link WizardPageFacet}s of its properties.
+ *
+ * <p>
+ * For each state, holds (in member order) the properties that are {@link #isPaged(ObjectAssociation) paged} onto
+ * that state, interleaved with those properties that have no {@link WizardPageFacet} and so must still have their
+ * visibility evaluated dynamically.  Paged properties skip only their <tt>hideXxx()</tt> methods; authorization and
+ * any other hiding rules are still {@link #isVisibleOnPage(ObjectAssociation, AuthenticationSession, ObjectAdapter, Where) checked}.
+ */
+public final class WizardPageIndex {
+
+    private final List<List<ObjectAssociation>> candidatesByOrdinal;
+    private final Map<ObjectAssociation, WizardPageFacet> pageFacets;
+
+    private WizardPageIndex(
+            final List<List<ObjectAssociation>> candidatesByOrdinal,
+            final Map<ObjectAssociation, WizardPageFacet> pageFacets) {
+        this.candidatesByOrdinal = candidatesByOrdinal;
+        this.pageFacets = pageFacets;
+    }
+
+    /**
+     * @return the index, or <tt>null</tt> if none of the specification's properties is annotated with a page.
+     */
+    static WizardPageIndex create(final ObjectSpecification specification, final WizardStateGraph stateGraph) {
+        @SuppressWarnings("unchecked")
+        final List<ObjectAssociation> properties = specification.getAssociations(Contributed.INCLUDED, ObjectAssociation.Filters.PROPERTIES);
+
+        final Map<ObjectAssociation, WizardPageFacet> pageFacets = new IdentityHashMap<ObjectAssociation, WizardPageFacet>();
+        for (final ObjectAssociation property : properties) {
+            final WizardPageFacet pageFacet = property.getFacet(WizardPageFacet.class);
+            if(pageFacet != null) {
+                pageFacets.put(property, pageFacet);
+            }
+        }
+        if(pageFacets.isEmpty()) {
+            return null;
+        }
+
+        final List<List<ObjectAssociation>> candidatesByOrdinal = new ArrayList<List<ObjectAssociation>>();
+        for (final Enum<?> state : stateGraph.getStates()) {
+            final List<ObjectAssociation> candidates = new ArrayList<ObjectAssociation>();
+            for (final ObjectAssociation property : properties) {
+                final WizardPageFacet pageFacet = pageFacets.get(property);
+                if(pageFacet == null) {
+                    candidates.add(property);
+                } else if(pageFacet.isShownOn(state) && ObjectAssociation.Filters.staticallyVisible(Where.OBJECT_FORMS).accept(property)) {
+                    candidates.add(property);
+                }
+            }
+            candidatesByOrdinal.add(Collections.unmodifiableList(candidates));
+        }
+        return new WizardPageIndex(Collections.unmodifiableList(candidatesByOrdinal), pageFacets);
+    }
+
+    /**
+     * The properties (in member order) that may be shown on the provided page; those that are not
+     * {@link #isPaged(ObjectAssociation) paged} still need their visibility to be checked.
+     */
+    public List<ObjectAssociation> candidatesOn(final Enum<?> state) {
+        return state != null ? candidatesByOrdinal.get(state.ordinal()) : Collections.<ObjectAssociation>emptyList();
+    }
+
+    /**
+     * Whether the property's page(s) have been declared, meaning that its visibility is determined by the index alone.
+     */
+    public boolean isPaged(final ObjectAssociation property) {
+        return pageFacets.containsKey(property);
+    }
+
+    /**
+     * Whether a {@link #isPaged(ObjectAssociation) paged} property is visible on its page: consults every hiding
+     * advisor of the property (authorization, <tt>@Hidden</tt>, ...) other than its <tt>hideXxx()</tt> method, which
+     * the page supersedes.
+     */
+    public static boolean isVisibleOnPage(
+            final ObjectAssociation property,
+            final AuthenticationSession session,
+            final ObjectAdapter adapter,
+            final Where where) {
+        final VisibilityContext<?> ic = property.createVisibleInteractionContext(session, InteractionInvocationMethod.BY_USER, adapter, where);
+        for (final Facet facet : property.getFacets(FacetFilters.isA(HidingInteractionAdvisor.class))) {
+            if(facet instanceof HideForContextFacetViaMethod) {
+                continue;
+            }
+            if(((HidingInteractionAdvisor) facet).hides(ic) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The pages named by the facet that are not states of the wizard.
+     */
+    static Set<String> unknownPages(final WizardPageFacet pageFacet, final WizardStateGraph stateGraph) {
+        final Set<String> unknownPages = new LinkedHashSet<String>(pageFacet.getPages());
+        for (final Enum<?> state : stateGraph.getStates()) {
+            unknownPages.remove(state.name());
+        }
+        return unknownPages;
+    }
+}
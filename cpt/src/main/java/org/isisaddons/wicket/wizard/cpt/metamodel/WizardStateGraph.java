@@ -0,0 +1,276 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metamodel;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
+
+/**
+ * Immutable transition graph of an {@link AbstractWizard} whose
+ * {@link AbstractWizard.State state} is an enum, precompiled once when the metamodel is built.
+ *
+ * <p>
+ * Successors and predecessors are held in arrays indexed by the state's ordinal, so that navigation and
+ * button enablement are simple lookups rather than calls back into the domain object.
+ */
+public final class WizardStateGraph {
+
+    private static final int NONE = -1;
+
+    private final Class<?> stateType;
+    private final List<Enum<?>> states;
+    private final int[] successors;
+    private final int[] predecessors;
+    private final int[] pageIndexes;
+    private final int first;
+    private final int last;
+    private final int pageCount;
+
+    private WizardStateGraph(
+            final Class<?> stateType,
+            final Enum<?>[] states,
+            final int[] successors,
+            final int[] predecessors,
+            final int first) {
+        this.stateType = stateType;
+        this.states = Collections.unmodifiableList(Arrays.asList(states));
+        this.successors = successors;
+        this.predecessors = predecessors;
+        this.first = first;
+
+        // walk the 'next' chain from the first page to number the pages and determine reachability
+        this.pageIndexes = new int[states.length];
+        Arrays.fill(pageIndexes, NONE);
+        int count = 0;
+        int current = first;
+        int previous = NONE;
+        while(current != NONE && pageIndexes[current] == NONE) {
+            pageIndexes[current] = count++;
+            previous = current;
+            current = successors[current];
+        }
+        this.last = previous;
+        this.pageCount = count;
+    }
+
+    //region > introspect
+
+    /**
+     * Introspects the <tt>State</tt> enum of the provided wizard class.
+     *
+     * @return the graph, or <tt>null</tt> if the class is not an {@link AbstractWizard} parameterized by an enum,
+     *         or if its transitions cannot be evaluated statically.
+     */
+    static WizardStateGraph introspect(final Class<?> wizardClass) {
+        final Class<?> stateType = stateTypeOf(wizardClass);
+        if(stateType == null) {
+            return null;
+        }
+        final Enum<?>[] states = (Enum<?>[]) stateType.getEnumConstants();
+        if(states == null || states.length == 0) {
+            return null;
+        }
+        final int[] successors = new int[states.length];
+        final int[] predecessors = new int[states.length];
+        try {
+            for (final Enum<?> state : states) {
+                final AbstractWizard.State<?> wizardState = (AbstractWizard.State<?>) state;
+                successors[state.ordinal()] = ordinalOf(stateType, wizardState.next());
+                predecessors[state.ordinal()] = ordinalOf(stateType, wizardState.previous());
+            }
+        } catch(final RuntimeException ex) {
+            // transitions depend on something other than the enum constant itself
+            return null;
+        }
+        return new WizardStateGraph(stateType, states, successors, predecessors, firstOf(successors, predecessors));
+    }
+
+    private static Class<?> stateTypeOf(final Class<?> wizardClass) {
+        for(Class<?> cls = wizardClass; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            final Type superType = cls.getGenericSuperclass();
+            if(!(superType instanceof ParameterizedType)) {
+                continue;
+            }
+            final ParameterizedType parameterizedType = (ParameterizedType) superType;
+            if(parameterizedType.getRawType() != AbstractWizard.class) {
+                continue;
+            }
+            final Type stateType = parameterizedType.getActualTypeArguments()[1];
+            if(!(stateType instanceof Class)) {
+                return null;
+            }
+            final Class<?> stateClass = (Class<?>) stateType;
+            return stateClass.isEnum() && AbstractWizard.State.class.isAssignableFrom(stateClass) ? stateClass : null;
+        }
+        return null;
+    }
+
+    private static int ordinalOf(final Class<?> stateType, final Object state) {
+        if(state == null) {
+            return NONE;
+        }
+        if(!stateType.isInstance(state)) {
+            throw new IllegalStateException("Transition to a state of a different type: " + state);
+        }
+        return ((Enum<?>) state).ordinal();
+    }
+
+    /**
+     * The first page is the (first declared) state without a predecessor that is not itself a dead end; failing
+     * that, the first declared state.
+     */
+    private static int firstOf(final int[] successors, final int[] predecessors) {
+        for (int i = 0; i < predecessors.length; i++) {
+            if(predecessors[i] == NONE && successors[i] != NONE) {
+                return i;
+            }
+        }
+        return 0;
+    }
+    //endregion
+
+    //region > states
+
+    public Class<?> getStateType() {
+        return stateType;
+    }
+
+    /**
+     * All states, in declaration (ordinal) order.
+     */
+    public List<Enum<?>> getStates() {
+        return states;
+    }
+
+    public Enum<?> getFirst() {
+        return states.get(first);
+    }
+
+    public Enum<?> getLast() {
+        return states.get(last);
+    }
+
+    /**
+     * The current state of the provided wizard, or <tt>null</tt> if it is not an {@link AbstractWizard}.
+     */
+    public Enum<?> stateOf(final Object wizard) {
+        if(!(wizard instanceof AbstractWizard)) {
+            return null;
+        }
+        final Object state = ((AbstractWizard<?, ?>) wizard).getState();
+        return stateType.isInstance(state) ? (Enum<?>) state : null;
+    }
+
+    /**
+     * Sets the state of the provided wizard directly (without calling <tt>next()</tt> or <tt>previous()</tt>);
+     * ignored if it is not an {@link AbstractWizard} or the state is not one of this graph's.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void setStateOf(final Object wizard, final Enum<?> state) {
+        if(!(wizard instanceof AbstractWizard) || !stateType.isInstance(state)) {
+            return;
+        }
+        ((AbstractWizard) wizard).setState((AbstractWizard.State) state);
+    }
+    //endregion
+
+    //region > transitions
+
+    public Enum<?> next(final Object state) {
+        return stateAt(successors, state);
+    }
+
+    public boolean hasNext(final Object state) {
+        return next(state) != null;
+    }
+
+    public Enum<?> previous(final Object state) {
+        return stateAt(predecessors, state);
+    }
+
+    public boolean hasPrevious(final Object state) {
+        return previous(state) != null;
+    }
+
+    /**
+     * Whether the graph is a single chain from the {@link #getFirst() first} to the {@link #getLast() last} page,
+     * with each {@link #previous(Object) previous} transition exactly reversing the corresponding
+     * {@link #next(Object) next}.
+     */
+    public boolean isLinear() {
+        for (int i = 0; i < successors.length; i++) {
+            if(!isReachable(i)) {
+                continue;
+            }
+            final int successor = successors[i];
+            if(successor != NONE && predecessors[successor] != i) {
+                return false;
+            }
+            if(i == first ? predecessors[i] != NONE : predecessors[i] == NONE || successors[predecessors[i]] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+    //endregion
+
+    //region > pages
+
+    public boolean isReachable(final Object state) {
+        return stateType.isInstance(state) && isReachable(((Enum<?>) state).ordinal());
+    }
+
+    /**
+     * The zero-based position of the state along the <tt>next</tt> chain from the first page, or <tt>-1</tt> if
+     * it is not reachable that way.
+     */
+    public int pageIndexOf(final Object state) {
+        return stateType.isInstance(state) ? pageIndexes[((Enum<?>) state).ordinal()] : NONE;
+    }
+
+    /**
+     * The number of pages reachable from the first page.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+    //endregion
+
+    //region > helpers
+
+    private boolean isReachable(final int ordinal) {
+        return pageIndexes[ordinal] != NONE;
+    }
+
+    private Enum<?> stateAt(final int[] transitions, final Object state) {
+        if(!stateType.isInstance(state)) {
+            return null;
+        }
+        final int ordinal = transitions[((Enum<?>) state).ordinal()];
+        return ordinal == NONE ? null : states.get(ordinal);
+    }
+    //endregion
+
+    @Override
+    public String toString() {
+        return "WizardStateGraph[" + stateType.getSimpleName() + ": " + pageCount + " of " + states.size() + " pages]";
+    }
+}
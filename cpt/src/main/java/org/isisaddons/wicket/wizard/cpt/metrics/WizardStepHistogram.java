@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies (in microseconds), recorded without locking or allocation.
+ *
+ * <p>
+ * As for an <tt>HdrHistogram</tt>, values below {@value #SUB_BUCKETS} are counted exactly, and larger values in
+ * buckets whose width doubles with each power of two, each power being split into {@value #HALF_SUB_BUCKETS}; so
+ * that any value is known to within about 6%.  Values of <tt>2^{@value #MAX_BITS}</tt> (a little over an hour) or
+ * more are counted in the last bucket.
+ *
+ * <p>
+ * Each of the counters is updated atomically, but not together; a snapshot taken while values are being recorded
+ * (or while the histogram is being {@link #reset() reset}) may therefore be very slightly inconsistent.
+ */
+public final class WizardStepHistogram implements WizardStepHistogramMXBean {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAX_BITS = 32;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_BITS - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    //region > record
+
+    /**
+     * Records a single value, in microseconds; negative values are recorded as zero.
+     */
+    public void record(final long micros) {
+        final long value = micros < 0 ? 0 : micros > MAX_VALUE ? MAX_VALUE : micros;
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long currentMax = max.get();
+        while(value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    static int indexOf(final long value) {
+        if(value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = highestBit - (SUB_BUCKET_BITS - 1);
+        final int subBucket = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (subBucket - HALF_SUB_BUCKETS);
+    }
+
+    /**
+     * The largest value counted in the bucket with the provided index.
+     */
+    static long highestValueOf(final int index) {
+        if(index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        final long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+    //endregion
+
+    //region > statistics
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        final long n = count.get();
+        return n == 0 ? 0.0 : (double) total.get() / n;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    @Override
+    public long getP50Micros() {
+        return percentile(50.0);
+    }
+
+    @Override
+    public long getP90Micros() {
+        return percentile(90.0);
+    }
+
+    @Override
+    public long getP99Micros() {
+        return percentile(99.0);
+    }
+
+    @Override
+    public long getP999Micros() {
+        return percentile(99.9);
+    }
+
+    /**
+     * The value (to within the precision of its bucket) at or below which the given percentage of recorded values
+     * fall, or <tt>0</tt> if none have been recorded.
+     */
+    public long percentile(final double percentage) {
+        long n = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            n += counts.get(i);
+        }
+        if(n == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(percentage, 100.0) / 100.0 * n));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if(cumulative >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+    //endregion
+
+    @Override
+    public String toString() {
+        return "WizardStepHistogram[" +
+                "count=" + getCount() +
+                ", mean=" + Math.round(getMeanMicros()) + "us" +
+                ", p50=" + getP50Micros() + "us" +
+                ", p99=" + getP99Micros() + "us" +
+                ", max=" + getMaxMicros() + "us" +
+                "]";
+    }
+}
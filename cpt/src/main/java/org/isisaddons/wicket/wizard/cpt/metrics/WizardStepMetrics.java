@@ -0,0 +1,265 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+
+/**
+ * The latencies of each phase of the wizard steps, for each wizard type, page and transition.
+ *
+ * <p>
+ * Recording is cheap enough to be left on: once the histogram for a given wizard type, page, transition and phase
+ * has been created, {@link #record(String, Enum, Transition, Phase, long) recording} a value into it takes no locks
+ * and allocates nothing.  If {@link #setEnabled(boolean) disabled} (at runtime, eg over JMX) then the clock is not
+ * even read.
+ */
+public final class WizardStepMetrics implements WizardStepMetricsMXBean {
+
+    private static final WizardStepMetrics INSTANCE = new WizardStepMetrics();
+
+    public static WizardStepMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * The transition being performed; {@link #NONE} for the rendering of a wizard other than in the request that
+     * performed a transition (eg when first shown, or following a redirect).
+     */
+    public enum Transition {
+        NEXT,
+        PREVIOUS,
+        FINISH,
+        CANCEL,
+        NONE
+    }
+
+    public enum Phase {
+        PRE_VALIDATE,
+        PRE_APPLY,
+        APPLY,
+        POST_APPLY,
+        FLUSH,
+        RENDER,
+        /**
+         * From the start of pre-validation to the end of the submission.
+         */
+        TOTAL
+    }
+
+    private static final String NO_PAGE = "-";
+    private static final int PHASES = Phase.values().length;
+    private static final int SLOTS = Transition.values().length * PHASES;
+
+    /**
+     * Called whenever a histogram is first created, eg to register it as an MBean.
+     */
+    public interface Listener {
+        void histogramCreated(Key key, WizardStepHistogram histogram);
+    }
+
+    private volatile boolean enabled;
+
+    /**
+     * Keyed by wizard type, then by page; the histograms of each page are indexed by transition and phase.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, AtomicReferenceArray<WizardStepHistogram>>> histograms = Maps.newConcurrentMap();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private WizardStepMetrics() {
+    }
+
+    //region > enabled
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+    //endregion
+
+    //region > record
+
+    /**
+     * The start time (in nanoseconds) of a phase to be {@link #record(String, Enum, Transition, Phase, long) recorded},
+     * or <tt>0</tt> if recording is disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time since the provided {@link #start() start} (if non-zero).
+     *
+     * @param wizardType - the wizard's object type (eg its <tt>ObjectSpecId</tt>).
+     * @param page - the wizard's page (state) at the start of the step, or <tt>null</tt> if it has none.
+     */
+    public void record(
+            final String wizardType,
+            final Enum<?> page,
+            final Transition transition,
+            final Phase phase,
+            final long startNanos) {
+        if(startNanos == 0L || !enabled) {
+            return;
+        }
+        final long micros = (System.nanoTime() - startNanos) / 1000L;
+        histogramFor(wizardType, page != null ? page.name() : NO_PAGE, transition, phase).record(micros);
+    }
+
+    private WizardStepHistogram histogramFor(
+            final String wizardType,
+            final String page,
+            final Transition transition,
+            final Phase phase) {
+        ConcurrentMap<String, AtomicReferenceArray<WizardStepHistogram>> byPage = histograms.get(wizardType);
+        if(byPage == null) {
+            histograms.putIfAbsent(wizardType, Maps.<String, AtomicReferenceArray<WizardStepHistogram>>newConcurrentMap());
+            byPage = histograms.get(wizardType);
+        }
+        AtomicReferenceArray<WizardStepHistogram> slots = byPage.get(page);
+        if(slots == null) {
+            byPage.putIfAbsent(page, new AtomicReferenceArray<WizardStepHistogram>(SLOTS));
+            slots = byPage.get(page);
+        }
+        final int slot = transition.ordinal() * PHASES + phase.ordinal();
+        WizardStepHistogram histogram = slots.get(slot);
+        if(histogram == null) {
+            if(slots.compareAndSet(slot, null, new WizardStepHistogram())) {
+                histogram = slots.get(slot);
+                final Key key = new Key(wizardType, page, transition, phase);
+                for (final Listener listener : listeners) {
+                    listener.histogramCreated(key, histogram);
+                }
+            } else {
+                histogram = slots.get(slot);
+            }
+        }
+        return histogram;
+    }
+    //endregion
+
+    //region > histograms
+
+    /**
+     * A snapshot of the histograms created so far.
+     */
+    public Map<Key, WizardStepHistogram> getHistograms() {
+        final Map<Key, WizardStepHistogram> snapshot = Maps.newLinkedHashMap();
+        for (final Map.Entry<String, ConcurrentMap<String, AtomicReferenceArray<WizardStepHistogram>>> byType : histograms.entrySet()) {
+            for (final Map.Entry<String, AtomicReferenceArray<WizardStepHistogram>> byPage : byType.getValue().entrySet()) {
+                final AtomicReferenceArray<WizardStepHistogram> slots = byPage.getValue();
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    final WizardStepHistogram histogram = slots.get(slot);
+                    if(histogram != null) {
+                        final Key key = new Key(byType.getKey(), byPage.getKey(),
+                                Transition.values()[slot / PHASES], Phase.values()[slot % PHASES]);
+                        snapshot.put(key, histogram);
+                    }
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public int getHistogramCount() {
+        return getHistograms().size();
+    }
+
+    @Override
+    public void reset() {
+        for (final WizardStepHistogram histogram : getHistograms().values()) {
+            histogram.reset();
+        }
+    }
+
+    public void addListener(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+    //endregion
+
+    /**
+     * Identifies a {@link WizardStepHistogram histogram}.
+     */
+    public static final class Key {
+
+        private final String wizardType;
+        private final String page;
+        private final Transition transition;
+        private final Phase phase;
+
+        Key(final String wizardType, final String page, final Transition transition, final Phase phase) {
+            this.wizardType = wizardType;
+            this.page = page;
+            this.transition = transition;
+            this.phase = phase;
+        }
+
+        public String getWizardType() {
+            return wizardType;
+        }
+
+        /**
+         * The name of the page, or <tt>-</tt> if the wizard has none.
+         */
+        public String getPage() {
+            return page;
+        }
+
+        public Transition getTransition() {
+            return transition;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if(!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return wizardType.equals(other.wizardType) && page.equals(other.page) &&
+                    transition == other.transition && phase == other.phase;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(wizardType, page, transition, phase);
+        }
+
+        @Override
+        public String toString() {
+            return wizardType + "/" + page + "/" + transition + "/" + phase;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers the {@link WizardStepMetrics} (to switch recording on or off, or to reset) as an MBean, along with each
+ * of its {@link WizardStepHistogram histograms} as they are created:
+ *
+ * <pre>
+ * org.isisaddons.wicket.wizard:type=WizardStepMetrics
+ * org.isisaddons.wicket.wizard:type=WizardStepLatency,wizard=...,page=...,transition=...,phase=...
+ * </pre>
+ *
+ * <p>
+ * Typically {@link #register(boolean) registered} from the <tt>init()</tt> of the Wicket application, and
+ * {@link #unregister() unregistered} from its <tt>onDestroy()</tt>.
+ */
+public class WizardStepMetricsJmx implements WizardStepMetrics.Listener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WizardStepMetricsJmx.class);
+
+    static final String DOMAIN = "org.isisaddons.wicket.wizard";
+
+    private final MBeanServer mBeanServer;
+    private final WizardStepMetrics metrics;
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+
+    public WizardStepMetricsJmx() {
+        this(ManagementFactory.getPlatformMBeanServer(), WizardStepMetrics.get());
+    }
+
+    public WizardStepMetricsJmx(final MBeanServer mBeanServer, final WizardStepMetrics metrics) {
+        this.mBeanServer = mBeanServer;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Registers the MBeans, with recording initially enabled or not as specified.
+     */
+    public void register(final boolean enabled) {
+        metrics.setEnabled(enabled);
+        try {
+            register(metrics, new ObjectName(DOMAIN + ":type=WizardStepMetrics"));
+        } catch (final JMException ex) {
+            LOG.warn("Could not register wizard step metrics", ex);
+            return;
+        }
+        metrics.addListener(this);
+        for (final Map.Entry<WizardStepMetrics.Key, WizardStepHistogram> entry : metrics.getHistograms().entrySet()) {
+            histogramCreated(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public void unregister() {
+        metrics.removeListener(this);
+        for (final ObjectName objectName : registered) {
+            try {
+                mBeanServer.unregisterMBean(objectName);
+            } catch (final JMException ex) {
+                LOG.debug("Could not unregister " + objectName, ex);
+            }
+        }
+        registered.clear();
+    }
+
+    @Override
+    public void histogramCreated(final WizardStepMetrics.Key key, final WizardStepHistogram histogram) {
+        try {
+            register(histogram, objectNameFor(key));
+        } catch (final JMException ex) {
+            LOG.warn("Could not register wizard step latencies for " + key, ex);
+        }
+    }
+
+    static ObjectName objectNameFor(final WizardStepMetrics.Key key) throws JMException {
+        return new ObjectName(DOMAIN + ":type=WizardStepLatency" +
+                ",wizard=" + ObjectName.quote(key.getWizardType()) +
+                ",page=" + ObjectName.quote(key.getPage()) +
+                ",transition=" + key.getTransition() +
+                ",phase=" + key.getPhase());
+    }
+
+    private void register(final Object mBean, final ObjectName objectName) throws JMException {
+        if(mBeanServer.isRegistered(objectName)) {
+            // eg left over from an earlier deployment within the same JVM
+            mBeanServer.unregisterMBean(objectName);
+        }
+        mBeanServer.registerMBean(mBean, objectName);
+        registered.add(objectName);
+    }
+}
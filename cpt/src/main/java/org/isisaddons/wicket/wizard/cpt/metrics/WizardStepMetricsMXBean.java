@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metrics;
+
+/**
+ * Controls the recording of {@link WizardStepMetrics}, as exposed over JMX by {@link WizardStepMetricsJmx}.
+ */
+public interface WizardStepMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * The number of histograms recorded into so far (one for each wizard type, page, transition and phase).
+     */
+    int getHistogramCount();
+
+    /**
+     * Resets all histograms.
+     */
+    void reset();
+}
@@ -0,0 +1,373 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@link org.isisaddons.wicket.wizard.cpt.applib.WizardMementoCodec codec} for each
+ * {@link org.isisaddons.wicket.wizard.cpt.applib.WizardMemento}-annotated wizard.
+ *
+ * <p>
+ * Registered in <tt>META-INF/services</tt>, so is run by <tt>javac</tt> for any module that depends on this
+ * component.  The generated code is plain Java, reading and writing each field in turn; there is no reflection,
+ * nor any lookup by key.
+ */
+@SupportedAnnotationTypes(WizardMementoProcessor.WIZARD_MEMENTO)
+public class WizardMementoProcessor extends AbstractProcessor {
+
+    static final String WIZARD_MEMENTO = "org.isisaddons.wicket.wizard.cpt.applib.WizardMemento";
+
+    private static final String ABSTRACT_WIZARD = "org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard";
+    private static final String CODEC = "org.isisaddons.wicket.wizard.cpt.applib.WizardMementoCodec";
+    private static final String INJECT = "javax.inject.Inject";
+    private static final String LOCAL_DATE = "org.joda.time.LocalDate";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        final TypeElement annotation = processingEnv.getElementUtils().getTypeElement(WIZARD_MEMENTO);
+        if(annotation == null) {
+            return false;
+        }
+        for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            final TypeElement wizardType = (TypeElement) element;
+            try {
+                final List<Field> fields = fieldsOf(wizardType);
+                if(fields != null) {
+                    generate(wizardType, versionOf(wizardType, annotation), fields);
+                }
+            } catch(final IOException ex) {
+                error(wizardType, "Could not generate memento: " + ex.getMessage());
+            }
+        }
+        return true;
+    }
+
+    //region > fields
+
+    /**
+     * The fields to be written, superclass fields first, or <tt>null</tt> if any cannot be (in which case an error
+     * will have been reported).
+     */
+    private List<Field> fieldsOf(final TypeElement wizardType) {
+        final TypeElement abstractWizard = processingEnv.getElementUtils().getTypeElement(ABSTRACT_WIZARD);
+        if(wizardType.getKind() != ElementKind.CLASS ||
+                !processingEnv.getTypeUtils().isSubtype(erasureOf(wizardType), erasureOf(abstractWizard))) {
+            error(wizardType, "@WizardMemento can only be applied to subclasses of AbstractWizard");
+            return null;
+        }
+
+        final List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement type = wizardType; type != null; type = superclassOf(type)) {
+            hierarchy.add(type);
+            if(type.getQualifiedName().contentEquals(ABSTRACT_WIZARD)) {
+                break;
+            }
+        }
+        Collections.reverse(hierarchy);
+
+        final DeclaredType wizardTypeMirror = (DeclaredType) wizardType.asType();
+        final List<Field> fields = new ArrayList<>();
+        boolean valid = true;
+        for (final TypeElement type : hierarchy) {
+            for (final VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if(field.getModifiers().contains(Modifier.STATIC) ||
+                        field.getModifiers().contains(Modifier.TRANSIENT) ||
+                        isInjected(field)) {
+                    continue;
+                }
+                final TypeMirror fieldType = processingEnv.getTypeUtils().asMemberOf(wizardTypeMirror, field);
+                final Kind kind = kindOf(fieldType);
+                if(kind == null) {
+                    error(field, "Fields of type " + fieldType + " are not supported by @WizardMemento; make it transient to exclude it");
+                    valid = false;
+                    continue;
+                }
+                final Field resolved = resolve(wizardType, field, fieldType, kind);
+                if(resolved == null) {
+                    valid = false;
+                    continue;
+                }
+                fields.add(resolved);
+            }
+        }
+        return valid ? fields : null;
+    }
+
+    private Field resolve(final TypeElement wizardType, final VariableElement field, final TypeMirror fieldType, final Kind kind) {
+        final String name = field.getSimpleName().toString();
+        if(isVisible(wizardType, field)) {
+            return new Field(name, fieldType, kind, name, name);
+        }
+
+        final String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        final String getter = findMethod(wizardType, 0, "get" + capitalized, "is" + capitalized);
+        final String setter = findMethod(wizardType, 1, "set" + capitalized);
+        if(getter == null || setter == null) {
+            error(field, "Field '" + name + "' is not visible to the generated memento and has no accessible getter and setter");
+            return null;
+        }
+        return new Field(name, fieldType, kind, getter + "()", setter);
+    }
+
+    private String findMethod(final TypeElement wizardType, final int parameterCount, final String... names) {
+        for (final ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(wizardType))) {
+            if(method.getParameters().size() != parameterCount ||
+                    method.getModifiers().contains(Modifier.STATIC) ||
+                    !isVisible(wizardType, method)) {
+                continue;
+            }
+            for (final String name : names) {
+                if(method.getSimpleName().contentEquals(name)) {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the member can be accessed from the generated class, which is in the same package as the wizard.
+     */
+    private boolean isVisible(final TypeElement wizardType, final Element member) {
+        final Set<Modifier> modifiers = member.getModifiers();
+        if(modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        if(modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return processingEnv.getElementUtils().getPackageOf(member).equals(processingEnv.getElementUtils().getPackageOf(wizardType));
+    }
+
+    private static boolean isInjected(final VariableElement field) {
+        for (final AnnotationMirror annotationMirror : field.getAnnotationMirrors()) {
+            final TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if(annotationType.getQualifiedName().contentEquals(INJECT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Kind kindOf(final TypeMirror fieldType) {
+        switch (fieldType.getKind()) {
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            case INT:
+                return Kind.INT;
+            case LONG:
+                return Kind.LONG;
+            case DECLARED:
+                final TypeElement element = (TypeElement) ((DeclaredType) fieldType).asElement();
+                if(element.getKind() == ElementKind.ENUM) {
+                    return Kind.ENUM;
+                }
+                if(element.getQualifiedName().contentEquals(String.class.getName())) {
+                    return Kind.STRING;
+                }
+                if(element.getQualifiedName().contentEquals(LOCAL_DATE)) {
+                    return Kind.DATE;
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+    //endregion
+
+    //region > generate
+
+    private void generate(final TypeElement wizardType, final int version, final List<Field> fields) throws IOException {
+        final String packageName = processingEnv.getElementUtils().getPackageOf(wizardType).getQualifiedName().toString();
+        final String wizardName = processingEnv.getTypeUtils().erasure(wizardType.asType()).toString();
+        final String mementoName = mementoNameOf(wizardType, packageName);
+
+        final JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? mementoName : packageName + "." + mementoName, wizardType);
+        try (PrintWriter out = new PrintWriter(sourceFile.openWriter())) {
+            if(!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Memento codec for {@link " + wizardName + "}.");
+            out.println(" *");
+            out.println(" * <p>");
+            out.println(" * Generated by {@link " + WizardMementoProcessor.class.getName() + "}; do not edit.");
+            out.println(" */");
+            out.println("public final class " + mementoName + " extends " + CODEC + "<" + wizardName + "> {");
+            out.println();
+            out.println("    public static final " + mementoName + " INSTANCE = new " + mementoName + "();");
+            out.println();
+            out.println("    private " + mementoName + "() {");
+            out.println("        super(" + version + ");");
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    protected void write(final " + wizardName + " wizard, final Output output) {");
+            for (final Field field : fields) {
+                out.println("        output." + field.kind.writeMethod + "(wizard." + field.read + ");");
+            }
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    protected void read(final Input input, final int version, final " + wizardName + " wizard) {");
+            out.println("        if(version != " + version + ") {");
+            out.println("            throw new IllegalArgumentException(\"Memento written by version \" + version + \" of " + mementoName + ", which is no longer supported\");");
+            out.println("        }");
+            for (final Field field : fields) {
+                out.println("        " + field.assign("wizard", "input." + field.kind.readExpression(processingEnv.getTypeUtils().erasure(field.type))) + ";");
+            }
+            out.println("    }");
+            out.println();
+
+            out.println("    /**");
+            out.println("     * Copies the state of one wizard to another, returning the latter.");
+            out.println("     */");
+            out.println("    public <T extends " + wizardName + "> T copy(final " + wizardName + " from, final T to) {");
+            for (final Field field : fields) {
+                out.println("        " + field.assign("to", "from." + field.read) + ";");
+            }
+            out.println("        return to;");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    /**
+     * <tt>FooWizard</tt> becomes <tt>FooWizardMemento</tt>; nested wizards are prefixed by their enclosing types,
+     * eg <tt>Outer_FooWizardMemento</tt>.
+     */
+    private static String mementoNameOf(final TypeElement wizardType, final String packageName) {
+        final String qualifiedName = wizardType.getQualifiedName().toString();
+        final String nestedName = packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        return nestedName.replace('.', '_') + "Memento";
+    }
+
+    private int versionOf(final TypeElement wizardType, final TypeElement annotation) {
+        for (final AnnotationMirror annotationMirror : wizardType.getAnnotationMirrors()) {
+            if(annotationMirror.getAnnotationType().asElement().equals(annotation)) {
+                for (final ExecutableElement attribute : annotationMirror.getElementValues().keySet()) {
+                    if(attribute.getSimpleName().contentEquals("value")) {
+                        return (Integer) annotationMirror.getElementValues().get(attribute).getValue();
+                    }
+                }
+            }
+        }
+        return 1;
+    }
+    //endregion
+
+    //region > helpers
+
+    private TypeMirror erasureOf(final TypeElement type) {
+        return processingEnv.getTypeUtils().erasure(type.asType());
+    }
+
+    private static TypeElement superclassOf(final TypeElement type) {
+        final TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+    //endregion
+
+    //region > Kind, Field
+
+    private enum Kind {
+        BOOLEAN("writeBoolean", "readBoolean()"),
+        INT("writeInt", "readInt()"),
+        LONG("writeLong", "readLong()"),
+        STRING("writeString", "readString()"),
+        ENUM("writeEnum", null),
+        DATE("writeDate", "readDate()");
+
+        private final String writeMethod;
+        private final String readExpression;
+
+        Kind(final String writeMethod, final String readExpression) {
+            this.writeMethod = writeMethod;
+            this.readExpression = readExpression;
+        }
+
+        String readExpression(final TypeMirror erasedType) {
+            return this == ENUM ? "readEnum(" + erasedType + ".class)" : readExpression;
+        }
+    }
+
+    private static class Field {
+        private final String name;
+        private final TypeMirror type;
+        private final Kind kind;
+        /**
+         * Either the field name, or a call to its getter.
+         */
+        private final String read;
+        /**
+         * Either the field name, or the name of its setter.
+         */
+        private final String write;
+
+        Field(final String name, final TypeMirror type, final Kind kind, final String read, final String write) {
+            this.name = name;
+            this.type = type;
+            this.kind = kind;
+            this.read = read;
+            this.write = write;
+        }
+
+        String assign(final String target, final String value) {
+            return write.equals(name)
+                    ? target + "." + name + " = " + value
+                    : target + "." + write + "(" + value + ")";
+        }
+    }
+    //endregion
+
+}
@@ -0,0 +1,176 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import com.google.common.collect.MapMaker;
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.html.form.AbstractTextComponent;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.visit.IVisitor;
+import org.apache.isis.core.metamodel.facets.objectvalue.maxlen.MaxLengthFacet;
+import org.apache.isis.core.metamodel.facets.objectvalue.regex.RegExFacet;
+import org.apache.isis.core.metamodel.spec.feature.OneToOneAssociation;
+import org.apache.isis.viewer.wicket.model.models.ScalarModel;
+import org.apache.isis.viewer.wicket.ui.components.scalars.ScalarPanelAbstract;
+
+/**
+ * Renders the {@link RegExFacet} and {@link MaxLengthFacet} of a property onto its text field, as the HTML5
+ * <tt>pattern</tt> and <tt>maxlength</tt> attributes (along with <tt>data-wizard-*</tt> attributes read by
+ * <tt>IsisWizard.validate</tt>), so that invalid values are reported without a round trip to the server.
+ *
+ * <p>
+ * The server-side validation is unchanged; a regular expression that uses constructs that JavaScript does not
+ * support (or interprets differently) is simply not rendered.
+ */
+final class WizardFieldConstraints extends Behavior {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The message of {@link org.apache.isis.core.metamodel.facets.objectvalue.regex.RegExFacetAbstract}.
+     */
+    private static final String PATTERN_MESSAGE = "Doesn't match pattern";
+
+    /**
+     * Java-only constructs: inline flags, atomic groups, possessive quantifiers, the <tt>\A \Z \z \G \Q \E \h \H \R
+     * \X</tt> escapes, Unicode and POSIX classes, and character class intersections.
+     */
+    private static final Pattern JAVA_ONLY = Pattern.compile(
+            "\\(\\?[a-zA-Z-]+[:)]|\\(\\?>|[*+?}]\\+|\\\\[AZzGQEhHRXpP]|&&");
+
+    /**
+     * The client-side source (or {@link #UNTRANSLATABLE}) of each facet, translated once; weak keys are compared by
+     * identity, and are discarded with the metamodel.
+     */
+    private static final ConcurrentMap<RegExFacet, String> CLIENT_PATTERNS = new MapMaker().weakKeys().makeMap();
+
+    private static final String UNTRANSLATABLE = "";
+
+    private final String pattern;
+    private final boolean caseSensitive;
+    private final int maxLength;
+
+    private WizardFieldConstraints(final String pattern, final boolean caseSensitive, final int maxLength) {
+        this.pattern = pattern;
+        this.caseSensitive = caseSensitive;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * The constraints of the property, or <tt>null</tt> if it has none that can be checked in the browser.
+     */
+    static WizardFieldConstraints of(final OneToOneAssociation property) {
+        final RegExFacet regExFacet = property.getFacet(RegExFacet.class);
+        final MaxLengthFacet maxLengthFacet = property.getFacet(MaxLengthFacet.class);
+
+        final String pattern = regExFacet != null ? clientPatternOf(regExFacet) : null;
+        final int maxLength = maxLengthFacet != null ? maxLengthFacet.value() : 0;
+        if(pattern == null && maxLength <= 0) {
+            return null;
+        }
+        return new WizardFieldConstraints(pattern, pattern == null || regExFacet.caseSensitive(), maxLength);
+    }
+
+    private static String clientPatternOf(final RegExFacet regExFacet) {
+        String pattern = CLIENT_PATTERNS.get(regExFacet);
+        if(pattern == null) {
+            pattern = translate(regExFacet.validation());
+            CLIENT_PATTERNS.putIfAbsent(regExFacet, pattern);
+        }
+        return pattern != UNTRANSLATABLE ? pattern : null;
+    }
+
+    private static String translate(final String validation) {
+        if(validation == null || validation.isEmpty() || JAVA_ONLY.matcher(validation).find()) {
+            return UNTRANSLATABLE;
+        }
+        return validation;
+    }
+
+    @Override
+    public void onComponentTag(final Component component, final ComponentTag tag) {
+        super.onComponentTag(component, tag);
+        if(pattern != null) {
+            // HTML5's pattern is always case sensitive, so is left to the script otherwise
+            if(caseSensitive) {
+                tag.put("pattern", pattern);
+            }
+            tag.put("data-wizard-pattern", pattern);
+            tag.put("data-wizard-pattern-flags", caseSensitive ? "" : "i");
+            tag.put("data-wizard-pattern-message", PATTERN_MESSAGE);
+        }
+        if(maxLength > 0) {
+            tag.put("maxlength", maxLength);
+        }
+    }
+
+    /**
+     * Adds constraints to the text field of each of the properties in the container that has any, returning whether
+     * any were added.
+     *
+     * <p>
+     * Called once the properties' scalar panels have built their fields (which they do when first rendered).
+     */
+    static boolean addTo(final MarkupContainer container) {
+        final boolean[] anyConstraints = { false };
+        container.visitChildren(
+                ScalarPanelAbstract.class,
+                new IVisitor<ScalarPanelAbstract, Void>() {
+                    @Override
+                    public void component(
+                            final ScalarPanelAbstract scalarPanel,
+                            final IVisit<Void> visit) {
+                        visit.dontGoDeeper();
+                        anyConstraints[0] |= addTo(scalarPanel);
+                    }
+                });
+        return anyConstraints[0];
+    }
+
+    private static boolean addTo(final ScalarPanelAbstract scalarPanel) {
+        final ScalarModel scalarModel = scalarPanel.getModel();
+        if(scalarModel.getKind() != ScalarModel.Kind.PROPERTY) {
+            return false;
+        }
+        final WizardFieldConstraints constraints = of(scalarModel.getPropertyMemento().getProperty());
+        if(constraints == null) {
+            return false;
+        }
+        final AbstractTextComponent<?> textField = scalarPanel.visitChildren(
+                AbstractTextComponent.class,
+                new IVisitor<AbstractTextComponent<?>, AbstractTextComponent<?>>() {
+                    @Override
+                    public void component(
+                            final AbstractTextComponent<?> component,
+                            final IVisit<AbstractTextComponent<?>> visit) {
+                        visit.stop(component);
+                    }
+                });
+        if(textField == null) {
+            return false;
+        }
+        if(textField.getBehaviors(WizardFieldConstraints.class).isEmpty()) {
+            textField.add(constraints);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.OnDomReadyHeaderItem;
+
+/**
+ * Asks the {@link WizardPropertiesPanel} to {@link WizardPropertiesPanel#prefetch() prefetch} its next page, by
+ * way of an AJAX call made once the browser is idle after the current page has been shown.
+ *
+ * <p>
+ * Nothing is sent back to the browser; the prefetched form is held by the panel until the user clicks Next.
+ */
+class WizardPrefetchBehavior extends AbstractDefaultAjaxBehavior {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void renderHead(final Component component, final IHeaderResponse response) {
+        if(!getPanel().isPrefetchPending()) {
+            return;
+        }
+        super.renderHead(component, response);
+        response.render(OnDomReadyHeaderItem.forScript(
+                "(window.requestIdleCallback || function(f) { window.setTimeout(f, 250); })" +
+                "(function() { " + getCallbackScript() + " });"));
+    }
+
+    @Override
+    protected void respond(final AjaxRequestTarget target) {
+        final WizardPropertiesPanel panel = getPanel();
+        if(panel.isPrefetchPending()) {
+            panel.prefetch();
+        }
+    }
+
+    private WizardPropertiesPanel getPanel() {
+        return (WizardPropertiesPanel) getComponent();
+    }
+}
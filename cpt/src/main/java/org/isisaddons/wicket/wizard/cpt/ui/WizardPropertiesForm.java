@@ -16,23 +16,45 @@
  */
 package org.isisaddons.wicket.wizard.cpt.ui;
 
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardFacet;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardNavigationState;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardPageIndex;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardStateGraph;
+import org.isisaddons.wicket.wizard.cpt.metrics.WizardStepMetrics;
+import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.Component;
 import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.attributes.AjaxCallListener;
+import org.apache.wicket.ajax.attributes.AjaxRequestAttributes;
 import org.apache.wicket.ajax.markup.html.form.AjaxButton;
-import org.apache.wicket.behavior.AttributeAppender;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.core.util.string.JavaScriptUtils;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.head.OnDomReadyHeaderItem;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.Button;
 import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.form.FormComponent;
+import org.apache.wicket.markup.html.form.HiddenField;
 import org.apache.wicket.markup.html.panel.ComponentFeedbackPanel;
 import org.apache.wicket.markup.html.panel.FeedbackPanel;
 import org.apache.wicket.markup.repeater.RepeatingView;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.isis.applib.annotation.MemberGroupLayout.ColumnSpans;
 import org.apache.isis.applib.annotation.Where;
 import org.apache.isis.applib.filter.Filter;
@@ -44,7 +66,7 @@
 import org.apache.isis.core.metamodel.adapter.mgr.AdapterManager.ConcurrencyChecking;
 import org.apache.isis.core.metamodel.adapter.version.ConcurrencyException;
 import org.apache.isis.core.metamodel.facets.object.membergroups.MemberGroupLayoutFacet;
-import org.apache.isis.core.metamodel.facets.object.wizard.WizardFacet;
+import org.apache.isis.core.metamodel.facets.properties.update.modify.PropertySetterFacet;
 import org.apache.isis.core.metamodel.runtimecontext.ServicesInjector;
 import org.apache.isis.core.metamodel.spec.ObjectSpecification;
 import org.apache.isis.core.metamodel.spec.ObjectSpecifications;
@@ -55,6 +77,7 @@
 import org.apache.isis.core.runtime.memento.Memento;
 import org.apache.isis.core.runtime.system.context.IsisContext;
 import org.apache.isis.core.runtime.system.transaction.IsisTransactionManager;
+import org.apache.isis.viewer.wicket.model.mementos.ObjectAdapterMemento;
 import org.apache.isis.viewer.wicket.model.mementos.PropertyMemento;
 import org.apache.isis.viewer.wicket.model.models.EntityModel;
 import org.apache.isis.viewer.wicket.model.models.ScalarModel;
@@ -91,20 +114,66 @@ public class WizardPropertiesForm extends FormAbstract<ObjectAdapter> {
 
     private static final String ID_FEEDBACK = "feedback";
 
-    private final Component owningPanel;
+    private static final String ID_WIZARD_PAGE = "wizardPage";
+    private static final String ID_WIZARD_PAGE_FIELD = "wizardPageField";
 
-    private Button wizardNextButton;
-    private Button wizardPreviousButton;
-    private Button wizardFinishButton;
-    private Button wizardCancelButton;
+    private static final JavaScriptResourceReference WIZARD_JS =
+            new JavaScriptResourceReference(WizardPropertiesForm.class, "WizardPropertiesForm.js");
 
-    private FeedbackPanel feedback;
-    
-    private boolean renderedFirstField;
-
-    public WizardPropertiesForm(final String id, final EntityModel entityModel, final Component owningPanel) {
+    /**
+     * Keyed by the identity of the wizard's pojo, because it may be changed or cloned during the request.
+     */
+    private static final MetaDataKey<IdentityHashMap<Object, WizardNavigationState>> NAVIGATION_STATES = new MetaDataKey<IdentityHashMap<Object, WizardNavigationState>>() {
+        private static final long serialVersionUID = 1L;
+    };
+
+    /**
+     * The properties rendered in this form, whose changes are recorded in a {@link WizardUndoLog} when applied.
+     *
+     * <p>
+     * These are the same instances as are used as keys by the entity model for its property models, so add little
+     * to the size of the page when serialized.
+     */
+    private final List<PropertyMemento> renderedProperties = Lists.newArrayList();
+
+    /**
+     * The value of each of the {@link #renderedProperties}, as held by its property model when rendered; the model
+     * only replaces it if its field is edited.
+     *
+     * <p>
+     * Again, these are the same instances as are held by the property models.
+     */
+    private final List<ObjectAdapterMemento> renderedValues = Lists.newArrayList();
+
+    /**
+     * The wizard's page (state) when this form was built, if it has a {@link
+     * org.isisaddons.wicket.wizard.cpt.metamodel.WizardStateGraph state graph}.
+     */
+    private Enum<?> renderedPage;
+
+    /**
+     * Whether all of the wizard's pages are rendered, moving between them in the browser.
+     */
+    private boolean clientNavigation;
+
+    /**
+     * Whether any of the rendered properties have {@link WizardFieldConstraints constraints} checked in the browser.
+     */
+    private boolean clientValidation;
+
+    /**
+     * When the current submission (or rendering) started, and from which page, for {@link WizardStepMetrics}.
+     */
+    private transient long submitStartNanos;
+    private transient Enum<?> submittedPage;
+    private transient long renderStartNanos;
+
+    /**
+     * The form holds no references to its own components (buttons, feedback panel) nor to its owning panel; these
+     * are looked up when required, keeping the serialized page (as held in the page store) small.
+     */
+    public WizardPropertiesForm(final String id, final EntityModel entityModel) {
         super(id, entityModel);
-        this.owningPanel = owningPanel; // for repainting
 
         buildGui();
         
@@ -121,13 +190,18 @@ private void buildGui() {
         final EntityModel entityModel = (EntityModel) getModel();
         final ColumnSpans columnSpans = entityModel.getObject().getSpecification().getFacet(MemberGroupLayoutFacet.class).getColumnSpans();
 
-        renderedFirstField = false;
+        renderedProperties.clear();
+        renderedValues.clear();
+        renderedPage = pageOf(entityModel.getObject());
+        clientNavigation = isClientNavigable(entityModel.getTypeOfSpecification());
+        setOutputMarkupId(clientNavigation);
         
         final MarkupContainer leftColumn = new WebMarkupContainer(ID_LEFT_COLUMN);
         add(leftColumn);
         
         addPropertiesInColumn(leftColumn, MemberGroupLayoutHint.LEFT, columnSpans);
         addWizardButtons(leftColumn);
+        addWizardPageField();
         addFeedbackGui(leftColumn);
 
         // collections
@@ -144,10 +218,32 @@ private boolean addPropertiesInColumn(MarkupContainer markupContainer, MemberGro
         final ObjectAdapter adapter = entityModel.getObject();
         final ObjectSpecification objSpec = adapter.getSpecification();
 
-        final List<ObjectAssociation> associations = visibleProperties(adapter, objSpec, Where.OBJECT_FORMS);
+        final RepeatingView wizardPageRv = new RepeatingView(ID_WIZARD_PAGE);
+        markupContainer.add(wizardPageRv);
+
+        boolean anyGroups = false;
+        if(clientNavigation) {
+            anyGroups = addAllPages(wizardPageRv, adapter, hint);
+        } else {
+            final List<ObjectAssociation> associations = visibleProperties(adapter, objSpec, Where.OBJECT_FORMS);
+            final WebMarkupContainer wizardPageContainer = new WebMarkupContainer(wizardPageRv.newChildId());
+            wizardPageRv.add(wizardPageContainer);
+            anyGroups = addMemberGroups(wizardPageContainer, entityModel, associations, hint);
+        }
+        
+        addClassForSpan(markupContainer, span);
+        return anyGroups;
+    }
+
+    private boolean addMemberGroups(
+            final MarkupContainer wizardPageContainer,
+            final EntityModel entityModel,
+            final List<ObjectAssociation> associations,
+            final MemberGroupLayoutHint hint) {
+        final ObjectSpecification objSpec = entityModel.getTypeOfSpecification();
 
         final RepeatingView memberGroupRv = new RepeatingView(ID_MEMBER_GROUP);
-        markupContainer.add(memberGroupRv);
+        wizardPageContainer.add(memberGroupRv);
 
         final Map<String, List<ObjectAssociation>> associationsByGroup = ObjectAssociation.Util.groupByMemberOrderName(associations);
         
@@ -169,217 +265,545 @@ private boolean addPropertiesInColumn(MarkupContainer markupContainer, MemberGro
             for (final ObjectAssociation association : associationsInGroup) {
                 final WebMarkupContainer propertyRvContainer = new UiHintPathSignificantWebMarkupContainer(propertyRv.newChildId());
                 propertyRv.add(propertyRvContainer);
-                addPropertyToForm(entityModel, association, propertyRvContainer);
+                addPropertyToForm(entityModel, association, propertyRvContainer, renderedProperties.isEmpty());
             }
         }
-        
-        addClassForSpan(markupContainer, span);
         return !groupNames.isEmpty();
     }
 
+    //region > client navigation
+
+    /**
+     * Whether all of the wizard's pages can be rendered up front, moving between them in the browser; see
+     * {@link WizardSettings.Navigation#CLIENT}.
+     *
+     * <p>
+     * Requires the wizard to be a view model (so that it can be moved to any page simply by setting its state), with a
+     * linear transition graph and with its properties {@link org.isisaddons.wicket.wizard.cpt.applib.WizardPage paged}.
+     */
+    private static boolean isClientNavigable(final ObjectSpecification spec) {
+        if(WizardSettings.getNavigation() != WizardSettings.Navigation.CLIENT) {
+            return false;
+        }
+        final WizardFacet wizardFacet = spec.getFacet(WizardFacet.class);
+        return spec.isViewModel() &&
+                wizardFacet != null &&
+                wizardFacet.getPageIndex() != null &&
+                wizardFacet.getStateGraph().isLinear();
+    }
+
+    /**
+     * Adds each page in turn (following the <tt>next</tt> transitions from the first), evaluating the properties to
+     * show on each by temporarily moving the wizard to that page.  All but the current page are hidden.
+     *
+     * <p>
+     * A property shown on more than one page is rendered only on the first of these.  A page with any derived
+     * (read-only) properties is marked as requiring the server, since their values may depend on what has been
+     * entered on earlier pages; moving to it is submitted as usual.
+     */
+    private boolean addAllPages(final RepeatingView wizardPageRv, final ObjectAdapter adapter, final MemberGroupLayoutHint hint) {
+        final EntityModel entityModel = getEntityModel();
+        final ObjectSpecification objSpec = adapter.getSpecification();
+        final WizardStateGraph stateGraph = objSpec.getFacet(WizardFacet.class).getStateGraph();
+        final Object wizard = adapter.getObject();
+        final Enum<?> currentPage = stateGraph.stateOf(wizard);
+
+        boolean anyGroups = false;
+        final Set<String> renderedIds = Sets.newHashSet();
+        try {
+            Enum<?> page = stateGraph.getFirst();
+            for (int i = 0; page != null && i < stateGraph.getPageCount(); i++, page = stateGraph.next(page)) {
+                stateGraph.setStateOf(wizard, page);
+
+                final List<ObjectAssociation> associations = Lists.newArrayList();
+                boolean anyDerived = false;
+                for (final ObjectAssociation association : visibleProperties(adapter, objSpec, Where.OBJECT_FORMS)) {
+                    if(renderedIds.add(association.getId())) {
+                        associations.add(association);
+                        anyDerived |= !association.containsDoOpFacet(PropertySetterFacet.class);
+                    }
+                }
+
+                final WebMarkupContainer wizardPageContainer = new WebMarkupContainer(wizardPageRv.newChildId());
+                wizardPageRv.add(wizardPageContainer);
+                wizardPageContainer.add(AttributeModifier.replace("data-wizard-page", page.name()));
+                if(anyDerived) {
+                    wizardPageContainer.add(AttributeModifier.replace("data-wizard-server", "true"));
+                }
+                if(page != currentPage) {
+                    wizardPageContainer.add(AttributeModifier.replace("style", "display: none;"));
+                }
+                anyGroups |= addMemberGroups(wizardPageContainer, entityModel, associations, hint);
+            }
+        } finally {
+            stateGraph.setStateOf(wizard, currentPage);
+        }
+        return anyGroups;
+    }
+
+    /**
+     * The hidden field holding the page currently shown in the browser.
+     */
+    private void addWizardPageField() {
+        final HiddenField<String> wizardPageField = new HiddenField<>(ID_WIZARD_PAGE_FIELD,
+                Model.of(renderedPage != null ? renderedPage.name() : null), String.class);
+        wizardPageField.setVisible(clientNavigation);
+        addOrReplace(wizardPageField);
+    }
+
+    /**
+     * Moves the wizard to the page shown in the browser when the form was submitted, so that the transition (and
+     * any subsequent rendering) is from there.
+     *
+     * <p>
+     * The browser moves between the pages without consulting the wizard, so the wizard is walked there a page at a
+     * time, by its <tt>next</tt> (or <tt>previous</tt>) transitions; if any of these is disabled along the way then
+     * the wizard is left on the page it was on, and the submit is rejected.
+     *
+     * @return the reason that the page shown in the browser could not be moved to, if any.
+     */
+    private String applyClientPage() {
+        if(!clientNavigation) {
+            return null;
+        }
+        final String pageName = ((FormComponent<?>) get(ID_WIZARD_PAGE_FIELD)).getInput();
+        final ObjectAdapter adapter = getEntityModel().getObject();
+        final WizardFacet wizardFacet = adapter.getSpecification().getFacet(WizardFacet.class);
+        final WizardStateGraph stateGraph = wizardFacet.getStateGraph();
+        final Enum<?> clientPage = reachablePageNamed(stateGraph, pageName);
+        if(clientPage == null) {
+            return null;
+        }
+
+        final Object wizard = adapter.getObject();
+        final Enum<?> startPage = stateGraph.stateOf(wizard);
+        final boolean forward = stateGraph.pageIndexOf(clientPage) > stateGraph.pageIndexOf(startPage);
+        Enum<?> page = startPage;
+        while (page != clientPage) {
+            final String disabledReason = forward ? wizardFacet.disableNext(wizard) : wizardFacet.disablePrevious(wizard);
+            if(disabledReason != null) {
+                stateGraph.setStateOf(wizard, startPage);
+                invalidateNavigationStates();
+                return disabledReason;
+            }
+            page = forward ? stateGraph.next(page) : stateGraph.previous(page);
+            if(forward) {
+                wizardFacet.next(wizard);
+            } else {
+                wizardFacet.previous(wizard);
+            }
+            // in case next() or previous() only moved the clone that it returned
+            stateGraph.setStateOf(wizard, page);
+        }
+        submittedPage = clientPage;
+        invalidateNavigationStates();
+        return null;
+    }
+
+    private static Enum<?> reachablePageNamed(final WizardStateGraph stateGraph, final String pageName) {
+        for (final Enum<?> page : stateGraph.getStates()) {
+            if(page.name().equals(pageName) && stateGraph.isReachable(page)) {
+                return page;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void renderHead(final IHeaderResponse response) {
+        super.renderHead(response);
+        if(clientNavigation || clientValidation) {
+            response.render(JavaScriptHeaderItem.forReference(WIZARD_JS));
+        }
+        if(clientNavigation) {
+            response.render(OnDomReadyHeaderItem.forScript("IsisWizard.init('" + getMarkupId() + "');"));
+        }
+        if(clientValidation) {
+            response.render(OnDomReadyHeaderItem.forScript("IsisWizard.constrain('" + getMarkupId() + "');"));
+        }
+    }
+    //endregion
+
+    //region > client validation
+
+    /**
+     * Once the properties' scalar panels have built their fields, adds the {@link WizardFieldConstraints} of each
+     * property to its field, so that its <tt>@RegEx</tt> and <tt>@MaxLength</tt> are also checked in the browser.
+     */
+    @Override
+    protected void onBeforeRender() {
+        renderStartNanos = WizardStepMetrics.get().start();
+        super.onBeforeRender();
+        clientValidation = WizardFieldConstraints.addTo(this);
+    }
+    //endregion
+
+    //region > metrics
+
+    /**
+     * Records the time taken to render the form, against the transition (if any) submitted in the same request.
+     */
+    @Override
+    protected void onAfterRender() {
+        super.onAfterRender();
+        final WizardPropertiesPanel owningPanel = owningPanel();
+        final WizardStepMetrics.Transition submittedTransition = owningPanel != null ? owningPanel.takeSubmittedTransition() : null;
+        submittedPage = renderedPage;
+        recordStep(submittedTransition != null ? submittedTransition : WizardStepMetrics.Transition.NONE,
+                WizardStepMetrics.Phase.RENDER, renderStartNanos);
+    }
+
+    /**
+     * Records the time since the provided start (if non-zero, that is, if {@link WizardStepMetrics#isEnabled()
+     * enabled}), for the page from which the step was submitted.
+     */
+    private void recordStep(final WizardStepMetrics.Transition transition, final WizardStepMetrics.Phase phase, final long startNanos) {
+        if(startNanos == 0L) {
+            return;
+        }
+        final String wizardType = getEntityModel().getObjectAdapterMemento().getObjectSpecId().asString();
+        WizardStepMetrics.get().record(wizardType, submittedPage, transition, phase, startNanos);
+    }
+    //endregion
+
     private void addPropertyToForm(
             final EntityModel entityModel,
             final ObjectAssociation association,
-            final WebMarkupContainer container) {
+            final WebMarkupContainer container,
+            final boolean firstField) {
         final OneToOneAssociation otoa = (OneToOneAssociation) association;
         final PropertyMemento pm = new PropertyMemento(otoa);
 
         final ScalarModel scalarModel = entityModel.getPropertyModel(pm);
+        renderedProperties.add(pm);
+        renderedValues.add(scalarModel.getObjectAdapterMemento());
         final Component component = getComponentFactoryRegistry().addOrReplaceComponent(container, ID_PROPERTY, ComponentType.SCALAR_NAME_AND_VALUE, scalarModel);
         
-        if(!renderedFirstField) {
+        if(firstField) {
             component.add(new CssClassAppender("first-field"));
-            renderedFirstField = true;
         }
     }
 
     private List<ObjectAssociation> visibleProperties(final ObjectAdapter adapter, final ObjectSpecification objSpec, Where where) {
-        return objSpec.getAssociations(Contributed.INCLUDED, visiblePropertyFilter(adapter, where));
+        final WizardFacet wizardFacet = objSpec.getFacet(WizardFacet.class);
+        final WizardPageIndex pageIndex = wizardFacet != null ? wizardFacet.getPageIndex() : null;
+        if(pageIndex == null) {
+            return objSpec.getAssociations(Contributed.INCLUDED, visiblePropertyFilter(adapter, where));
+        }
+
+        // those properties with a declared page skip their hideXxx() methods, but not authorization etc
+        final Enum<?> state = wizardFacet.getStateGraph().stateOf(adapter.getObject());
+        final Filter<ObjectAssociation> visiblePropertyFilter = visiblePropertyFilter(adapter, where);
+        final List<ObjectAssociation> visibleProperties = Lists.newArrayList();
+        for (final ObjectAssociation property : pageIndex.candidatesOn(state)) {
+            final boolean visible = pageIndex.isPaged(property)
+                    ? WizardPageIndex.isVisibleOnPage(property, getAuthenticationSession(), adapter, where)
+                    : visiblePropertyFilter.accept(property);
+            if(visible) {
+                visibleProperties.add(property);
+            }
+        }
+        return visibleProperties;
     }
 
+    //region > prefetch
+
+    /**
+     * Whether this form (typically {@link WizardPropertiesPanel#prefetch() prefetched}) renders the same page and
+     * the same properties as would a form built now for the provided adapter, and so can be used in its place.
+     */
+    boolean isCurrentFor(final ObjectAdapter adapter) {
+        if(renderedPage == null || renderedPage != pageOf(adapter)) {
+            return false;
+        }
+        final List<ObjectAssociation> visibleProperties = visibleProperties(adapter, adapter.getSpecification(), Where.OBJECT_FORMS);
+        if(visibleProperties.size() != renderedProperties.size()) {
+            return false;
+        }
+        final Set<String> renderedIds = Sets.newHashSet();
+        for (final PropertyMemento pm : renderedProperties) {
+            renderedIds.add(pm.getIdentifier());
+        }
+        for (final ObjectAssociation property : visibleProperties) {
+            if(!renderedIds.contains(property.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Enum<?> pageOf(final ObjectAdapter adapter) {
+        final WizardFacet wizardFacet = adapter.getSpecification().getFacet(WizardFacet.class);
+        final WizardStateGraph stateGraph = wizardFacet != null ? wizardFacet.getStateGraph() : null;
+        return stateGraph != null ? stateGraph.stateOf(adapter.getObject()) : null;
+    }
+    //endregion
+
     @SuppressWarnings("unchecked")
     private Filter<ObjectAssociation> visiblePropertyFilter(final ObjectAdapter adapter, Where where) {
         return Filters.and(ObjectAssociation.Filters.PROPERTIES, ObjectAssociation.Filters.dynamicallyVisible(getAuthenticationSession(), adapter, where));
     }
 
 
-    private abstract class AjaxButtonWithOnError extends AjaxButton {
+    //region > wizard buttons
 
-        public AjaxButtonWithOnError(String id, IModel<String> model) {
-            super(id, model);
-        }
-
-        @Override
-        protected void onError(AjaxRequestTarget target, Form<?> form) {
-            super.onError(target, form);
-            toEditMode(target);
-        }
+    private Button newTransitionButton(final String id, final String label, final Transition transition) {
+        return new AjaxTransitionButton(id, Model.of(label), transition);
     }
 
-    private abstract class AjaxButtonForValidate extends AjaxButtonWithOnError implements IFormSubmitterWithPreValidateHook {
+    private final class AjaxTransitionButton extends AjaxButton implements IFormSubmitterWithPreValidateHook {
         private static final long serialVersionUID = 1L;
-        public AjaxButtonForValidate(String id, IModel<String> model) {
+
+        private final Transition transition;
+
+        public AjaxTransitionButton(final String id, final IModel<String> model, final Transition transition) {
             super(id, model);
+            this.transition = transition;
         }
 
         @Override
         public String preValidate() {
-            // attempt to load with concurrency checking, catching recognized exceptions
-            try {
-                getEntityModel().load(ConcurrencyChecking.CHECK); // could have also just called #getObject(), since CHECK is the default
-
-            } catch(ConcurrencyException ex){
-                String recognizedErrorMessage = recognizeException(ex);
-                if(recognizedErrorMessage == null) {
-                    throw ex;
-                }
-
-                // reload
-                getEntityModel().load(ConcurrencyChecking.NO_CHECK);
-
-                getForm().clearInput();
-                getEntityModel().resetPropertyModels();
-
-                toEditMode(null);
-
-                return recognizedErrorMessage;
-            }
-
-            return null;
+            return preValidateFor(transition);
         }
 
         @Override
         public void validate() {
-            // add in any error message that we might have recognized from above
-            WizardPropertiesForm form = WizardPropertiesForm.this;
-            String preValidationErrorIfAny = form.getPreValidationErrorIfAny();
-
-            if(preValidationErrorIfAny != null) {
-                feedbackOrNotifyAnyRecognizedError(preValidationErrorIfAny, form);
-                // skip validation, because would relate to old values
-
-                final EntityPage entityPage = new EntityPage(WizardPropertiesForm.this.getModelObject(), null);
-                WizardPropertiesForm.this.setResponsePage(entityPage);
-            } else {
+            if(!handledPreValidationError()) {
                 // run Wicket's validation
                 super.validate();
             }
         }
 
         @Override
-        protected void onSubmit(AjaxRequestTarget target, Form<?> form) {
+        protected void onSubmit(final AjaxRequestTarget target, final Form<?> form) {
+            onSubmitFor(transition, target);
+        }
 
-            if (getForm().hasError()) {
-                // stay in edit mode
-                return;
+        /**
+         * With client navigation, next and previous move between the pages in the browser, and are only submitted
+         * if the page being moved to requires the server.
+         */
+        @Override
+        protected void updateAjaxAttributes(final AjaxRequestAttributes attributes) {
+            super.updateAjaxAttributes(attributes);
+            if(clientValidation && transition != Transition.PREVIOUS) {
+                attributes.getAjaxCallListeners().add(
+                        new AjaxCallListener().onPrecondition("return IsisWizard.validate(attrs.c);"));
+            }
+            if(clientNavigation && transition.isNavigation()) {
+                final int delta = transition == Transition.NEXT ? 1 : -1;
+                attributes.getAjaxCallListeners().add(
+                        new AjaxCallListener().onPrecondition("return !IsisWizard.move(attrs.c, " + delta + ");"));
             }
+        }
+
+        @Override
+        protected void onError(final AjaxRequestTarget target, final Form<?> form) {
+            super.onError(target, form);
+            toEditMode(target);
+        }
+    }
 
-            doPreApply();
-            if (applyFormChangesElse()) return;
-            final Object redirectIfAny = doPostApply();
+    private String preValidateFor(final Transition transition) {
+        submittedPage = renderedPage;
+        submitStartNanos = WizardStepMetrics.get().start();
+        try {
+            return doPreValidateFor(transition);
+        } finally {
+            recordStep(transition.metricsTransition, WizardStepMetrics.Phase.PRE_VALIDATE, submitStartNanos);
+        }
+    }
 
-            if (flushChangesElse(target)) return;
+    private String doPreValidateFor(final Transition transition) {
+        final String clientPageDisabledReason = applyClientPage();
+        if(clientPageDisabledReason != null) {
+            return clientPageDisabledReason;
+        }
 
+        if(isViewModelNavigation(transition)) {
+            // a view model has no version to check, and is simply recreated from its memento
+            return null;
+        }
+
+        // attempt to load with concurrency checking, catching recognized exceptions
+        try {
+            getEntityModel().load(ConcurrencyChecking.CHECK); // could have also just called #getObject(), since CHECK is the default
+
+        } catch(ConcurrencyException ex){
+            String recognizedErrorMessage = recognizeException(ex);
+            if(recognizedErrorMessage == null) {
+                throw ex;
+            }
+
+            // reload
+            getEntityModel().load(ConcurrencyChecking.NO_CHECK);
+
+            clearInput();
             getEntityModel().resetPropertyModels();
 
             toEditMode(null);
 
-            // "redirect-after-post"
-            //
-            // RequestCycle.get().getActiveRequestHandler() indicates this is handled by the ListenerInterfaceRequestHandler
-            // which renders page at end.
-            //
-            // it's necessary to zap the page parameters (so mapping is to just wicket/page?nn)
-            // otherwise (what I think happens) is that the httpServletResponse.sendRedirect ends up being to the same URL,
-            // and this is rejected as invalid either by the browser or by the servlet container (perhaps only if running remotely).
-            //
-
-            final ObjectAdapter objectAdapter;
-            if(redirectIfAny != null) {
-                objectAdapter = getPersistenceSession().getAdapterManager().adapterFor(redirectIfAny);
-            } else {
-                // we obtain the adapter from the entity model because (if a view model) then the entity model may contain
-                // a different adapter (the cloned view model) to the one with which we started with.
-                objectAdapter = getEntityModel().getObjectAdapterMemento().getObjectAdapter(ConcurrencyChecking.NO_CHECK);
+            return recognizedErrorMessage;
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds in any error message that we might have recognized from {@link #preValidateFor(Transition)}.
+     *
+     * @return whether there was such an error (in which case validation should be skipped).
+     */
+    private boolean handledPreValidationError() {
+        String preValidationErrorIfAny = getPreValidationErrorIfAny();
+        if(preValidationErrorIfAny == null) {
+            return false;
+        }
+
+        feedbackOrNotifyAnyRecognizedError(preValidationErrorIfAny, this);
+        // skip validation, because would relate to old values
+
+        final EntityPage entityPage = new EntityPage(getModelObject(), null);
+        setResponsePage(entityPage);
+        return true;
+    }
+
+    private void onSubmitFor(final Transition transition, final AjaxRequestTarget target) {
+        final WizardPropertiesPanel owningPanel = owningPanel();
+        try {
+            doSubmitFor(transition, target);
+        } finally {
+            recordStep(transition.metricsTransition, WizardStepMetrics.Phase.TOTAL, submitStartNanos);
+            if(owningPanel != null) {
+                owningPanel.submitted(transition.metricsTransition);
             }
+        }
+    }
 
-            final EntityPage entityPage = new EntityPage(objectAdapter, null);
-            WizardPropertiesForm.this.setResponsePage(entityPage);
+    private void doSubmitFor(final Transition transition, final AjaxRequestTarget target) {
+
+        if (hasError()) {
+            // stay in edit mode
+            return;
         }
 
-        /**
-         * Optional hook to override.
-         *
-         * <p>
-         * If a non-null value is returned, then transition to it (ie eg the finish() transition for a wizard).
-         * </p>
-         */
-        protected void doPreApply() {
+        // an ajax submit is not pre-validated (its submitter being Wicket's wrapper of the button)
+        final String clientPageDisabledReason = applyClientPage();
+        if (clientPageDisabledReason != null) {
+            error(clientPageDisabledReason);
+            toEditMode(target);
+            return;
         }
 
-        /**
-         * Optional hook to override.
-         *
-         * <p>
-         * If a non-null value is returned, then transition to it (ie eg the finish() transition for a wizard).
-         * </p>
-         */
-        protected Object doPostApply() {
-            return null;
+        final boolean viewModelNavigation = isViewModelNavigation(transition);
+
+        final String disabledReasonIfAny = transition.isNavigation() ? transition.disabledReason(navigationState()) : null;
+        if (disabledReasonIfAny != null) {
+            // the button was rendered before the wizard's state changed
+            error(disabledReasonIfAny);
+            toEditMode(target);
+            return;
         }
 
+        final WizardStepMetrics metrics = WizardStepMetrics.get();
+        long startNanos = metrics.start();
+        transition.preApply(getEntityModel().getObject());
+        recordStep(transition.metricsTransition, WizardStepMetrics.Phase.PRE_APPLY, startNanos);
+        invalidateNavigationStates();
+
+        startNanos = metrics.start();
+        final boolean applyFailed = applyFormChangesElse(transition);
+        recordStep(transition.metricsTransition, WizardStepMetrics.Phase.APPLY, startNanos);
+        if (applyFailed) return;
+
+        startNanos = metrics.start();
+        final Object redirectIfAny = transition.postApply(getEntityModel().getObject());
+        recordStep(transition.metricsTransition, WizardStepMetrics.Phase.POST_APPLY, startNanos);
+
+        // moving between the pages of a view model touches no entity, so there is nothing to flush
+        if (!viewModelNavigation) {
+            startNanos = metrics.start();
+            final boolean flushFailed = flushChangesElse(target);
+            recordStep(transition.metricsTransition, WizardStepMetrics.Phase.FLUSH, startNanos);
+            if (flushFailed) return;
+        }
+
+        invalidateNavigationStates();
+        getEntityModel().resetPropertyModels();
+
+        if(redirectIfAny == null && repaintInPlace(target)) {
+            return;
+        }
+
+        toEditMode(null);
+
+        // "redirect-after-post"
+        //
+        // RequestCycle.get().getActiveRequestHandler() indicates this is handled by the ListenerInterfaceRequestHandler
+        // which renders page at end.
+        //
+        // it's necessary to zap the page parameters (so mapping is to just wicket/page?nn)
+        // otherwise (what I think happens) is that the httpServletResponse.sendRedirect ends up being to the same URL,
+        // and this is rejected as invalid either by the browser or by the servlet container (perhaps only if running remotely).
+        //
+
+        final ObjectAdapter objectAdapter;
+        if(redirectIfAny != null) {
+            objectAdapter = getPersistenceSession().getAdapterManager().adapterFor(redirectIfAny);
+        } else {
+            // we obtain the adapter from the entity model because (if a view model) then the entity model may contain
+            // a different adapter (the cloned view model) to the one with which we started with.
+            objectAdapter = getEntityModel().getObjectAdapterMemento().getObjectAdapter(ConcurrencyChecking.NO_CHECK);
+        }
+
+        final EntityPage entityPage = new EntityPage(objectAdapter, null);
+        setResponsePage(entityPage);
+    }
+
+    /**
+     * Navigation of a view model wizard can skip the concurrency check and the flush of the transaction;
+     * neither is relevant until the wizard is finished.
+     *
+     * <p>
+     * The request's transaction is still begun and committed (by the viewer's request cycle, for every request),
+     * but with nothing flushed it acquires no JDBC connection unless a supporting method queries.
+     */
+    private boolean isViewModelNavigation(final Transition transition) {
+        return transition.isNavigation() && getEntityModel().getTypeOfSpecification().isViewModel();
     }
 
     private void addWizardButtons(MarkupContainer markupContainer) {
 
-        // next
-        wizardNextButton = new AjaxButtonForValidate(ID_WIZARD_NEXT_BUTTON, Model.of("Next")) {
-            private static final long serialVersionUID = 1L;
-            @Override
-            protected void doPreApply() {
-                final ObjectAdapter adapter = getEntityModel().getObject();
-                final WizardFacet wizardFacet = adapter.getSpecification().getFacet(WizardFacet.class);
-                wizardFacet.next(adapter.getObject());
-            }
-        };
+        final Button wizardNextButton = newTransitionButton(ID_WIZARD_NEXT_BUTTON, "Next", Transition.NEXT);
         markupContainer.add(wizardNextButton);
 
-        wizardPreviousButton = new AjaxButtonForValidate(ID_WIZARD_PREVIOUS_BUTTON, Model.of("Previous")) {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            protected void doPreApply() {
-                final ObjectAdapter adapter = getEntityModel().getObject();
-                final WizardFacet wizardFacet = adapter.getSpecification().getFacet(WizardFacet.class);
-                wizardFacet.previous(adapter.getObject());
-            }
-        };
+        final Button wizardPreviousButton = newTransitionButton(ID_WIZARD_PREVIOUS_BUTTON, "Previous", Transition.PREVIOUS);
         markupContainer.add(wizardPreviousButton);
 
-
-        wizardFinishButton = new AjaxButtonForValidate(ID_WIZARD_FINISH_BUTTON, Model.of("Finish")) {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            protected Object doPostApply() {
-                final ObjectAdapter adapter = getEntityModel().getObject();
-                final WizardFacet wizardFacet = adapter.getSpecification().getFacet(WizardFacet.class);
-                return wizardFacet.finish(adapter.getObject());
-            }
-        };
+        final Button wizardFinishButton = newTransitionButton(ID_WIZARD_FINISH_BUTTON, "Finish", Transition.FINISH);
         markupContainer.add(wizardFinishButton);
 
 
-        wizardCancelButton = new Button(ID_WIZARD_CANCEL_BUTTON, Model.of("Cancel")) {
+        final Button wizardCancelButton = new Button(ID_WIZARD_CANCEL_BUTTON, Model.of("Cancel")) {
 
             private static final long serialVersionUID = 1L;
             {
                 setDefaultFormProcessing(false);
             }
 
+            @Override
+            protected void onComponentTag(final ComponentTag tag) {
+                super.onComponentTag(tag);
+                // not held up by the browser's checking of any field constraints
+                tag.put("formnovalidate", "formnovalidate");
+            }
+
             public void onSubmit() {
+                submittedPage = renderedPage;
+                submitStartNanos = WizardStepMetrics.get().start();
                 final PageAbstract page = determinePageToRedirectTo();
                 WizardPropertiesForm.this.setResponsePage(page);
+                recordStep(WizardStepMetrics.Transition.CANCEL, WizardStepMetrics.Phase.TOTAL, submitStartNanos);
             }
 
             private PageAbstract determinePageToRedirectTo() {
@@ -408,6 +832,10 @@ private List<EntityModel> getBreadcrumbs() {
         markupContainer.add(wizardCancelButton);
 
 
+        wizardNextButton.add(new DisableIfRequired(Transition.NEXT));
+        wizardPreviousButton.add(new DisableIfRequired(Transition.PREVIOUS));
+        wizardFinishButton.add(new DisableIfRequired(Transition.FINISH));
+
         wizardNextButton.setOutputMarkupPlaceholderTag(true);
         wizardPreviousButton.setOutputMarkupPlaceholderTag(true);
         wizardFinishButton.setOutputMarkupPlaceholderTag(true);
@@ -419,25 +847,90 @@ private List<EntityModel> getBreadcrumbs() {
         wizardFinishButton.add(new JGrowlBehaviour());
         wizardCancelButton.add(new JGrowlBehaviour());
     }
+    //endregion
 
     // to perform object-level validation, we must apply the changes first
     // contrast this with ActionPanel (for validating actionarguments) where
     // we do the validation prior to the execution of the action
-    private boolean applyFormChangesElse() {
+    //
+    // only the properties that the form actually changes are recorded (in an undo log) so that they can be rolled
+    // back if invalid; but if the wizard has any modifyXxx() or clearXxx() methods (which may change other properties
+    // too) then the whole object is snapshotted instead
+    private boolean applyFormChangesElse(final Transition transition) {
         final ObjectAdapter adapter = getEntityModel().getObject();
-        final Memento snapshotToRollbackToIfInvalid = new Memento(adapter);
+        final WizardUndoLog undoLog = undoLogFor(adapter);
+        final Memento snapshotToRollbackToIfInvalid = undoLog == null ? new Memento(adapter) : null;
 
         getEntityModel().apply();
-        final String invalidReasonIfAny = getEntityModel().getReasonInvalidIfAny();
+        final String invalidReasonIfAny = transition.isNavigation()
+                ? reasonInvalidOnSubmittedPageIfAny()
+                : getEntityModel().getReasonInvalidIfAny();
         if (invalidReasonIfAny != null) {
             error(invalidReasonIfAny);
-            snapshotToRollbackToIfInvalid.recreateObject();
+            if(undoLog != null) {
+                undoLog.restore(adapter);
+
+                // a cloneable view model will have been replaced in the entity model by its clone
+                final ObjectAdapter appliedAdapter = getEntityModel().getObjectAdapterMemento().getObjectAdapter(ConcurrencyChecking.NO_CHECK);
+                if(appliedAdapter != null && appliedAdapter != adapter) {
+                    undoLog.restore(appliedAdapter);
+                }
+            } else {
+                snapshotToRollbackToIfInvalid.recreateObject();
+            }
+            invalidateNavigationStates();
             toEditMode(null);
             return true;
         }
         return false;
     }
 
+    /**
+     * The wizard has already moved to its next (or previous) page, so validating it there (as is done on finish)
+     * would insist on the properties of that page, not yet entered; instead it is validated (by Isis, so including
+     * its <tt>validate()</tt>) as it was on the page submitted, and then moved back.
+     */
+    private String reasonInvalidOnSubmittedPageIfAny() {
+        final ObjectAdapter adapter = getEntityModel().getObjectAdapterMemento().getObjectAdapter(ConcurrencyChecking.NO_CHECK);
+        final Enum<?> page = submittedPage != null ? submittedPage : renderedPage;
+        final WizardFacet wizardFacet = adapter.getSpecification().getFacet(WizardFacet.class);
+        if(page == null || wizardFacet == null) {
+            return getEntityModel().getReasonInvalidIfAny();
+        }
+        final WizardStateGraph stateGraph = wizardFacet.getStateGraph();
+        final Object wizard = adapter.getObject();
+        final Enum<?> currentPage = stateGraph.stateOf(wizard);
+        stateGraph.setStateOf(wizard, page);
+        try {
+            return getEntityModel().getReasonInvalidIfAny();
+        } finally {
+            stateGraph.setStateOf(wizard, currentPage);
+        }
+    }
+
+    /**
+     * Records the original values of the properties whose fields were edited; those whose fields were not are applied
+     * with the value they were rendered with, so are left unchanged.
+     *
+     * @return <tt>null</tt> if the changes cannot be undone property by property.
+     */
+    private WizardUndoLog undoLogFor(final ObjectAdapter adapter) {
+        final WizardFacet wizardFacet = adapter.getSpecification().getFacet(WizardFacet.class);
+        if(wizardFacet == null || wizardFacet.hasModifyOrClearMethods()) {
+            return null;
+        }
+        final WizardUndoLog undoLog = new WizardUndoLog();
+        for (int i = 0; i < renderedProperties.size(); i++) {
+            final PropertyMemento pm = renderedProperties.get(i);
+            final ScalarModel propertyModel = getEntityModel().getPropertyModel(pm);
+            if(propertyModel.getObjectAdapterMemento() == renderedValues.get(i)) {
+                continue;
+            }
+            undoLog.record(pm.getProperty(), adapter, propertyModel.getObject());
+        }
+        return undoLog;
+    }
+
     private boolean flushChangesElse(AjaxRequestTarget target) {
         try {
             this.getTransactionManager().flushTransaction();
@@ -487,12 +980,43 @@ private String recognizeException(RuntimeException ex) {
         return message;
     }
 
+    /**
+     * If so {@link WizardSettings#getNavigation() configured}, rebuilds just the owning panel for the (possibly
+     * cloned) view model now held by the entity model, and updates the browser's URL to match, rather than
+     * redirecting to a new page.
+     */
+    private boolean repaintInPlace(final AjaxRequestTarget target) {
+        if(target == null || WizardSettings.getNavigation() == WizardSettings.Navigation.REDIRECT) {
+            return false;
+        }
+        final WizardPropertiesPanel owningPanel = owningPanel();
+        if(owningPanel == null) {
+            return false;
+        }
+        final ObjectAdapter objectAdapter = getEntityModel().getObjectAdapterMemento().getObjectAdapter(ConcurrencyChecking.NO_CHECK);
+        final CharSequence url = urlFor(EntityPage.class, EntityModel.createPageParameters(objectAdapter));
+
+        owningPanel.rebuild(target);
+        // the back button restores the URL but not the panel, so just reload the page for that URL
+        target.appendJavaScript(
+                "if(window.history && window.history.pushState) {" +
+                " window.history.pushState(null, '', '" + JavaScriptUtils.escapeQuotes(url) + "');" +
+                " window.onpopstate = function() { window.location.reload(); };" +
+                " }");
+        return true;
+    }
+
     private void requestRepaintPanel(final AjaxRequestTarget target) {
-        if (target != null) {
+        final WizardPropertiesPanel owningPanel = owningPanel();
+        if (target != null && owningPanel != null) {
             target.add(owningPanel);
         }
     }
 
+    private WizardPropertiesPanel owningPanel() {
+        return findParent(WizardPropertiesPanel.class);
+    }
+
     private EntityModel getEntityModel() {
         return (EntityModel) getModel();
     }
@@ -501,29 +1025,174 @@ void toEditMode(final AjaxRequestTarget target) {
         getEntityModel().toViewMode();
         getEntityModel().toEditMode();
 
-        // wizard handling.
-        final ObjectAdapter adapter = getEntityModel().getObject();
-        final WizardFacet wizardFacet = adapter.getSpecification().getFacet(WizardFacet.class);
-        disableIfRequired(wizardNextButton, wizardFacet.disableNext(adapter.getObject()));
-        final ObjectAdapter adapter1 = getEntityModel().getObject();
-        final WizardFacet wizardFacet1 = adapter1.getSpecification().getFacet(WizardFacet.class);
-        disableIfRequired(wizardPreviousButton, wizardFacet1.disablePrevious(adapter1.getObject()));
-        final ObjectAdapter adapter2 = getEntityModel().getObject();
-        final WizardFacet wizardFacet2 = adapter2.getSpecification().getFacet(WizardFacet.class);
-        disableIfRequired(wizardFinishButton, wizardFacet2.disableFinish(adapter2.getObject()));
-
+        // the wizard buttons are enabled or disabled as they are rendered; see DisableIfRequired
         requestRepaintPanel(target);
     }
 
-    private void disableIfRequired(Button button, String disabledReason) {
-        if(disabledReason != null) {
-            button.setEnabled(false);
-            button.add(new AttributeAppender("title", disabledReason));
+    /**
+     * The {@link WizardNavigationState navigation state} of the wizard currently held by the entity model,
+     * evaluated at most once per request cycle (unless {@link #invalidateNavigationStates() invalidated}).
+     */
+    WizardNavigationState navigationState() {
+        final Object pojo = getEntityModel().getObject().getObject();
+
+        final RequestCycle requestCycle = RequestCycle.get();
+        IdentityHashMap<Object, WizardNavigationState> navigationStates = requestCycle != null ? requestCycle.getMetaData(NAVIGATION_STATES) : null;
+        if(navigationStates == null) {
+            navigationStates = new IdentityHashMap<>();
+            if(requestCycle != null) {
+                requestCycle.setMetaData(NAVIGATION_STATES, navigationStates);
+            }
+        }
+
+        WizardNavigationState navigationState = navigationStates.get(pojo);
+        if(navigationState == null) {
+            final WizardFacet wizardFacet = getEntityModel().getTypeOfSpecification().getFacet(WizardFacet.class);
+            navigationState = wizardFacet.navigationStateOf(pojo);
+            navigationStates.put(pojo, navigationState);
+        }
+        return navigationState;
+    }
+
+    /**
+     * To be called whenever the wizard's state may have changed.
+     */
+    private static void invalidateNavigationStates() {
+        final RequestCycle requestCycle = RequestCycle.get();
+        if(requestCycle != null) {
+            requestCycle.setMetaData(NAVIGATION_STATES, null);
+        }
+    }
+
+    /**
+     * The transitions performed by the wizard buttons (other than cancel).
+     */
+    private enum Transition {
+        NEXT(WizardStepMetrics.Transition.NEXT) {
+            @Override
+            String disabledReason(final WizardNavigationState navigationState) {
+                return navigationState.getDisableNextReason();
+            }
+
+            @Override
+            boolean isNavigation() {
+                return true;
+            }
+
+            @Override
+            void preApply(final ObjectAdapter adapter) {
+                wizardFacetOf(adapter).next(adapter.getObject());
+            }
+        },
+        PREVIOUS(WizardStepMetrics.Transition.PREVIOUS) {
+            @Override
+            String disabledReason(final WizardNavigationState navigationState) {
+                return navigationState.getDisablePreviousReason();
+            }
+
+            @Override
+            boolean isNavigation() {
+                return true;
+            }
+
+            @Override
+            void preApply(final ObjectAdapter adapter) {
+                wizardFacetOf(adapter).previous(adapter.getObject());
+            }
+        },
+        FINISH(WizardStepMetrics.Transition.FINISH) {
+            @Override
+            String disabledReason(final WizardNavigationState navigationState) {
+                return navigationState.getDisableFinishReason();
+            }
+
+            @Override
+            Object postApply(final ObjectAdapter adapter) {
+                return wizardFacetOf(adapter).finish(adapter.getObject());
+            }
+        };
+
+        private final WizardStepMetrics.Transition metricsTransition;
+
+        private Transition(final WizardStepMetrics.Transition metricsTransition) {
+            this.metricsTransition = metricsTransition;
+        }
+
+        /**
+         * If non-null, then the transition is currently disabled, for the reason given.
+         */
+        abstract String disabledReason(WizardNavigationState navigationState);
+
+        /**
+         * Whether this transition only moves between the pages of the wizard (that is, <tt>next</tt> or
+         * <tt>previous</tt>), rather than finishing it.
+         */
+        boolean isNavigation() {
+            return false;
+        }
+
+        /**
+         * Performed before the form's changes are applied.
+         */
+        void preApply(final ObjectAdapter adapter) {
+        }
+
+        /**
+         * Performed after the form's changes are applied; if a non-null value is returned, then transition to it
+         * (ie eg the finish() transition for a wizard).
+         */
+        Object postApply(final ObjectAdapter adapter) {
+            return null;
+        }
+
+        private static WizardFacet wizardFacetOf(final ObjectAdapter adapter) {
+            return adapter.getSpecification().getFacet(WizardFacet.class);
+        }
+    }
+
+    /**
+     * Enables or disables a wizard button each time it is rendered, according to the current
+     * {@link #navigationState() navigation state}, with the reason (if disabled) as its tooltip.
+     *
+     * <p>
+     * Holds only the transition, so (unlike adding an <tt>AttributeAppender</tt> each time the form is put into edit
+     * mode) does not accumulate in the page.
+     */
+    private static final class DisableIfRequired extends Behavior {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Transition transition;
+
+        DisableIfRequired(final Transition transition) {
+            this.transition = transition;
+        }
+
+        @Override
+        public void onConfigure(final Component component) {
+            component.setEnabled(disabledReason(component) == null);
+        }
+
+        @Override
+        public void onComponentTag(final Component component, final ComponentTag tag) {
+            final String disabledReason = disabledReason(component);
+            if(disabledReason != null) {
+                tag.put("title", disabledReason);
+            }
+        }
+
+        private String disabledReason(final Component component) {
+            final WizardPropertiesForm form = component.findParent(WizardPropertiesForm.class);
+            if(form.clientNavigation && transition.isNavigation()) {
+                // enabled and disabled in the browser, as the pages are moved between
+                return null;
+            }
+            return transition.disabledReason(form.navigationState());
         }
     }
 
     private void addFeedbackGui(MarkupContainer markupContainer) {
-        feedback = new ComponentFeedbackPanel(ID_FEEDBACK, this);
+        final FeedbackPanel feedback = new ComponentFeedbackPanel(ID_FEEDBACK, this);
         feedback.setOutputMarkupPlaceholderTag(true);
         markupContainer.addOrReplace(feedback);
         feedback.setEscapeModelStrings(false);
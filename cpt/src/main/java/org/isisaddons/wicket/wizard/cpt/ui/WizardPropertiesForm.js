@@ -0,0 +1,182 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+/*
+ * Client navigation for wizards: all pages are rendered (each a div.wizardPage with a data-wizard-page attribute),
+ * all but the current one hidden; next and previous move between them in the browser, recording the page shown in
+ * the form's hidden input.wizardPageField for when the form is eventually submitted.  The browser cannot evaluate
+ * the wizard's disableNext and disablePrevious, so the server walks the wizard to that page a page at a time, and
+ * rejects the submit if any of these moves is disabled.
+ *
+ * Client validation for wizards: fields with a data-wizard-pattern (from the property's @RegEx) or a maxlength (from
+ * its @MaxLength) are checked as they are edited, and before the form is submitted by next or finish.
+ */
+var IsisWizard = (function() {
+
+    function pagesOf(form) {
+        return form.querySelectorAll('.wizardPage[data-wizard-page]');
+    }
+
+    function currentIndexOf(pages) {
+        for (var i = 0; i < pages.length; i++) {
+            if (pages[i].style.display !== 'none') {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    function show(form, pages, index) {
+        for (var i = 0; i < pages.length; i++) {
+            pages[i].style.display = i === index ? '' : 'none';
+        }
+        var pageField = form.querySelector('input.wizardPageField');
+        if (pageField) {
+            pageField.value = pages[index].getAttribute('data-wizard-page');
+        }
+        var previous = form.querySelector('input.previous');
+        if (previous) {
+            previous.disabled = index === 0;
+        }
+        var next = form.querySelector('input.next');
+        if (next) {
+            next.disabled = index === pages.length - 1;
+        }
+    }
+
+    function fieldsOf(form) {
+        return form.querySelectorAll('[data-wizard-pattern], input[maxlength], textarea[maxlength]');
+    }
+
+    function isShown(field) {
+        var page = field.closest ? field.closest('.wizardPage[data-wizard-page]') : null;
+        return !page || page.style.display !== 'none';
+    }
+
+    /*
+     * Sets (or clears) the field's custom validity message; compiled patterns are cached on the field itself.
+     */
+    function check(field) {
+        var value = field.value;
+        var message = '';
+        if (value) {
+            var maxLength = parseInt(field.getAttribute('maxlength'), 10);
+            if (maxLength > 0 && value.length > maxLength) {
+                message = 'Too long (maximum ' + maxLength + ' characters)';
+            } else if (field.hasAttribute('data-wizard-pattern')) {
+                if (field.wizardPattern === undefined) {
+                    try {
+                        field.wizardPattern = new RegExp('^(?:' + field.getAttribute('data-wizard-pattern') + ')$',
+                            field.getAttribute('data-wizard-pattern-flags') || '');
+                    } catch (e) {
+                        // not supported by this browser; left to the server
+                        field.wizardPattern = null;
+                    }
+                }
+                if (field.wizardPattern && !field.wizardPattern.test(value)) {
+                    message = field.getAttribute('data-wizard-pattern-message');
+                }
+            }
+        }
+        if (field.setCustomValidity) {
+            field.setCustomValidity(message);
+        }
+        return !message;
+    }
+
+    return {
+
+        init: function(formId) {
+            var form = document.getElementById(formId);
+            var pages = form ? pagesOf(form) : [];
+            if (pages.length === 0) {
+                return;
+            }
+            // show the first page with a field in error, if any, else the current page
+            var index = currentIndexOf(pages);
+            for (var i = 0; i < pages.length; i++) {
+                if (pages[i].querySelector('.feedbackPanelERROR')) {
+                    index = i;
+                    break;
+                }
+            }
+            show(form, pages, index);
+        },
+
+        /*
+         * Moves by the given number of pages, returning false (without moving) if the page moved to requires the
+         * server, in which case the form should be submitted.
+         */
+        move: function(buttonId, delta) {
+            var button = document.getElementById(buttonId);
+            var form = button ? button.form : null;
+            var pages = form ? pagesOf(form) : [];
+            if (pages.length === 0) {
+                return false;
+            }
+            var index = currentIndexOf(pages) + delta;
+            if (index < 0 || index >= pages.length) {
+                return true;
+            }
+            if (pages[index].getAttribute('data-wizard-server') === 'true') {
+                return false;
+            }
+            show(form, pages, index);
+            return true;
+        },
+
+        /*
+         * Checks each constrained field whenever it is edited.
+         */
+        constrain: function(formId) {
+            var form = document.getElementById(formId);
+            if (!form || form.getAttribute('data-wizard-constrained') === 'true') {
+                return;
+            }
+            form.setAttribute('data-wizard-constrained', 'true');
+            var listener = function(event) {
+                var field = event.target;
+                if (field.hasAttribute('data-wizard-pattern') || field.hasAttribute('maxlength')) {
+                    check(field);
+                }
+            };
+            form.addEventListener('input', listener, false);
+            form.addEventListener('change', listener, false);
+        },
+
+        /*
+         * Checks the constrained fields currently shown, reporting the first that is invalid; returns whether all
+         * are valid (and so whether the form should be submitted).
+         */
+        validate: function(buttonId) {
+            var button = document.getElementById(buttonId);
+            var form = button ? button.form : null;
+            var fields = form ? fieldsOf(form) : [];
+            for (var i = 0; i < fields.length; i++) {
+                if (isShown(fields[i]) && !check(fields[i])) {
+                    if (fields[i].reportValidity) {
+                        fields[i].reportValidity();
+                    } else {
+                        fields[i].focus();
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+    };
+})();
@@ -16,7 +16,16 @@
  */
 package org.isisaddons.wicket.wizard.cpt.ui;
 
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardFacet;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardStateGraph;
+import org.isisaddons.wicket.wizard.cpt.metrics.WizardStepMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.isis.core.metamodel.adapter.ObjectAdapter;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
 import org.apache.isis.viewer.wicket.model.models.EntityModel;
 import org.apache.isis.viewer.wicket.ui.panels.PanelAbstract;
 
@@ -28,14 +37,61 @@ public class WizardPropertiesPanel extends PanelAbstract<EntityModel> {
 
     private static final long serialVersionUID = 1L;
 
+    private static final Logger LOG = LoggerFactory.getLogger(WizardPropertiesPanel.class);
+
     private static final String ID_ENTITY_PROPERTIES = "entityProperties";
 
-    private WizardPropertiesForm form;
+    /**
+     * The form for the next page, if {@link #prefetch() prefetched}; not part of the component hierarchy until (and
+     * unless) used, and so {@link #onDetach() detached} by this panel.
+     *
+     * <p>
+     * Transient, so that it does not add to the size of the page as stored; if the page is deserialized then the
+     * form for the next page is simply built when it is needed, as if never prefetched.
+     */
+    private transient WizardPropertiesForm prefetchedForm;
+
+    /**
+     * The transition most recently submitted by the form, so that the rendering of the (possibly rebuilt) form that
+     * follows can be attributed to it.
+     */
+    private transient WizardStepMetrics.Transition submittedTransition;
 
     public WizardPropertiesPanel(final String id, final EntityModel entityModel) {
         super(id, entityModel);
         buildGui();
-        form.toEditMode(null);
+        toEditMode(null);
+        if(isPrefetchable()) {
+            add(new WizardPrefetchBehavior());
+        }
+    }
+
+    /**
+     * Rebuilds the form (for the current state of the wizard) and repaints this panel.
+     */
+    void rebuild(final AjaxRequestTarget target) {
+        buildGui();
+        toEditMode(target);
+    }
+
+    void submitted(final WizardStepMetrics.Transition transition) {
+        submittedTransition = transition;
+    }
+
+    /**
+     * The transition {@link #submitted(WizardStepMetrics.Transition) submitted} since this was last called, if any.
+     */
+    WizardStepMetrics.Transition takeSubmittedTransition() {
+        final WizardStepMetrics.Transition transition = submittedTransition;
+        submittedTransition = null;
+        return transition;
+    }
+
+    private void toEditMode(final AjaxRequestTarget target) {
+        final Component form = get(ID_ENTITY_PROPERTIES);
+        if (form instanceof WizardPropertiesForm) {
+            ((WizardPropertiesForm) form).toEditMode(target);
+        }
     }
 
     private void buildGui() {
@@ -46,12 +102,95 @@ private void buildGui() {
     private void buildEntityPropertiesAndOrCollectionsGui() {
         final EntityModel model = getModel();
         final ObjectAdapter adapter = model.getObject();
+        final WizardPropertiesForm prefetchedForm = this.prefetchedForm;
+        this.prefetchedForm = null;
         if (adapter != null) {
-            form = new WizardPropertiesForm(ID_ENTITY_PROPERTIES, model, this);
-            addOrReplace(form);
+            if(prefetchedForm != null && prefetchedForm.isCurrentFor(adapter)) {
+                LOG.debug("Using prefetched form for {}", adapter.getSpecification().getFullIdentifier());
+                addOrReplace(prefetchedForm);
+            } else {
+                addOrReplace(new WizardPropertiesForm(ID_ENTITY_PROPERTIES, model));
+            }
         } else {
             permanentlyHide(ID_ENTITY_PROPERTIES);
         }
     }
 
+    //region > prefetch
+
+    /**
+     * Whether the next page of this wizard can be {@link #prefetch() prefetched}: if so
+     * {@link WizardSettings#getPrefetch() configured}, for a view model with a linear transition graph, rendered
+     * using {@link WizardSettings.Navigation#AJAX AJAX navigation}.
+     */
+    private boolean isPrefetchable() {
+        if(WizardSettings.getPrefetch() != WizardSettings.Prefetch.LINEAR ||
+                WizardSettings.getNavigation() != WizardSettings.Navigation.AJAX) {
+            return false;
+        }
+        final ObjectSpecification spec = getModel().getTypeOfSpecification();
+        final WizardStateGraph stateGraph = stateGraphOf(spec);
+        return spec.isViewModel() && stateGraph != null && stateGraph.isLinear();
+    }
+
+    /**
+     * Whether there is a next page that has not yet been prefetched.
+     */
+    boolean isPrefetchPending() {
+        if(prefetchedForm != null) {
+            return false;
+        }
+        final ObjectAdapter adapter = getModel().getObject();
+        final WizardStateGraph stateGraph = adapter != null ? stateGraphOf(adapter.getSpecification()) : null;
+        return stateGraph != null && stateGraph.hasNext(stateGraph.stateOf(adapter.getObject()));
+    }
+
+    /**
+     * Speculatively builds the form for the next page, by moving the wizard to its next state (per its
+     * {@link WizardStateGraph state graph}) just while the form is built.
+     *
+     * <p>
+     * The form shares this panel's entity model, so its property models are reset along with the others when the
+     * wizard actually moves on; it is then used (see {@link WizardPropertiesForm#isCurrentFor(ObjectAdapter)})
+     * provided that the values entered have not changed which properties are shown.
+     */
+    void prefetch() {
+        final ObjectAdapter adapter = getModel().getObject();
+        if(adapter == null || !(adapter.getObject() instanceof AbstractWizard)) {
+            return;
+        }
+        final WizardStateGraph stateGraph = stateGraphOf(adapter.getSpecification());
+        final Object wizard = adapter.getObject();
+        final Enum<?> currentState = stateGraph != null ? stateGraph.stateOf(wizard) : null;
+        final Enum<?> nextState = stateGraph != null ? stateGraph.next(currentState) : null;
+        if(nextState == null) {
+            return;
+        }
+
+        stateGraph.setStateOf(wizard, nextState);
+        try {
+            prefetchedForm = new WizardPropertiesForm(ID_ENTITY_PROPERTIES, getModel());
+        } catch(final RuntimeException ex) {
+            LOG.debug("Could not prefetch page " + nextState + " of " + adapter.getSpecification().getFullIdentifier(), ex);
+            prefetchedForm = null;
+        } finally {
+            stateGraph.setStateOf(wizard, currentState);
+        }
+    }
+
+    @Override
+    protected void onDetach() {
+        if(prefetchedForm != null) {
+            // not part of the component hierarchy, so would not otherwise be detached
+            prefetchedForm.detach();
+        }
+        super.onDetach();
+    }
+
+    private static WizardStateGraph stateGraphOf(final ObjectSpecification spec) {
+        final WizardFacet wizardFacet = spec.getFacet(WizardFacet.class);
+        return wizardFacet != null ? wizardFacet.getStateGraph() : null;
+    }
+    //endregion
+
 }
@@ -16,8 +16,13 @@
  */
 package org.isisaddons.wicket.wizard.cpt.ui;
 
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import com.google.common.collect.MapMaker;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardFacet;
 import org.apache.wicket.Component;
 import org.apache.wicket.model.IModel;
+import org.apache.isis.core.metamodel.facets.object.value.ValueFacet;
 import org.apache.isis.core.metamodel.spec.ObjectSpecification;
 import org.apache.isis.viewer.wicket.model.models.EntityModel;
 import org.apache.isis.viewer.wicket.ui.ComponentType;
@@ -25,11 +30,22 @@
 
 /**
  * {@link org.apache.isis.viewer.wicket.ui.ComponentFactory} for {@link WizardPropertiesPanel}.
+ *
+ * <p>
+ * Whether this factory applies depends only on the model's specification, so the {@link ApplicationAdvice advice} is
+ * cached per specification.  The cache is keyed (weakly) by the identity of the specification, so specifications
+ * replaced when the metamodel is reloaded are simply never looked up again; it can also be {@link #invalidate()
+ * invalidated} explicitly.  Its hits and misses can be exposed over JMX using
+ * {@link WizardPropertiesPanelFactoryMetrics}.
  */
 public class WizardPropertiesPanelFactory extends EntityComponentFactoryAbstract {
 
     private static final long serialVersionUID = 1L;
 
+    private transient volatile ConcurrentMap<ObjectSpecification, ApplicationAdvice> adviceBySpecification;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
     public WizardPropertiesPanelFactory() {
         super(ComponentType.ENTITY_PROPERTIES, WizardPropertiesPanel.class);
     }
@@ -42,16 +58,87 @@ public Component createComponent(final String id, final IModel<?> model) {
 
     @Override
     protected ApplicationAdvice appliesTo(IModel<?> model) {
-        final ApplicationAdvice applicationAdvice = super.appliesTo(model);
-        if(!applicationAdvice.applies()) {
-            return applicationAdvice;
+        if(!(model instanceof EntityModel)) {
+            return ApplicationAdvice.DOES_NOT_APPLY;
         }
-        // applies and so therefore must be an EntityModel
         final EntityModel entityModel = (EntityModel) model;
         final ObjectSpecification specification = entityModel.getTypeOfSpecification();
-        if(specification.isWizard()) {
+        if(specification == null) {
+            return super.appliesTo(model);
+        }
+
+        final ConcurrentMap<ObjectSpecification, ApplicationAdvice> cache = getCache();
+        final ApplicationAdvice cachedAdvice = cache.get(specification);
+        if(cachedAdvice != null) {
+            hits.incrementAndGet();
+            return cachedAdvice;
+        }
+        misses.incrementAndGet();
+        final ApplicationAdvice applicationAdvice = appliesTo(specification);
+        cache.put(specification, applicationAdvice);
+        return applicationAdvice;
+    }
+
+    /**
+     * As per the superclass (an object that is neither a collection nor a value), and also a wizard.
+     */
+    private static ApplicationAdvice appliesTo(final ObjectSpecification specification) {
+        if(!specification.isNotCollection() || specification.containsFacet(ValueFacet.class)) {
+            return ApplicationAdvice.DOES_NOT_APPLY;
+        }
+        if(specification.containsFacet(WizardFacet.class) || specification.isWizard()) {
             return ApplicationAdvice.APPLIES_EXCLUSIVELY;
         }
         return ApplicationAdvice.DOES_NOT_APPLY;
     }
+
+    //region > cache
+
+    private ConcurrentMap<ObjectSpecification, ApplicationAdvice> getCache() {
+        ConcurrentMap<ObjectSpecification, ApplicationAdvice> cache = adviceBySpecification;
+        if(cache == null) {
+            synchronized (this) {
+                cache = adviceBySpecification;
+                if(cache == null) {
+                    // weak keys are compared by identity
+                    adviceBySpecification = cache = new MapMaker().weakKeys().makeMap();
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Discards all cached advice, eg if the metamodel has been reloaded.
+     */
+    public void invalidate() {
+        getCache().clear();
+    }
+
+    /**
+     * The number of specifications for which the advice is cached.
+     */
+    public int getSize() {
+        return getCache().size();
+    }
+
+    /**
+     * The number of times that the advice was obtained from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * The number of times that the advice had to be determined from the specification.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+    //endregion
 }
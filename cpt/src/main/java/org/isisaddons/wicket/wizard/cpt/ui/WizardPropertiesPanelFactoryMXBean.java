@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+/**
+ * The counters of the {@link WizardPropertiesPanelFactory}'s cache of advice, as exposed over JMX by
+ * {@link WizardPropertiesPanelFactoryMetrics#register()}.
+ */
+public interface WizardPropertiesPanelFactoryMXBean {
+
+    /**
+     * The number of specifications for which the advice is cached.
+     */
+    int getSize();
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * Hits as a proportion of all lookups, or 0 if there have been none.
+     */
+    double getHitRatio();
+
+    /**
+     * Discards all cached advice, eg if the metamodel has been reloaded.
+     */
+    void invalidate();
+
+    /**
+     * Resets the counters (though not the cache itself).
+     */
+    void reset();
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.isis.viewer.wicket.ui.ComponentFactory;
+import org.apache.isis.viewer.wicket.ui.app.registry.ComponentFactoryRegistry;
+
+/**
+ * Exposes the hits and misses of the {@link WizardPropertiesPanelFactory}'s cache as an MBean
+ * (<tt>org.isisaddons.wicket.wizard:type=WizardPropertiesPanelFactory</tt>).
+ *
+ * <p>
+ * Typically {@link #forRegistry(ComponentFactoryRegistry) obtained} and {@link #register() registered} from the
+ * <tt>init()</tt> of the Wicket application, and {@link #unregister() unregistered} from its <tt>onDestroy()</tt>.
+ */
+public class WizardPropertiesPanelFactoryMetrics implements WizardPropertiesPanelFactoryMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WizardPropertiesPanelFactoryMetrics.class);
+
+    static final String OBJECT_NAME = "org.isisaddons.wicket.wizard:type=WizardPropertiesPanelFactory";
+
+    private final WizardPropertiesPanelFactory factory;
+    private final MBeanServer mBeanServer;
+
+    public WizardPropertiesPanelFactoryMetrics(final WizardPropertiesPanelFactory factory) {
+        this(factory, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    WizardPropertiesPanelFactoryMetrics(final WizardPropertiesPanelFactory factory, final MBeanServer mBeanServer) {
+        this.factory = factory;
+        this.mBeanServer = mBeanServer;
+    }
+
+    /**
+     * For the {@link WizardPropertiesPanelFactory} registered with the application's component factories, or
+     * <tt>null</tt> if there is none.
+     */
+    public static WizardPropertiesPanelFactoryMetrics forRegistry(final ComponentFactoryRegistry registry) {
+        for (final ComponentFactory componentFactory : registry.listComponentFactories()) {
+            if(componentFactory instanceof WizardPropertiesPanelFactory) {
+                return new WizardPropertiesPanelFactoryMetrics((WizardPropertiesPanelFactory) componentFactory);
+            }
+        }
+        return null;
+    }
+
+    //region > WizardPropertiesPanelFactoryMXBean
+
+    @Override
+    public int getSize() {
+        return factory.getSize();
+    }
+
+    @Override
+    public long getHits() {
+        return factory.getHits();
+    }
+
+    @Override
+    public long getMisses() {
+        return factory.getMisses();
+    }
+
+    @Override
+    public double getHitRatio() {
+        final long hits = factory.getHits();
+        final long lookups = hits + factory.getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public void invalidate() {
+        factory.invalidate();
+    }
+
+    @Override
+    public void reset() {
+        factory.resetStatistics();
+    }
+    //endregion
+
+    //region > register, unregister (JMX)
+
+    public void register() {
+        try {
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if(mBeanServer.isRegistered(objectName)) {
+                // eg left over from an earlier deployment within the same JVM
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (final JMException ex) {
+            LOG.warn("Could not register wizard properties panel factory metrics", ex);
+        }
+    }
+
+    public void unregister() {
+        try {
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if(mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (final JMException ex) {
+            LOG.debug("Could not unregister wizard properties panel factory metrics", ex);
+        }
+    }
+    //endregion
+}
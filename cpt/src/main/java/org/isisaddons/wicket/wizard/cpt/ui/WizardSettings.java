@@ -0,0 +1,146 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import org.apache.isis.core.commons.config.IsisConfiguration;
+import org.apache.isis.core.runtime.system.context.IsisContext;
+
+/**
+ * Settings for the wizard component, read from <tt>isis.properties</tt>.
+ */
+public final class WizardSettings {
+
+    private WizardSettings() {
+    }
+
+    public static final String KEY_PREFIX = "isis.viewer.wicket.wizard.";
+
+    //region > navigation
+
+    public static final String KEY_NAVIGATION = KEY_PREFIX + "navigation";
+
+    public enum Navigation {
+        /**
+         * Redirect to a new <tt>EntityPage</tt> after each step (the default).
+         */
+        REDIRECT,
+        /**
+         * Repaint only the wizard's panel, updating the browser's URL using <tt>history.pushState</tt>.
+         */
+        AJAX,
+        /**
+         * Render all of the pages of a view model wizard (with a linear transition graph and
+         * {@link org.isisaddons.wicket.wizard.cpt.applib.WizardPage paged} properties) up front, moving between them
+         * in the browser; otherwise as {@link #AJAX}.
+         */
+        CLIENT
+    }
+
+    public static Navigation getNavigation() {
+        final String navigation = getConfiguration().getString(KEY_NAVIGATION, Navigation.REDIRECT.name());
+        try {
+            return Navigation.valueOf(navigation.trim().toUpperCase());
+        } catch(final IllegalArgumentException ex) {
+            return Navigation.REDIRECT;
+        }
+    }
+    //endregion
+
+    //region > prefetch
+
+    public static final String KEY_PREFETCH = KEY_PREFIX + "prefetch";
+
+    public enum Prefetch {
+        /**
+         * Never prefetch (the default).
+         */
+        NONE,
+        /**
+         * Prefetch the next page of view model wizards whose {@link
+         * org.isisaddons.wicket.wizard.cpt.metamodel.WizardStateGraph#isLinear() transition graph is linear}, so
+         * that the next page is known in advance.
+         */
+        LINEAR
+    }
+
+    /**
+     * Whether the next page of a wizard should be built speculatively, once the current page has been shown.
+     *
+     * <p>
+     * Only applies to {@link Navigation#AJAX AJAX navigation}, where the wizard's panel is rebuilt in place.
+     */
+    public static Prefetch getPrefetch() {
+        final String prefetch = getConfiguration().getString(KEY_PREFETCH, Prefetch.NONE.name());
+        try {
+            return Prefetch.valueOf(prefetch.trim().toUpperCase());
+        } catch(final IllegalArgumentException ex) {
+            return Prefetch.NONE;
+        }
+    }
+    //endregion
+
+    //region > metrics
+
+    public static final String KEY_METRICS_ENABLED = KEY_PREFIX + "metrics.enabled";
+
+    /**
+     * Whether the latencies of each wizard step are {@link org.isisaddons.wicket.wizard.cpt.metrics.WizardStepMetrics
+     * recorded} initially; may be switched on or off at runtime over JMX.
+     */
+    public static boolean isMetricsEnabled() {
+        return getConfiguration().getBoolean(KEY_METRICS_ENABLED, false);
+    }
+    //endregion
+
+    //region > warm-up
+
+    public static final String KEY_WARMUP_ENABLED = KEY_PREFIX + "warmup.enabled";
+    public static final String KEY_WARMUP_PACKAGE_PREFIX = KEY_PREFIX + "warmup.packagePrefix";
+    public static final String KEY_WARMUP_THREADS = KEY_PREFIX + "warmup.threads";
+    public static final String KEY_WARMUP_TIMEOUT_SECONDS = KEY_PREFIX + "warmup.timeoutSeconds";
+
+    /**
+     * The package prefix used to search for domain services, used as the default for
+     * {@link #getWarmupPackagePrefix()}.
+     */
+    private static final String KEY_SERVICES_PACKAGE_PREFIX = "isis.services.ServicesInstallerFromAnnotation.packagePrefix";
+
+    public static boolean isWarmupEnabled() {
+        return getConfiguration().getBoolean(KEY_WARMUP_ENABLED, false);
+    }
+
+    /**
+     * The package(s) to search for wizards to warm up; defaults to the package prefix used to search for services.
+     */
+    public static String getWarmupPackagePrefix() {
+        return getConfiguration().getString(KEY_WARMUP_PACKAGE_PREFIX, getConfiguration().getString(KEY_SERVICES_PACKAGE_PREFIX));
+    }
+
+    public static int getWarmupThreads() {
+        return getConfiguration().getInteger(KEY_WARMUP_THREADS, 2);
+    }
+
+    public static int getWarmupTimeoutSeconds() {
+        return getConfiguration().getInteger(KEY_WARMUP_TIMEOUT_SECONDS, 60);
+    }
+    //endregion
+
+    private static IsisConfiguration getConfiguration() {
+        return IsisContext.getConfiguration();
+    }
+
+}
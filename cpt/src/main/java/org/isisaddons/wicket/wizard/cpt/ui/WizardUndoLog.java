@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.google.common.base.Objects;
+import org.apache.isis.core.metamodel.adapter.ObjectAdapter;
+import org.apache.isis.core.metamodel.spec.feature.OneToOneAssociation;
+
+/**
+ * Records the original values of just those properties that a form is about to change, so that they can be
+ * restored if the changes turn out to be invalid.
+ *
+ * <p>
+ * The cost of taking the snapshot is proportional to the number of edits, rather than to the size of the object
+ * (as is the case for a {@link org.apache.isis.core.runtime.memento.Memento}).  However, it only knows about the
+ * properties that it records: if changing a property (through a <tt>modifyXxx()</tt> or <tt>clearXxx()</tt> method)
+ * can also change others, then take a <tt>Memento</tt> instead.
+ */
+public final class WizardUndoLog {
+
+    private final List<OneToOneAssociation> properties = new ArrayList<>();
+    private final List<ObjectAdapter> originalValues = new ArrayList<>();
+
+    /**
+     * Records the current value of the property if the pending value differs from it.
+     *
+     * @return whether the property will be changed (and so was recorded).
+     */
+    public boolean record(final OneToOneAssociation property, final ObjectAdapter adapter, final ObjectAdapter pendingValue) {
+        final ObjectAdapter currentValue = property.get(adapter);
+        if(Objects.equal(pojoOf(currentValue), pojoOf(pendingValue))) {
+            return false;
+        }
+        properties.add(property);
+        originalValues.add(currentValue);
+        return true;
+    }
+
+    /**
+     * Restores the recorded properties of the provided adapter to their original values, most recent first.
+     */
+    public void restore(final ObjectAdapter adapter) {
+        for (int i = properties.size() - 1; i >= 0; i--) {
+            properties.get(i).set(adapter, originalValues.get(i));
+        }
+    }
+
+    public int size() {
+        return properties.size();
+    }
+
+    public boolean isEmpty() {
+        return properties.isEmpty();
+    }
+
+    private static Object pojoOf(final ObjectAdapter adapter) {
+        return adapter != null ? adapter.getObject() : null;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import org.isisaddons.wicket.wizard.cpt.applib.Wizard;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardFacet;
+import org.reflections.Reflections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.wicket.Application;
+import org.apache.wicket.core.util.resource.locator.IResourceStreamLocator;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.apache.isis.core.metamodel.facets.object.membergroups.MemberGroupLayoutFacet;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
+import org.apache.isis.core.metamodel.spec.SpecificationLoader;
+import org.apache.isis.core.metamodel.spec.feature.Contributed;
+import org.apache.isis.core.runtime.system.context.IsisContext;
+
+/**
+ * Loads everything that the first request for each wizard would otherwise have to: the wizard's
+ * {@link ObjectSpecification} (including its layout), its {@link WizardFacet} (along with the lazily created page
+ * index and actions), and the markup and CSS of the wizard's panel.
+ *
+ * <p>
+ * Intended to be called once the metamodel has been built, typically from the <tt>init()</tt> of the Wicket
+ * application; see {@link WizardSettings#isWarmupEnabled()}.
+ */
+public class WizardWarmup {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WizardWarmup.class);
+
+    private static final String[] PANEL_RESOURCES = {
+            "WizardPropertiesPanel.html",
+            "WizardPropertiesPanel.css",
+            "WizardPropertiesForm.css"
+    };
+
+    private final Application application;
+    private final String packagePrefix;
+    private final int threads;
+    private final long timeoutSeconds;
+
+    public WizardWarmup(final Application application, final String packagePrefix, final int threads, final long timeoutSeconds) {
+        this.application = application;
+        this.packagePrefix = packagePrefix;
+        this.threads = Math.max(1, threads);
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Warms up using the {@link WizardSettings settings} from <tt>isis.properties</tt>, if enabled.
+     */
+    public static void warmUpIfEnabled(final Application application) {
+        if(!WizardSettings.isWarmupEnabled()) {
+            return;
+        }
+        final String packagePrefix = WizardSettings.getWarmupPackagePrefix();
+        if(packagePrefix == null) {
+            LOG.warn("No package prefix to search for wizards; skipping warm-up");
+            return;
+        }
+        new WizardWarmup(application, packagePrefix, WizardSettings.getWarmupThreads(), WizardSettings.getWarmupTimeoutSeconds()).warmUp();
+    }
+
+    //region > warmUp
+
+    public List<Timing> warmUp() {
+        final long start = System.nanoTime();
+
+        final List<Class<?>> wizardClasses = findWizardClasses();
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, wizardClasses.size() + 1), new WarmupThreadFactory());
+        final List<Timing> timings = Lists.newArrayList();
+        try {
+            final List<Callable<Timing>> tasks = Lists.newArrayList();
+            for (final Class<?> wizardClass : wizardClasses) {
+                tasks.add(new Callable<Timing>() {
+                    @Override
+                    public Timing call() {
+                        return warmUp(wizardClass);
+                    }
+                });
+            }
+            tasks.add(new Callable<Timing>() {
+                @Override
+                public Timing call() {
+                    return warmUpPanelResources();
+                }
+            });
+
+            final List<Future<Timing>> futures = executorService.invokeAll(tasks, timeoutSeconds, TimeUnit.SECONDS);
+            for (final Future<Timing> future : futures) {
+                try {
+                    timings.add(future.get());
+                } catch (final CancellationException ex) {
+                    LOG.warn("Wizard warm-up timed out after {}s", timeoutSeconds);
+                } catch (final ExecutionException ex) {
+                    LOG.warn("Wizard warm-up failed", ex.getCause());
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        report(timings, millisSince(start));
+        return timings;
+    }
+
+    private List<Class<?>> findWizardClasses() {
+        final List<Class<?>> wizardClasses = Lists.newArrayList();
+        final Object[] packagePrefixes = Iterables.toArray(Splitter.on(',').trimResults().omitEmptyStrings().split(packagePrefix), String.class);
+        for (final Class<?> cls : new Reflections(packagePrefixes).getSubTypesOf(Wizard.class)) {
+            if(!cls.isInterface() && !Modifier.isAbstract(cls.getModifiers())) {
+                wizardClasses.add(cls);
+            }
+        }
+        Collections.sort(wizardClasses, new Comparator<Class<?>>() {
+            @Override
+            public int compare(final Class<?> o1, final Class<?> o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        return wizardClasses;
+    }
+
+    private Timing warmUp(final Class<?> wizardClass) {
+        final Timing timing = new Timing(wizardClass.getName());
+
+        long start = System.nanoTime();
+        final ObjectSpecification specification = getSpecificationLoader().loadSpecification(wizardClass);
+        specification.getAssociations(Contributed.INCLUDED);
+        timing.specificationMillis = millisSince(start);
+
+        start = System.nanoTime();
+        final MemberGroupLayoutFacet layoutFacet = specification.getFacet(MemberGroupLayoutFacet.class);
+        if(layoutFacet != null) {
+            layoutFacet.getColumnSpans();
+        }
+        timing.layoutMillis = millisSince(start);
+
+        start = System.nanoTime();
+        final WizardFacet wizardFacet = specification.getFacet(WizardFacet.class);
+        if(wizardFacet != null) {
+            wizardFacet.getPageIndex();
+            wizardFacet.getNonWizardActions();
+        }
+        timing.facetMillis = millisSince(start);
+
+        return timing;
+    }
+
+    private Timing warmUpPanelResources() {
+        final Timing timing = new Timing(WizardPropertiesPanel.class.getSimpleName() + " resources");
+        final long start = System.nanoTime();
+        final IResourceStreamLocator locator = application.getResourceSettings().getResourceStreamLocator();
+        final String packagePath = WizardPropertiesPanel.class.getPackage().getName().replace('.', '/');
+        for (final String resource : PANEL_RESOURCES) {
+            final IResourceStream resourceStream = locator.locate(WizardPropertiesPanel.class, packagePath + "/" + resource);
+            if(resourceStream == null) {
+                LOG.warn("Could not locate {}", resource);
+                continue;
+            }
+            read(resourceStream);
+        }
+        timing.resourcesMillis = millisSince(start);
+        return timing;
+    }
+
+    private static void read(final IResourceStream resourceStream) {
+        try {
+            final InputStream inputStream = resourceStream.getInputStream();
+            try {
+                final byte[] buffer = new byte[4096];
+                while(inputStream.read(buffer) != -1) {
+                    // just reading
+                }
+            } finally {
+                resourceStream.close();
+            }
+        } catch (final ResourceStreamNotFoundException | IOException ex) {
+            LOG.warn("Could not read {}", resourceStream, ex);
+        }
+    }
+
+    private void report(final List<Timing> timings, final long totalMillis) {
+        if(!LOG.isInfoEnabled()) {
+            return;
+        }
+        final StringBuilder buf = new StringBuilder();
+        buf.append("Wizard warm-up completed in ").append(totalMillis).append("ms");
+        for (final Timing timing : timings) {
+            buf.append("\n    ").append(timing);
+        }
+        LOG.info(buf.toString());
+    }
+
+    private static long millisSince(final long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+    //endregion
+
+    //region > Timing
+
+    public static class Timing {
+        private final String name;
+        private long specificationMillis;
+        private long layoutMillis;
+        private long facetMillis;
+        private long resourcesMillis;
+
+        Timing(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSpecificationMillis() {
+            return specificationMillis;
+        }
+
+        public long getLayoutMillis() {
+            return layoutMillis;
+        }
+
+        public long getFacetMillis() {
+            return facetMillis;
+        }
+
+        public long getResourcesMillis() {
+            return resourcesMillis;
+        }
+
+        public long getTotalMillis() {
+            return specificationMillis + layoutMillis + facetMillis + resourcesMillis;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + getTotalMillis() + "ms" +
+                    " (specification " + specificationMillis + "ms" +
+                    ", layout " + layoutMillis + "ms" +
+                    ", facet " + facetMillis + "ms" +
+                    ", resources " + resourcesMillis + "ms)";
+        }
+    }
+    //endregion
+
+    private static class WarmupThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "wizard-warmup-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    protected SpecificationLoader getSpecificationLoader() {
+        return IsisContext.getSpecificationLoader();
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.applib;
+
+import java.util.Arrays;
+import java.util.Base64;
+import com.google.common.base.Strings;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class WizardMementoCodecTest {
+
+    private final SampleCodec codec = new SampleCodec(1);
+
+    @Test
+    public void roundTripUncompressed() {
+        final Sample sample = new Sample("Buy milk", Colour.GREEN, new LocalDate(2014, 6, 1), -42L, true);
+
+        final String memento = codec.mementoFor(sample);
+        assertThat(isDeflated(memento), is(false));
+
+        final Sample read = new Sample();
+        codec.initOf(memento, read);
+        assertThat(read, is(sample));
+    }
+
+    @Test
+    public void roundTripDeflated() {
+        final Sample sample = new Sample(Strings.repeat("Buy milk ", 100), Colour.RED, null, Long.MAX_VALUE, false);
+
+        final String memento = codec.mementoFor(sample);
+        assertThat(isDeflated(memento), is(true));
+
+        final Sample read = new Sample();
+        codec.initOf(memento, read);
+        assertThat(read, is(sample));
+    }
+
+    @Test
+    public void roundTripNulls() {
+        final Sample sample = new Sample(null, null, null, 0L, false);
+
+        final Sample read = new Sample();
+        codec.initOf(codec.mementoFor(sample), read);
+        assertThat(read.description, is(nullValue()));
+        assertThat(read, is(sample));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notBase64() {
+        codec.initOf("not a memento!", new Sample());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFormat() {
+        codec.initOf(encode(new byte[]{0x7F, 1}), new Sample());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncated() {
+        final byte[] bytes = decode(codec.mementoFor(new Sample("Buy milk", Colour.GREEN, new LocalDate(2014, 6, 1), 1L, true)));
+        codec.initOf(encode(Arrays.copyOf(bytes, bytes.length - 3)), new Sample());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedDeflated() {
+        final byte[] bytes = decode(codec.mementoFor(new Sample(Strings.repeat("Buy milk ", 100), Colour.RED, null, 1L, false)));
+        codec.initOf(encode(Arrays.copyOf(bytes, bytes.length / 2)), new Sample());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void corruptDeflated() {
+        final byte[] bytes = decode(codec.mementoFor(new Sample(Strings.repeat("Buy milk ", 100), Colour.RED, null, 1L, false)));
+        for (int i = 1; i < bytes.length; i++) {
+            bytes[i] = (byte) 0xFF;
+        }
+        codec.initOf(encode(bytes), new Sample());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void inflatingBeyondLimitIsRejected() {
+        // a few hundred bytes that inflate to well over the limit
+        final SampleCodec bigCodec = new SampleCodec(1);
+        final String memento = bigCodec.mementoFor(new Sample(Strings.repeat("x", WizardMementoCodec.MAX_INFLATED_BYTES + 1), null, null, 0L, false));
+        assertThat(memento.length() < 1024, is(true));
+
+        codec.initOf(memento, new Sample());
+    }
+
+    @Test
+    public void readsEarlierVersion() {
+        final String memento = codec.mementoFor(new Sample("Buy milk", Colour.GREEN, null, 1L, true));
+
+        final Sample read = new Sample();
+        new SampleCodec(2).initOf(memento, read);
+        assertThat(read.description, is("Buy milk"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLaterVersion() {
+        final String memento = new SampleCodec(2).mementoFor(new Sample("Buy milk", Colour.GREEN, null, 1L, true));
+        codec.initOf(memento, new Sample());
+    }
+
+    private static boolean isDeflated(final String memento) {
+        return (decode(memento)[0] & 0x80) != 0;
+    }
+
+    private static byte[] decode(final String memento) {
+        return Base64.getUrlDecoder().decode(memento);
+    }
+
+    private static String encode(final byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    enum Colour {
+        RED, GREEN
+    }
+
+    static class Sample {
+        String description;
+        Colour colour;
+        LocalDate dueBy;
+        long count;
+        boolean complete;
+
+        Sample() {
+        }
+
+        Sample(final String description, final Colour colour, final LocalDate dueBy, final long count, final boolean complete) {
+            this.description = description;
+            this.colour = colour;
+            this.dueBy = dueBy;
+            this.count = count;
+            this.complete = complete;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if(!(obj instanceof Sample)) {
+                return false;
+            }
+            final Sample other = (Sample) obj;
+            return com.google.common.base.Objects.equal(description, other.description) &&
+                    colour == other.colour &&
+                    com.google.common.base.Objects.equal(dueBy, other.dueBy) &&
+                    count == other.count &&
+                    complete == other.complete;
+        }
+
+        @Override
+        public int hashCode() {
+            return com.google.common.base.Objects.hashCode(description, colour, dueBy, count, complete);
+        }
+    }
+
+    static class SampleCodec extends WizardMementoCodec<Sample> {
+
+        SampleCodec(final int version) {
+            super(version);
+        }
+
+        @Override
+        protected void write(final Sample wizard, final Output output) {
+            output.writeString(wizard.description)
+                  .writeEnum(wizard.colour)
+                  .writeDate(wizard.dueBy)
+                  .writeLong(wizard.count)
+                  .writeBoolean(wizard.complete);
+        }
+
+        @Override
+        protected void read(final Input input, final int version, final Sample wizard) {
+            wizard.description = input.readString();
+            wizard.colour = input.readEnum(Colour.class);
+            wizard.dueBy = input.readDate();
+            wizard.count = input.readLong();
+            wizard.complete = input.readBoolean();
+        }
+    }
+}
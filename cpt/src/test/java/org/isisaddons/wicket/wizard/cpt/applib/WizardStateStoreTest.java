@@ -0,0 +1,177 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.applib;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class WizardStateStoreTest {
+
+    private long now;
+    private WizardStateStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new WizardStateStore() {
+            @Override
+            protected String currentSession() {
+                return null;
+            }
+
+            @Override
+            long now() {
+                return now;
+            }
+        };
+        store.init(properties(3, 2, 60));
+    }
+
+    @Test
+    public void disabledPassesThrough() {
+        store.init(ImmutableMap.<String, String>of());
+
+        assertThat(store.mementoFor("sven", "s1", "AQID"), is("AQID"));
+        assertThat(store.resolve("sven", "AQID"), is("AQID"));
+    }
+
+    @Test
+    public void roundTrip() {
+        final String token = store.mementoFor("sven", "s1", "AQID");
+
+        assertThat(token.startsWith(WizardStateStore.TOKEN_PREFIX), is(true));
+        assertThat(store.mementoFor("sven", "s1", "AQID"), is(token));
+        assertThat(store.resolve("sven", token), is("AQID"));
+        assertThat(store.resolve("sven", "AQID"), is("AQID"));
+        assertThat(store.getStatistics().getHits(), is(1L));
+    }
+
+    @Test
+    public void onlyResolvesForOwner() {
+        final String token = store.mementoFor("sven", "s1", "AQID");
+
+        assertThat(store.resolve("dick", token), is(nullValue()));
+        assertThat(store.resolve(null, token), is(nullValue()));
+        assertThat(store.getStatistics().getMisses(), is(2L));
+
+        // not removed by someone else's attempt
+        assertThat(store.resolve("sven", token), is("AQID"));
+    }
+
+    @Test
+    public void sameMementoOfDifferentOwnersHasDifferentTokens() {
+        assertThat(store.mementoFor("sven", "s1", "AQID"), is(not(store.mementoFor("dick", "s2", "AQID"))));
+    }
+
+    @Test
+    public void expiresWhenIdle() {
+        final String token1 = store.mementoFor("sven", "s1", "AQID");
+        final String token2 = store.mementoFor("sven", "s1", "BAUG");
+
+        now += TimeUnit.SECONDS.toNanos(45);
+        assertThat(store.resolve("sven", token2), is("BAUG"));
+
+        now += TimeUnit.SECONDS.toNanos(45);
+        assertThat(store.resolve("sven", token1), is(nullValue()));
+        assertThat(store.resolve("sven", token2), is("BAUG"));
+        assertThat(store.getStatistics().getExpirations(), is(1L));
+        assertThat(store.getStatistics().getSize(), is(1));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOfSession() {
+        final String token1 = store.mementoFor("sven", "s1", "AQID");
+        final String token2 = store.mementoFor("sven", "s1", "BAUG");
+        final String other = store.mementoFor("sven", "s2", "BwgJ");
+
+        // token1 is now more recently used than token2
+        assertThat(store.resolve("sven", token1), is("AQID"));
+        final String token3 = store.mementoFor("sven", "s1", "CgsM");
+
+        assertThat(store.resolve("sven", token2), is(nullValue()));
+        assertThat(store.resolve("sven", token1), is("AQID"));
+        assertThat(store.resolve("sven", token3), is("CgsM"));
+        assertThat(store.resolve("sven", other), is("BwgJ"));
+        assertThat(store.getStatistics().getEvictions(), is(1L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverall() {
+        final String token1 = store.mementoFor("sven", "s1", "AQID");
+        final String token2 = store.mementoFor("dick", "s2", "BAUG");
+        final String token3 = store.mementoFor("bob", "s3", "BwgJ");
+
+        assertThat(store.resolve("sven", token1), is("AQID"));
+        store.mementoFor("joe", "s4", "CgsM");
+
+        assertThat(store.resolve("dick", token2), is(nullValue()));
+        assertThat(store.resolve("sven", token1), is("AQID"));
+        assertThat(store.resolve("bob", token3), is("BwgJ"));
+        assertThat(store.getStatistics().getSize(), is(3));
+    }
+
+    @Test
+    public void withoutSessionQuotaIsPerOwner() {
+        final String token1 = store.mementoFor("sven", null, "AQID");
+        store.mementoFor("sven", null, "BAUG");
+        store.mementoFor("sven", null, "BwgJ");
+
+        assertThat(store.resolve("sven", token1), is(nullValue()));
+        assertThat(store.getStatistics().getEvictions(), is(1L));
+    }
+
+    @Test
+    public void statisticsOverJmx() throws Exception {
+        final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        final WizardStateStoreMetrics metrics = new WizardStateStoreMetrics(store, mBeanServer);
+        metrics.register();
+
+        final String token = store.mementoFor("sven", "s1", "AQID");
+        store.resolve("sven", token);
+        store.resolve("dick", token);
+
+        final ObjectName objectName = new ObjectName(WizardStateStoreMetrics.OBJECT_NAME);
+        assertThat(mBeanServer.getAttribute(objectName, "Hits"), is((Object) 1L));
+        assertThat(mBeanServer.getAttribute(objectName, "Misses"), is((Object) 1L));
+        assertThat(mBeanServer.getAttribute(objectName, "Size"), is((Object) 1));
+        assertThat(mBeanServer.getAttribute(objectName, "MaxEntriesPerSession"), is((Object) 2));
+
+        mBeanServer.invoke(objectName, "reset", null, null);
+        assertThat(store.getStatistics().getHits(), is(0L));
+
+        metrics.unregister();
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+    }
+
+    private static Map<String, String> properties(final int maxEntries, final int maxEntriesPerSession, final int idleTimeoutSeconds) {
+        return ImmutableMap.of(
+                WizardStateStore.KEY_PREFIX + "enabled", "true",
+                WizardStateStore.KEY_PREFIX + "maxEntries", String.valueOf(maxEntries),
+                WizardStateStore.KEY_PREFIX + "maxEntriesPerSession", String.valueOf(maxEntriesPerSession),
+                WizardStateStore.KEY_PREFIX + "idleTimeoutSeconds", String.valueOf(idleTimeoutSeconds));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metamodel;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardInteraceFacetFactoryTest.OrderWizard;
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.apache.isis.core.metamodel.facets.ImperativeFacet;
+import org.apache.isis.core.metamodel.facets.actions.action.invocation.ActionInvocationFacet;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
+import org.apache.isis.core.metamodel.spec.feature.Contributed;
+import org.apache.isis.core.metamodel.spec.feature.ObjectAction;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2.Mode;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WizardFacetForInterfaceTest {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(Mode.INTERFACES_ONLY);
+
+    @Mock
+    private ObjectSpecification mockSpecification;
+
+    private WizardFacetForInterface facet;
+
+    @Before
+    public void setUp() throws Exception {
+        facet = new WizardFacetForInterface(mockSpecification, SteppingOrderWizard.class, null, false);
+    }
+
+    @Test
+    public void wizardActionsIncludeOverriddenAndBridgeMethods() throws Exception {
+        int bridges = 0;
+        for (final Method method : SteppingOrderWizard.class.getDeclaredMethods()) {
+            if(method.getName().equals("next") && method.getParameterTypes().length == 0) {
+                assertThat(method.toString(), facet.isWizardAction(actionFor(method)), is(true));
+                if(method.isBridge()) {
+                    bridges++;
+                }
+            }
+        }
+        assertThat(bridges > 0, is(true));
+
+        assertThat(facet.isWizardAction(actionFor(AbstractWizard.class.getMethod("previous"))), is(true));
+        assertThat(facet.isWizardAction(actionFor(OrderWizard.class.getMethod("finish"))), is(true));
+        assertThat(facet.isWizardAction(actionFor(OrderWizard.class.getMethod("disableFinish"))), is(true));
+    }
+
+    @Test
+    public void nonWizardMethodsAreNotWizardActions() throws Exception {
+        // an overload of next(), with the same name but not implementing Wizard
+        assertThat(facet.isWizardAction(actionFor(SteppingOrderWizard.class.getMethod("next", int.class))), is(false));
+        assertThat(facet.isWizardAction(actionFor(SteppingOrderWizard.class.getMethod("placeOrder"))), is(false));
+        assertThat(facet.isWizardAction(actionWithoutInvocationFacet()), is(false));
+    }
+
+    @Test
+    public void wizardActionsLookedUpInMethodsOfThisWizard() throws Exception {
+        // another wizard's next() is matched by the reflective fallback, but is not in this wizard's precomputed set
+        final ObjectAction anotherWizardsNext = actionFor(AnotherOrderWizard.class.getDeclaredMethod("next"));
+
+        final WizardFacetForInterface facetWithoutClass = new WizardFacetForInterface(mockSpecification);
+        assertThat(facetWithoutClass.isWizardAction(anotherWizardsNext), is(true));
+        assertThat(facet.isWizardAction(anotherWizardsNext), is(false));
+    }
+
+    @Test
+    public void nonWizardActionsExcludeTheWizardsOwnActions() throws Exception {
+        final ObjectAction next = actionFor(SteppingOrderWizard.class.getMethod("next"));
+        final ObjectAction finish = actionFor(OrderWizard.class.getMethod("finish"));
+        final ObjectAction placeOrder = actionFor(SteppingOrderWizard.class.getMethod("placeOrder"));
+        final ObjectAction contributed = actionWithoutInvocationFacet();
+        context.checking(new Expectations() {{
+            // determined once, then cached
+            oneOf(mockSpecification).getObjectActions(Contributed.INCLUDED);
+            will(returnValue(Arrays.asList(next, placeOrder, finish, contributed)));
+        }});
+
+        assertThat(facet.getNonWizardActions(), is(Arrays.asList(placeOrder, contributed)));
+        assertThat(facet.getNonWizardActions(), is(Arrays.asList(placeOrder, contributed)));
+    }
+
+    //region > helpers
+
+    /**
+     * Combines the two facet types, as for the viewer's action invocation facets.
+     */
+    interface ImperativeActionInvocationFacet extends ActionInvocationFacet, ImperativeFacet {
+    }
+
+    private int actions;
+
+    private ObjectAction actionFor(final Method method) {
+        final ObjectAction action = context.mock(ObjectAction.class, "action" + ++actions);
+        final ImperativeActionInvocationFacet invocationFacet =
+                context.mock(ImperativeActionInvocationFacet.class, "invocationFacet" + actions);
+        context.checking(new Expectations() {{
+            allowing(action).getFacet(ActionInvocationFacet.class);
+            will(returnValue(invocationFacet));
+            allowing(invocationFacet).getMethods();
+            will(returnValue(Collections.singletonList(method)));
+        }});
+        return action;
+    }
+
+    private ObjectAction actionWithoutInvocationFacet() {
+        final ObjectAction action = context.mock(ObjectAction.class, "action" + ++actions);
+        context.checking(new Expectations() {{
+            allowing(action).getFacet(ActionInvocationFacet.class);
+            will(returnValue(null));
+        }});
+        return action;
+    }
+    //endregion
+
+    /**
+     * Overrides <tt>next()</tt> with a covariant return type, so is compiled with bridge methods.
+     */
+    public static class SteppingOrderWizard extends OrderWizard {
+
+        @Override
+        public SteppingOrderWizard next() {
+            return this;
+        }
+
+        public SteppingOrderWizard next(final int pages) {
+            return this;
+        }
+
+        public void placeOrder() {
+        }
+    }
+
+    public static class AnotherOrderWizard extends OrderWizard {
+
+        @Override
+        public AnotherOrderWizard next() {
+            return this;
+        }
+    }
+}
@@ -16,6 +16,9 @@
  */
 package org.isisaddons.wicket.wizard.cpt.metamodel;
 
+import java.lang.reflect.Method;
+import java.util.Set;
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
 import org.isisaddons.wicket.wizard.cpt.applib.Wizard;
 import org.apache.isis.core.metamodel.facetapi.Facet;
 import org.apache.isis.core.metamodel.facets.AbstractFacetFactoryTest;
@@ -84,7 +87,166 @@ public String disableFinish() {
         final Facet facet = facetedMethod.getFacet(WizardFacet.class);
         assertNotNull(facet);
         assertTrue(facet instanceof WizardFacetForInterface);
+        assertNull(((WizardFacet) facet).getStateGraph());
 
         assertNoMethodsRemoved();
     }
+
+    public void testStateGraphPrecompiledForEnumState() {
+
+        facetFactory.process(new ProcessClassContext(OrderWizard.class, methodRemover, facetedMethod));
+
+        final WizardFacet facet = facetedMethod.getFacet(WizardFacet.class);
+        final WizardStateGraph graph = facet.getStateGraph();
+        assertNotNull(graph);
+
+        assertEquals(OrderWizard.State.class, graph.getStateType());
+        assertEquals(OrderWizard.State.START, graph.getFirst());
+        assertEquals(OrderWizard.State.CONFIRM, graph.getLast());
+        assertEquals(3, graph.getPageCount());
+
+        assertEquals(OrderWizard.State.DETAILS, graph.next(OrderWizard.State.START));
+        assertNull(graph.next(OrderWizard.State.CONFIRM));
+        assertEquals(OrderWizard.State.START, graph.previous(OrderWizard.State.DETAILS));
+        assertNull(graph.previous(OrderWizard.State.START));
+
+        assertEquals(1, graph.pageIndexOf(OrderWizard.State.DETAILS));
+        assertFalse(graph.isReachable(OrderWizard.State.UNUSED));
+        assertEquals(-1, graph.pageIndexOf(OrderWizard.State.UNUSED));
+        assertTrue(graph.isLinear());
+
+        final OrderWizard wizard = new OrderWizard();
+        wizard.setState(OrderWizard.State.START);
+        assertEquals("No more pages", facet.disablePrevious(wizard));
+        assertNull(facet.disableNext(wizard));
+
+        final WizardNavigationState navigationState = facet.navigationStateOf(wizard);
+        assertEquals(OrderWizard.State.START, navigationState.getPage());
+        assertEquals(0, navigationState.getPageIndex());
+        assertEquals(3, navigationState.getPageCount());
+        assertTrue(navigationState.isNextEnabled());
+        assertFalse(navigationState.isPreviousEnabled());
+        assertEquals("No more pages", navigationState.getDisablePreviousReason());
+        assertTrue(navigationState.isFinishEnabled());
+    }
+
+    public void testTransitionsInPlaceWhenNextAndPreviousNotOverridden() {
+
+        facetFactory.process(new ProcessClassContext(OrderWizard.class, methodRemover, facetedMethod));
+
+        final WizardFacet facet = facetedMethod.getFacet(WizardFacet.class);
+        final OrderWizard wizard = new OrderWizard();
+        wizard.setState(OrderWizard.State.START);
+
+        facet.next(wizard);
+        assertEquals(OrderWizard.State.DETAILS, wizard.getState());
+        assertEquals(0, wizard.clones);
+
+        facet.previous(wizard);
+        assertEquals(OrderWizard.State.START, wizard.getState());
+        assertEquals(0, wizard.clones);
+    }
+
+    public void testWizardMethodsResolvedIncludingOverrides() throws Exception {
+
+        final Set<Method> wizardMethods = WizardFacetForInterface.wizardMethodsOf(OrderWizard.class);
+
+        assertTrue(wizardMethods.contains(Wizard.class.getMethod("next")));
+        assertTrue(wizardMethods.contains(AbstractWizard.class.getMethod("next")));
+        assertTrue(wizardMethods.contains(OrderWizard.class.getMethod("finish")));
+        assertTrue(wizardMethods.contains(OrderWizard.class.getMethod("disableFinish")));
+        assertFalse(wizardMethods.contains(OrderWizard.class.getMethod("getState")));
+        assertFalse(wizardMethods.contains(OrderWizard.class.getMethod("viewModelMemento")));
+    }
+
+    public void testModifyOrClearMethodsDetected() throws Exception {
+
+        assertFalse(WizardFacetForInterface.hasModifyOrClearMethods(OrderWizard.class));
+        assertTrue(WizardFacetForInterface.hasModifyOrClearMethods(ModifyingOrderWizard.class));
+
+        facetFactory.process(new ProcessClassContext(ModifyingOrderWizard.class, methodRemover, facetedMethod));
+        assertTrue(facetedMethod.getFacet(WizardFacet.class).hasModifyOrClearMethods());
+    }
+
+    public static class ModifyingOrderWizard extends OrderWizard {
+
+        private String notes;
+
+        public String getNotes() {
+            return notes;
+        }
+
+        public void setNotes(final String notes) {
+            this.notes = notes;
+        }
+
+        public void clearNotes() {
+            setNotes(null);
+            setState(State.START);
+        }
+    }
+
+    public static class OrderWizard extends AbstractWizard<OrderWizard, OrderWizard.State> {
+
+        public enum State implements AbstractWizard.State<OrderWizard> {
+            START, DETAILS, CONFIRM, UNUSED;
+
+            @Override
+            public State next() {
+                switch (this) {
+                    case START: return DETAILS;
+                    case DETAILS: return CONFIRM;
+                    default: return null;
+                }
+            }
+            @Override
+            public String disableNext(OrderWizard w) {
+                return null;
+            }
+            @Override
+            public State previous() {
+                switch (this) {
+                    case CONFIRM: return DETAILS;
+                    case DETAILS: return START;
+                    default: return null;
+                }
+            }
+            @Override
+            public String disablePrevious(OrderWizard w) {
+                return null;
+            }
+        }
+
+        @Override
+        public String viewModelMemento() {
+            return null;
+        }
+
+        @Override
+        public void viewModelInit(String memento) {
+        }
+
+        @Override
+        public OrderWizard clone() {
+            return this;
+        }
+
+        int clones;
+
+        @Override
+        protected OrderWizard cloneThis() {
+            clones++;
+            return this;
+        }
+
+        @Override
+        public Object finish() {
+            return null;
+        }
+
+        @Override
+        public String disableFinish() {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metamodel;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import org.isisaddons.wicket.wizard.cpt.applib.WizardPage;
+import org.apache.isis.core.metamodel.facetapi.FeatureType;
+import org.apache.isis.core.metamodel.facets.AbstractFacetFactoryTest;
+import org.apache.isis.core.metamodel.facets.FacetFactory.ProcessMethodContext;
+
+public class WizardPageFacetFactoryTest extends AbstractFacetFactoryTest {
+
+    private WizardPageFacetFactory facetFactory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        facetFactory = new WizardPageFacetFactory();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        facetFactory = null;
+        super.tearDown();
+    }
+
+    public void testWizardPageAnnotationPickedUpOnProperty() throws Exception {
+        class Customer {
+            @WizardPage({"NAME", "SUMMARY"})
+            public String getName() {
+                return null;
+            }
+        }
+        final Method method = Customer.class.getMethod("getName");
+
+        facetFactory.process(new ProcessMethodContext(Customer.class, FeatureType.PROPERTY, null, method, methodRemover, facetedMethod));
+
+        final WizardPageFacet facet = facetedMethod.getFacet(WizardPageFacet.class);
+        assertNotNull(facet);
+        assertTrue(facet.getPages().contains("NAME"));
+        assertTrue(facet.getPages().contains("SUMMARY"));
+        assertTrue(facet.isShownOn(Page.SUMMARY));
+        assertFalse(facet.isShownOn(Page.ADDRESS));
+
+        assertNoMethodsRemoved();
+    }
+
+    public void testNoFacetWhenNotAnnotated() throws Exception {
+        class Customer {
+            public String getName() {
+                return null;
+            }
+        }
+        final Method method = Customer.class.getMethod("getName");
+
+        facetFactory.process(new ProcessMethodContext(Customer.class, FeatureType.PROPERTY, null, method, methodRemover, facetedMethod));
+
+        assertNull(facetedMethod.getFacet(WizardPageFacet.class));
+    }
+
+    public void testPagesThatAreNotStatesAreUnknown() throws Exception {
+        final WizardStateGraph stateGraph = WizardStateGraph.introspect(WizardInteraceFacetFactoryTest.OrderWizard.class);
+        final WizardPageFacet facet = new WizardPageFacetForAnnotation(new String[]{"START", "DETAIL", "CONFIRM"}, facetedMethod);
+
+        assertEquals(Collections.singleton("DETAIL"), WizardPageIndex.unknownPages(facet, stateGraph));
+    }
+
+    public void testNoUnknownPagesWhenAllAreStates() throws Exception {
+        final WizardStateGraph stateGraph = WizardStateGraph.introspect(WizardInteraceFacetFactoryTest.OrderWizard.class);
+        final WizardPageFacet facet = new WizardPageFacetForAnnotation(new String[]{"START", "DETAILS"}, facetedMethod);
+
+        assertTrue(WizardPageIndex.unknownPages(facet, stateGraph).isEmpty());
+    }
+
+    enum Page {
+        NAME, ADDRESS, SUMMARY
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import org.junit.Assume;
+import static org.junit.Assert.fail;
+
+/**
+ * Test utility asserting that the bytes allocated by an operation are within the budget recorded for it in a
+ * checked-in baseline file.
+ *
+ * <p>
+ * Allocation is measured (for the current thread, or for a thread that the caller has measured itself) using
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}; if the JVM does not support this then the
+ * assertions are skipped.  Each operation is warmed up (so that what is measured is the allocation once JIT-compiled,
+ * eg after escape analysis), and then the least bytes per operation over several rounds is taken.
+ *
+ * <p>
+ * The baseline file is <tt>allocation-budgets.properties</tt>, in the same package as the test, holding the bytes
+ * per operation keyed by name.  Because the allocation of the same code differs between JVMs, a budget can be recorded
+ * for a particular Java version by suffixing its name with eg <tt>.java8</tt> or <tt>.java17</tt>; this is used in
+ * preference to the unsuffixed budget, if any.  A measurement fails if it exceeds the baseline by more than the tolerance, which
+ * defaults to {@value #DEFAULT_TOLERANCE_PERCENT}% (and is never less than {@value #MIN_TOLERANCE_BYTES} bytes) and
+ * can be overridden using the <tt>{@value #KEY_TOLERANCE}</tt> system property.
+ *
+ * <p>
+ * To (re-)record the baseline, run with <tt>-D{@value #KEY_RECORD}=true</tt>: nothing fails, and the measurements
+ * are printed in the format of the baseline file, keyed for the running Java version.  Otherwise an operation with no baseline fails (with the
+ * measurement in the message).
+ */
+public final class AllocationBudget {
+
+    public static final String BASELINE_FILE = "allocation-budgets.properties";
+
+    public static final String KEY_TOLERANCE = "isis.viewer.wicket.wizard.allocationTolerance";
+    public static final int DEFAULT_TOLERANCE_PERCENT = 10;
+    public static final int MIN_TOLERANCE_BYTES = 64;
+
+    public static final String KEY_RECORD = "isis.viewer.wicket.wizard.allocationBudgets.record";
+
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int ITERATIONS = 2000;
+    private static final int ROUNDS = 5;
+
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    private final String baselineName;
+    private final Properties baseline;
+
+    private AllocationBudget(final String baselineName, final Properties baseline) {
+        this.baselineName = baselineName;
+        this.baseline = baseline;
+    }
+
+    /**
+     * The budgets in the baseline file in the package of the provided test class.
+     */
+    public static AllocationBudget forTest(final Class<?> testClass) {
+        final Properties baseline = new Properties();
+        final InputStream in = testClass.getResourceAsStream(BASELINE_FILE);
+        if(in != null) {
+            try {
+                try {
+                    baseline.load(in);
+                } finally {
+                    in.close();
+                }
+            } catch (final IOException ex) {
+                throw new IllegalStateException("Could not read " + BASELINE_FILE + " for " + testClass.getName(), ex);
+            }
+        }
+        return new AllocationBudget(testClass.getPackage().getName().replace('.', '/') + "/" + BASELINE_FILE, baseline);
+    }
+
+    //region > measure
+
+    /**
+     * The bytes allocated by the current thread so far; skips the test if this cannot be measured.
+     */
+    public static long allocatedBytes() {
+        return allocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static long allocatedBytes(final long threadId) {
+        final com.sun.management.ThreadMXBean threadMXBean = threadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(threadId);
+    }
+
+    /**
+     * The least bytes allocated per operation (once warmed up) over several rounds.
+     */
+    public static long bytesPerOperation(final Operation operation) throws Exception {
+        threadMXBean();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        long least = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long before = allocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                operation.run();
+            }
+            least = Math.min(least, (allocatedBytes() - before) / ITERATIONS);
+        }
+        return least;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("thread allocation cannot be measured on this JVM",
+                threadMXBean instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported());
+        final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if(!sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+            sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return sunThreadMXBean;
+    }
+    //endregion
+
+    //region > assert
+
+    /**
+     * @return the bytes allocated per operation, for reporting.
+     */
+    public long assertWithinBudget(final String name, final Operation operation) throws Exception {
+        return assertWithinBudget(name, bytesPerOperation(operation));
+    }
+
+    /**
+     * @param bytes - as measured by the caller, eg for an operation performed on some other thread.
+     * @return the bytes, for reporting.
+     */
+    public long assertWithinBudget(final String name, final long bytes) {
+        final String jvmName = name + javaVersionSuffix();
+        if(Boolean.getBoolean(KEY_RECORD)) {
+            System.out.println(jvmName + "=" + bytes);
+            return bytes;
+        }
+        final String budgetStr = baseline.getProperty(jvmName, baseline.getProperty(name));
+        if(budgetStr == null) {
+            fail("no allocation budget for '" + name + "' in " + baselineName + " (measured " + bytes +
+                    " bytes; add '" + jvmName + "=" + bytes + "')");
+        }
+
+        final long budget = Long.parseLong(budgetStr.trim());
+        final long limit = budget + Math.max(budget * tolerancePercent() / 100, MIN_TOLERANCE_BYTES);
+        if(bytes > limit) {
+            fail(name + " allocates " + bytes + " bytes, over its budget of " + budget + " bytes (limit " + limit +
+                    " bytes, with tolerance); if expected, update " + baselineName);
+        }
+        return bytes;
+    }
+
+    /**
+     * <tt>.java8</tt>, <tt>.java17</tt> etc, for the feature release of the running JVM.
+     */
+    static String javaVersionSuffix() {
+        final String version = System.getProperty("java.specification.version");
+        return ".java" + (version.startsWith("1.") ? version.substring(2) : version);
+    }
+
+    private static int tolerancePercent() {
+        return Integer.getInteger(KEY_TOLERANCE, DEFAULT_TOLERANCE_PERCENT);
+    }
+    //endregion
+}
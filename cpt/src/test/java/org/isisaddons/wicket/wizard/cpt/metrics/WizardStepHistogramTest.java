@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class WizardStepHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        long expectedLowest = 0;
+        for (int i = 0; i < WizardStepHistogram.BUCKET_COUNT; i++) {
+            final long highest = WizardStepHistogram.highestValueOf(i);
+            assertThat(WizardStepHistogram.indexOf(expectedLowest), is(i));
+            assertThat(WizardStepHistogram.indexOf(highest), is(i));
+            expectedLowest = highest + 1;
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinPrecision() {
+        final WizardStepHistogram histogram = new WizardStepHistogram();
+        for (long micros = 1; micros <= 10000; micros++) {
+            histogram.record(micros);
+        }
+
+        assertThat(histogram.getCount(), is(10000L));
+        assertThat(histogram.getMaxMicros(), is(10000L));
+        assertThat(histogram.getMeanMicros(), is(5000.5));
+        assertWithinPrecision(histogram.getP50Micros(), 5000);
+        assertWithinPrecision(histogram.getP90Micros(), 9000);
+        assertWithinPrecision(histogram.getP99Micros(), 9900);
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        final WizardStepHistogram histogram = new WizardStepHistogram();
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getCount(), is(2L));
+        assertThat(histogram.percentile(0), is(0L));
+        assertThat(histogram.percentile(100), is(histogram.getMaxMicros()));
+    }
+
+    @Test
+    public void reset() {
+        final WizardStepHistogram histogram = new WizardStepHistogram();
+        histogram.record(123);
+        histogram.reset();
+
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMaxMicros(), is(0L));
+        assertThat(histogram.getP50Micros(), is(0L));
+    }
+
+    private static void assertWithinPrecision(final long actual, final long expected) {
+        assertThat(actual, is(greaterThanOrEqualTo(expected)));
+        assertThat(actual, is(lessThanOrEqualTo(expected + expected / 16)));
+    }
+}
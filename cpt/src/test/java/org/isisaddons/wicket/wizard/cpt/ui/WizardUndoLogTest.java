@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.cpt.ui;
+
+import org.jmock.Expectations;
+import org.jmock.Sequence;
+import org.jmock.auto.Mock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.apache.isis.core.metamodel.adapter.ObjectAdapter;
+import org.apache.isis.core.metamodel.spec.feature.OneToOneAssociation;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2.Mode;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WizardUndoLogTest {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(Mode.INTERFACES_ONLY);
+
+    @Mock
+    private ObjectAdapter mockWizard;
+
+    @Mock
+    private OneToOneAssociation mockDescription;
+
+    @Mock
+    private OneToOneAssociation mockCategory;
+
+    @Mock
+    private OneToOneAssociation mockDueBy;
+
+    private int values;
+
+    @Test
+    public void recordsOnlyChangedProperties() {
+        allowingValue(mockDescription, adapterFor("Buy milk"));
+        allowingValue(mockCategory, adapterFor("Domestic"));
+        allowingValue(mockDueBy, null);
+
+        final WizardUndoLog undoLog = new WizardUndoLog();
+
+        assertThat(undoLog.record(mockDescription, mockWizard, adapterFor("Buy milk")), is(false));
+        assertThat(undoLog.record(mockCategory, mockWizard, adapterFor("Professional")), is(true));
+        assertThat(undoLog.record(mockDueBy, mockWizard, null), is(false));
+        assertThat(undoLog.record(mockDueBy, mockWizard, adapterFor("2014-06-01")), is(true));
+
+        assertThat(undoLog.size(), is(2));
+    }
+
+    @Test
+    public void sizeIsBoundedByEditsNotWidth() {
+        final WizardUndoLog undoLog = new WizardUndoLog();
+        for (int i = 0; i < 200; i++) {
+            final OneToOneAssociation property = context.mock(OneToOneAssociation.class, "property" + i);
+            allowingValue(property, adapterFor("value" + i));
+            undoLog.record(property, mockWizard, adapterFor(i < 5 ? "edited" + i : "value" + i));
+        }
+
+        assertThat(undoLog.size(), is(5));
+    }
+
+    @Test
+    public void nothingToRestoreWhenNothingChanged() {
+        allowingValue(mockDescription, adapterFor("Buy milk"));
+
+        final WizardUndoLog undoLog = new WizardUndoLog();
+        undoLog.record(mockDescription, mockWizard, adapterFor("Buy milk"));
+
+        assertThat(undoLog.isEmpty(), is(true));
+
+        // no expectations on set(...)
+        undoLog.restore(mockWizard);
+    }
+
+    @Test
+    public void restoresMostRecentFirst() {
+        final ObjectAdapter domestic = adapterFor("Domestic");
+        final ObjectAdapter professional = adapterFor("Professional");
+        context.checking(new Expectations() {{
+            // applied, then recorded again by a later change
+            oneOf(mockCategory).get(mockWizard);
+            will(returnValue(domestic));
+            oneOf(mockCategory).get(mockWizard);
+            will(returnValue(professional));
+        }});
+        allowingValue(mockDueBy, null);
+
+        final WizardUndoLog undoLog = new WizardUndoLog();
+        undoLog.record(mockCategory, mockWizard, professional);
+        undoLog.record(mockDueBy, mockWizard, adapterFor("2014-06-01"));
+        undoLog.record(mockCategory, mockWizard, adapterFor("Other"));
+
+        final Sequence restore = context.sequence("restore");
+        context.checking(new Expectations() {{
+            oneOf(mockCategory).set(mockWizard, professional);
+            inSequence(restore);
+            oneOf(mockDueBy).set(mockWizard, null);
+            inSequence(restore);
+            oneOf(mockCategory).set(mockWizard, domestic);
+            inSequence(restore);
+        }});
+
+        undoLog.restore(mockWizard);
+    }
+
+    @Test
+    public void canBeRestoredToEachAdapter() {
+        final ObjectAdapter mockClone = context.mock(ObjectAdapter.class, "clone");
+        final ObjectAdapter domestic = adapterFor("Domestic");
+        allowingValue(mockCategory, domestic);
+
+        final WizardUndoLog undoLog = new WizardUndoLog();
+        undoLog.record(mockCategory, mockWizard, adapterFor("Professional"));
+
+        // a cloned view model is restored after the original, so restoring does not reset the log
+        context.checking(new Expectations() {{
+            oneOf(mockCategory).set(mockWizard, domestic);
+            oneOf(mockCategory).set(mockClone, domestic);
+        }});
+
+        undoLog.restore(mockWizard);
+        undoLog.restore(mockClone);
+
+        assertThat(undoLog.size(), is(1));
+    }
+
+    private void allowingValue(final OneToOneAssociation property, final ObjectAdapter value) {
+        context.checking(new Expectations() {{
+            allowing(property).get(mockWizard);
+            will(returnValue(value));
+        }});
+    }
+
+    private ObjectAdapter adapterFor(final Object pojo) {
+        final ObjectAdapter adapter = context.mock(ObjectAdapter.class, "value" + values++ + "=" + pojo);
+        context.checking(new Expectations() {{
+            allowing(adapter).getObject();
+            will(returnValue(pojo));
+        }});
+        return adapter;
+    }
+}
@@ -18,6 +18,8 @@
 
 import com.google.common.base.Strings;
 import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
+import org.isisaddons.wicket.wizard.cpt.applib.WizardMemento;
+import org.isisaddons.wicket.wizard.cpt.applib.WizardPage;
 import org.isisaddons.wicket.wizard.fixture.dom.Categorized;
 import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
 import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Category;
@@ -25,6 +27,7 @@
 import org.joda.time.LocalDate;
 import org.apache.isis.applib.annotation.*;
 
+@WizardMemento
 public class ToDoItemWizard
         extends AbstractWizard<ToDoItemWizard, ToDoItemWizard.State>
         implements Categorized {
@@ -118,6 +121,7 @@ public String disablePrevious(ToDoItemWizard w) {
     //region > description (property)
     private String description;
 
+    @WizardPage("DESCRIPTION")
     @MaxLength(100)
     @RegEx(validation = "\\w[@&:\\-\\,\\.\\+ \\w]*")
     @TypicalLength(50)
@@ -139,6 +143,7 @@ public boolean hideDescription() {
     /**
      * Used as {@link #viewModelMemento() memento}
      */
+    @WizardPage("CATEGORIES")
     public Category getCategory() {
         return category;
     }
@@ -176,6 +181,7 @@ public boolean hideSubcategory() {
     //region > dueBy (property)
     private LocalDate dueBy;
 
+    @WizardPage("DUE_BY")
     @Optional
     public LocalDate getDueBy() {
         return dueBy;
@@ -184,9 +190,6 @@ public LocalDate getDueBy() {
     public void setDueBy(final LocalDate dueBy) {
         this.dueBy = dueBy;
     }
-    public void clearDueBy() {
-        setDueBy(null);
-    }
     public String validateDueBy(final LocalDate dueBy) {
         if (dueBy == null) {
             return null;
@@ -200,6 +203,7 @@ public boolean hideDueBy() {
 
     //region > summary properties
 
+    @WizardPage("SUMMARY_PAGE")
     public String getDescriptionOnSummary() {
         return getDescription();
     }
@@ -207,6 +211,7 @@ public boolean hideDescriptionOnSummary() {
         return getState().hideSummary();
     }
 
+    @WizardPage("SUMMARY_PAGE")
     public Category getCategoryOnSummary() {
         return getCategory();
     }
@@ -221,6 +226,7 @@ public boolean hideSubcategoryOnSummary() {
         return getState().hideSummary() || getSubcategory() == null;
     }
 
+    @WizardPage("SUMMARY_PAGE")
     public LocalDate getDueByOnSummary() {
         return getDueBy();
     }
@@ -16,14 +16,12 @@
  */
 package org.isisaddons.wicket.wizard.fixture.app;
 
-import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
-import org.joda.time.LocalDate;
+import org.isisaddons.wicket.wizard.cpt.applib.WizardStateStore;
 import org.apache.isis.applib.DomainObjectContainer;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.MemberOrder;
 import org.apache.isis.applib.annotation.Named;
 import org.apache.isis.applib.annotation.Programmatic;
-import org.apache.isis.applib.services.memento.MementoService;
 
 @DomainService(menuOrder = "10")
 public class ToDoItemWizardSupport {
@@ -38,7 +36,7 @@ public ToDoItemWizard newToDoItemWizard() {
     }
 
     ToDoItemWizard clone(ToDoItemWizard toDoItemWizard) {
-        return container.newViewModelInstance(ToDoItemWizard.class, mementoFor(toDoItemWizard));
+        return container.injectServicesInto(ToDoItemWizardMemento.INSTANCE.copy(toDoItemWizard, new ToDoItemWizard()));
     }
 
     //endregion
@@ -47,23 +45,22 @@ ToDoItemWizard clone(ToDoItemWizard toDoItemWizard) {
     // ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     @Programmatic
     String mementoFor(ToDoItemWizard toDoItemWizard) {
-        final MementoService.Memento memento = mementoService.create();
-        memento.set("state", toDoItemWizard.getState());
-        memento.set("description", toDoItemWizard.getDescription());
-        memento.set("category", toDoItemWizard.getCategory());
-        memento.set("subcategory", toDoItemWizard.getSubcategory());
-        memento.set("dueBy", toDoItemWizard.getDueBy());
-        return memento.asString();
+        return wizardStateStore.mementoFor(currentUserName(), ToDoItemWizardMemento.INSTANCE.mementoFor(toDoItemWizard));
     }
 
     @Programmatic
     void initOf(String mementoStr, ToDoItemWizard toDoItemWizard) {
-        final MementoService.Memento memento = mementoService.parse(mementoStr);
-        toDoItemWizard.setState(memento.get("state", ToDoItemWizard.State.class));
-        toDoItemWizard.setDescription(memento.get("description", String.class));
-        toDoItemWizard.setCategory(memento.get("category", WizardWicketToDoItem.Category.class));
-        toDoItemWizard.setSubcategory(memento.get("subcategory", WizardWicketToDoItem.Subcategory.class));
-        toDoItemWizard.setDueBy(memento.get("dueBy", LocalDate.class));
+        final String memento = wizardStateStore.resolve(currentUserName(), mementoStr);
+        if(memento == null) {
+            // held server-side, but since evicted (or not this user's); start over
+            container.warnUser("This wizard has expired; please start again");
+            return;
+        }
+        ToDoItemWizardMemento.INSTANCE.initOf(memento, toDoItemWizard);
+    }
+
+    private String currentUserName() {
+        return container.getUser().getName();
     }
 
     //endregion
@@ -74,7 +71,7 @@ void initOf(String mementoStr, ToDoItemWizard toDoItemWizard) {
     private DomainObjectContainer container;
 
     @javax.inject.Inject
-    private MementoService mementoService;
+    private WizardStateStore wizardStateStore;
 
     //endregion
 
@@ -33,11 +33,15 @@
 
 @javax.jdo.annotations.PersistenceCapable(identityType=IdentityType.DATASTORE)
 @javax.jdo.annotations.DatastoreIdentity(
-        strategy=javax.jdo.annotations.IdGeneratorStrategy.IDENTITY,
-         column="id")
+        strategy=javax.jdo.annotations.IdGeneratorStrategy.INCREMENT, // rather than IDENTITY, so inserts can be batched; see README for migrating
+         column="id",
+         extensions = {
+                 @javax.jdo.annotations.Extension(vendorName = "datanucleus", key = "key-cache-size", value = "500")
+         })
 @javax.jdo.annotations.Version(
         strategy=VersionStrategy.VERSION_NUMBER, 
         column="version")
+@javax.jdo.annotations.Cacheable // in the L2 cache (cache.level2.mode=ENABLE_SELECTIVE), along with its version
 @javax.jdo.annotations.Uniques({
     @javax.jdo.annotations.Unique(
             name="ToDoItem_description_must_be_unique", 
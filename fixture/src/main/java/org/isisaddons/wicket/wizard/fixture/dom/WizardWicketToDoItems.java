@@ -158,17 +158,45 @@ public WizardWicketToDoItem newToDo(
             final Subcategory subcategory,
             final String userName,
             final LocalDate dueBy) {
+        final WizardWicketToDoItem toDoItem = newTransientToDo(description, category, subcategory, userName, dueBy);
+
+        container.persist(toDoItem);
+        container.flush();
+
+        return toDoItem;
+    }
+
+    /**
+     * As {@link #newToDo(String, Category, Subcategory, String, LocalDate)}, but not yet persisted; for
+     * use with {@link #newToDos(java.util.List)}.
+     */
+    @Programmatic // for use by fixtures
+    public WizardWicketToDoItem newTransientToDo(
+            final String description,
+            final Category category,
+            final Subcategory subcategory,
+            final String userName,
+            final LocalDate dueBy) {
         final WizardWicketToDoItem toDoItem = container.newTransientInstance(WizardWicketToDoItem.class);
         toDoItem.setDescription(description);
         toDoItem.setCategory(category);
         toDoItem.setSubcategory(subcategory);
         toDoItem.setOwnedBy(userName);
         toDoItem.setDueBy(dueBy);
+        return toDoItem;
+    }
 
-        container.persist(toDoItem);
+    /**
+     * Persists the (transient) items, flushing just once, so that the inserts are sent as a JDBC batch (up to
+     * <tt>datanucleus.rdbms.statementBatchLimit</tt> at a time).
+     */
+    @Programmatic // for use by fixtures
+    public List<WizardWicketToDoItem> newToDos(final List<WizardWicketToDoItem> toDoItems) {
+        for (final WizardWicketToDoItem toDoItem : toDoItems) {
+            container.persist(toDoItem);
+        }
         container.flush();
-
-        return toDoItem;
+        return toDoItems;
     }
     
     private String currentUserName() {
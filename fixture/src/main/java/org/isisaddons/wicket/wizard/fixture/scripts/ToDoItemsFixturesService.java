@@ -17,6 +17,7 @@
 package org.isisaddons.wicket.wizard.fixture.scripts;
 
 import java.util.List;
+import org.isisaddons.wicket.wizard.fixture.scripts.todo.ToDoItemsGenerate;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.MemberOrder;
 import org.apache.isis.applib.annotation.Named;
@@ -56,4 +57,29 @@ public Object recreateToDoItemsForCurrentAndReturnFirst() {
         final List<FixtureResult> run = findFixtureScriptFor(WizardWicketAppSetUpFixture.class).run(null);
         return run.get(0).getObject();
     }
+
+    /**
+     * Runs {@link ToDoItemsGenerate}; see its documentation for the distributions of the generated items.
+     */
+    @Prototype
+    @MemberOrder(sequence="30")
+    public void generateToDoItems(
+            final @Named("Users") int users,
+            final @Named("Items per user") int itemsPerUser,
+            final @Named("Seed") long seed) {
+        runFixtureScript(findFixtureScriptFor(ToDoItemsGenerate.class),
+                "users=" + users + "\n" + "itemsPerUser=" + itemsPerUser + "\n" + "seed=" + seed);
+    }
+    public int default0GenerateToDoItems() {
+        return 10;
+    }
+    public int default1GenerateToDoItems() {
+        return 100;
+    }
+    public long default2GenerateToDoItems() {
+        return 1L;
+    }
+    public String validateGenerateToDoItems(final int users, final int itemsPerUser, final long seed) {
+        return users < 1 || itemsPerUser < 1 ? "Must generate at least one item for at least one user" : null;
+    }
 }
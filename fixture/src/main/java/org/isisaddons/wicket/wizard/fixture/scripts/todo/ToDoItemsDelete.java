@@ -16,6 +16,7 @@
  */
 package org.isisaddons.wicket.wizard.fixture.scripts.todo;
 
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
 import org.apache.isis.applib.fixturescripts.FixtureScript;
 import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
 
@@ -43,6 +44,8 @@ protected void execute(ExecutionContext executionContext) {
         } else {
             isisJdoSupport.executeUpdate("delete from \"WizardWicketToDoItem\"");
         }
+        // deleted by SQL, so not evicted from the L2 cache by DataNucleus
+        isisJdoSupport.getJdoPersistenceManager().getPersistenceManagerFactory().getDataStoreCache().evictAll(false, WizardWicketToDoItem.class);
     }
 
     //endregion
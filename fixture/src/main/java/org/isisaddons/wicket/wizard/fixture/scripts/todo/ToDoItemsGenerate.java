@@ -0,0 +1,258 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.fixture.scripts.todo;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+import com.google.common.collect.Lists;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Category;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Subcategory;
+import org.joda.time.LocalDate;
+import org.apache.isis.applib.fixturescripts.FixtureScript;
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+
+/**
+ * Generates synthetic to-do items in bulk, for benchmarking at production data sizes.
+ *
+ * <p>
+ * Parameters (all optional):
+ * <ul>
+ *     <li><tt>users</tt> - number of users (<tt>perf-00001</tt>, <tt>perf-00002</tt>, ...); default 10</li>
+ *     <li><tt>itemsPerUser</tt> - default 100</li>
+ *     <li><tt>seed</tt> - items (though not their ids) are the same for the same seed and clock date; default 1</li>
+ *     <li><tt>threads</tt> - default the number of processors, at most 8</li>
+ *     <li><tt>batchSize</tt> - items inserted per transaction; default 500</li>
+ * </ul>
+ *
+ * <p>
+ * Each user's items are replaced (deleted and then regenerated) by a single task on a fixed-size pool.  The tasks
+ * use their own {@link PersistenceManager}s (bypassing the Isis session, so the items are not returned as
+ * results) and commit a transaction per batch.
+ */
+public class ToDoItemsGenerate extends FixtureScript {
+
+    static final String USER_PREFIX = "perf-";
+
+    private static final String[] VERBS = {
+            "Buy", "Fix", "Review", "Write", "Plan", "Book", "Call", "Clean", "Organize", "Prepare", "Submit", "Sort out"
+    };
+    private static final String[] NOUNS = {
+            "report", "car", "groceries", "presentation", "garden", "invoices", "dentist", "holiday", "release",
+            "workshop", "kitchen", "tax return"
+    };
+
+    public ToDoItemsGenerate() {
+        withDiscoverability(Discoverability.DISCOVERABLE);
+    }
+
+    //region > users, itemsPerUser, seed, threads, batchSize (params)
+    private Integer users;
+    private Integer itemsPerUser;
+    private Long seed;
+    private Integer threads;
+    private Integer batchSize;
+
+    public Integer getUsers() {
+        return users;
+    }
+
+    public void setUsers(final Integer users) {
+        this.users = users;
+    }
+
+    public Integer getItemsPerUser() {
+        return itemsPerUser;
+    }
+
+    public void setItemsPerUser(final Integer itemsPerUser) {
+        this.itemsPerUser = itemsPerUser;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(final Long seed) {
+        this.seed = seed;
+    }
+
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public void setThreads(final Integer threads) {
+        this.threads = threads;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(final Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+    //endregion
+
+    //region > execute
+    @Override
+    protected void execute(final ExecutionContext executionContext) {
+        final int users = defaultParam("users", executionContext, 10);
+        final int itemsPerUser = defaultParam("itemsPerUser", executionContext, 100);
+        final long seed = defaultParam("seed", executionContext, 1L);
+        final int threads = defaultParam("threads", executionContext, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+        final int batchSize = defaultParam("batchSize", executionContext, 500);
+
+        final PersistenceManagerFactory pmf = isisJdoSupport.getJdoPersistenceManager().getPersistenceManagerFactory();
+        final int generated = generate(pmf, clockService.now(), users, itemsPerUser, seed, threads, batchSize);
+        getContainer().informUser("Generated " + generated + " to-do items for " + users + " users");
+    }
+
+    /**
+     * Replaces the items of each of the users, a task per user.
+     *
+     * @return the number of items generated.
+     */
+    static int generate(
+            final PersistenceManagerFactory pmf,
+            final LocalDate today,
+            final int users,
+            final int itemsPerUser,
+            final long seed,
+            final int threads,
+            final int batchSize) {
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, users)));
+        try {
+            final List<Callable<Integer>> tasks = Lists.newArrayList();
+            for (int i = 1; i <= users; i++) {
+                final int userNumber = i;
+                tasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return replaceItemsOf(pmf, userNameFor(userNumber), new Random(seed * 1000003L + userNumber), today, itemsPerUser, batchSize);
+                    }
+                });
+            }
+
+            int generated = 0;
+            for (final Future<Integer> future : executorService.invokeAll(tasks)) {
+                generated += future.get();
+            }
+            // the previous items may have been deleted in bulk, so not evicted from the L2 cache
+            pmf.getDataStoreCache().evictAll(false, WizardWicketToDoItem.class);
+            return generated;
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted generating to-do items", ex);
+        } catch (final ExecutionException ex) {
+            throw new IllegalStateException("Failed to generate to-do items", ex.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    static String userNameFor(final int userNumber) {
+        return String.format("%s%05d", USER_PREFIX, userNumber);
+    }
+
+    private static int replaceItemsOf(
+            final PersistenceManagerFactory pmf,
+            final String ownedBy,
+            final Random random,
+            final LocalDate today,
+            final int itemsPerUser,
+            final int batchSize) {
+        final PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+            final Transaction tx = pm.currentTransaction();
+            tx.begin();
+            final Query query = pm.newQuery(WizardWicketToDoItem.class, "ownedBy == :ownedBy");
+            query.deletePersistentAll(ownedBy);
+            tx.commit();
+
+            final List<WizardWicketToDoItem> batch = Lists.newArrayListWithCapacity(batchSize);
+            for (int i = 1; i <= itemsPerUser; i++) {
+                batch.add(newToDo(ownedBy, i, random, today));
+                if(batch.size() == batchSize || i == itemsPerUser) {
+                    tx.begin();
+                    pm.makePersistentAll(batch);
+                    tx.commit();
+                    pm.evictAll();
+                    batch.clear();
+                }
+            }
+            return itemsPerUser;
+        } finally {
+            if(pm.currentTransaction().isActive()) {
+                pm.currentTransaction().rollback();
+            }
+            pm.close();
+        }
+    }
+    //endregion
+
+    //region > helpers (distributions)
+
+    /**
+     * Half professional, two fifths domestic, the rest other; the subcategory (possibly none) is picked evenly
+     * from those of the category.  One item in seven has no due date; the others are due within a few weeks
+     * either side of today (those already due mostly being complete, those yet to be due mostly not).
+     */
+    static WizardWicketToDoItem newToDo(final String ownedBy, final int itemNumber, final Random random, final LocalDate today) {
+        final Category category = categoryFor(random.nextInt(10));
+        final List<Subcategory> subcategories = category.subcategories();
+        final Subcategory subcategory = subcategories.get(random.nextInt(subcategories.size()));
+
+        final LocalDate dueBy = random.nextInt(7) == 0 ? null : today.plusDays((int) Math.round(random.nextGaussian() * 21) + 7);
+        final boolean overdue = dueBy != null && dueBy.isBefore(today);
+        final boolean complete = random.nextInt(100) < (overdue ? 80 : 15);
+
+        final WizardWicketToDoItem toDoItem = new WizardWicketToDoItem();
+        // the item number keeps the description unique for the user
+        toDoItem.setDescription(VERBS[random.nextInt(VERBS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + itemNumber);
+        toDoItem.setCategory(category);
+        toDoItem.setSubcategory(subcategory);
+        toDoItem.setOwnedBy(ownedBy);
+        toDoItem.setDueBy(dueBy);
+        toDoItem.setComplete(complete);
+        return toDoItem;
+    }
+
+    private static Category categoryFor(final int outOfTen) {
+        return outOfTen < 5 ? Category.Professional : outOfTen < 9 ? Category.Domestic : Category.Other;
+    }
+    //endregion
+
+    //region > injected services
+    @javax.inject.Inject
+    private IsisJdoSupport isisJdoSupport;
+
+    @javax.inject.Inject
+    private ClockService clockService;
+    //endregion
+
+}
@@ -17,6 +17,8 @@
 package org.isisaddons.wicket.wizard.fixture.scripts.todo;
 
 import java.math.BigDecimal;
+import java.util.List;
+import com.google.common.collect.Lists;
 import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
 import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Category;
 import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Subcategory;
@@ -48,31 +50,34 @@ protected void execute(ExecutionContext executionContext) {
         execute(new ToDoItemsDelete(null), executionContext);
 
         // this fixture
-        createToDoItem("Buy milk", Category.Domestic, Subcategory.Shopping, ownedBy, nowPlusDays(0), new BigDecimal("0.75"), executionContext);
-        createToDoItem("Buy bread", Category.Domestic, Subcategory.Shopping, ownedBy, nowPlusDays(0), new BigDecimal("1.75"), executionContext);
-        createToDoItem("Buy stamps", Category.Domestic, Subcategory.Shopping, ownedBy, nowPlusDays(0), new BigDecimal("10.00"), executionContext);
-        createToDoItem("Pick up laundry", Category.Domestic, Subcategory.Chores, ownedBy, nowPlusDays(6), new BigDecimal("7.50"), executionContext);
-        createToDoItem("Mow lawn", Category.Domestic, Subcategory.Garden, ownedBy, nowPlusDays(6), null, executionContext);
-        createToDoItem("Vacuum house", Category.Domestic, Subcategory.Housework, ownedBy, nowPlusDays(3), null, executionContext);
-        createToDoItem("Sharpen knives", Category.Domestic, Subcategory.Chores, ownedBy, nowPlusDays(14), null, executionContext);
-
-        createToDoItem("Write to penpal", Category.Other, Subcategory.Other, ownedBy, null, null, executionContext);
-
-        createToDoItem("Write blog post", Category.Professional, Subcategory.Marketing, ownedBy, nowPlusDays(7), null, executionContext);
-        createToDoItem("Organize brown bag", Category.Professional, Subcategory.Consulting, ownedBy, nowPlusDays(14), null, executionContext);
-        createToDoItem("Submit conference session", Category.Professional, Subcategory.Education, ownedBy, nowPlusDays(21), null, executionContext);
-        createToDoItem("Stage Isis release", Category.Professional, Subcategory.OpenSource, ownedBy, null, null, executionContext);
+        final List<WizardWicketToDoItem> newToDos = Lists.newArrayList();
+        newToDos.add(newToDo("Buy milk", Category.Domestic, Subcategory.Shopping, ownedBy, nowPlusDays(0), new BigDecimal("0.75")));
+        newToDos.add(newToDo("Buy bread", Category.Domestic, Subcategory.Shopping, ownedBy, nowPlusDays(0), new BigDecimal("1.75")));
+        newToDos.add(newToDo("Buy stamps", Category.Domestic, Subcategory.Shopping, ownedBy, nowPlusDays(0), new BigDecimal("10.00")));
+        newToDos.add(newToDo("Pick up laundry", Category.Domestic, Subcategory.Chores, ownedBy, nowPlusDays(6), new BigDecimal("7.50")));
+        newToDos.add(newToDo("Mow lawn", Category.Domestic, Subcategory.Garden, ownedBy, nowPlusDays(6), null));
+        newToDos.add(newToDo("Vacuum house", Category.Domestic, Subcategory.Housework, ownedBy, nowPlusDays(3), null));
+        newToDos.add(newToDo("Sharpen knives", Category.Domestic, Subcategory.Chores, ownedBy, nowPlusDays(14), null));
+
+        newToDos.add(newToDo("Write to penpal", Category.Other, Subcategory.Other, ownedBy, null, null));
+
+        newToDos.add(newToDo("Write blog post", Category.Professional, Subcategory.Marketing, ownedBy, nowPlusDays(7), null));
+        newToDos.add(newToDo("Organize brown bag", Category.Professional, Subcategory.Consulting, ownedBy, nowPlusDays(14), null));
+        newToDos.add(newToDo("Submit conference session", Category.Professional, Subcategory.Education, ownedBy, nowPlusDays(21), null));
+        newToDos.add(newToDo("Stage Isis release", Category.Professional, Subcategory.OpenSource, ownedBy, null, null));
+
+        for (final WizardWicketToDoItem newToDo : toDoItems.newToDos(newToDos)) {
+            executionContext.add(this, newToDo);
+        }
     }
 
-    private WizardWicketToDoItem createToDoItem(
+    private WizardWicketToDoItem newToDo(
             final String description,
             final Category category, Subcategory subcategory,
             final String user,
             final LocalDate dueBy,
-            final BigDecimal cost,
-            final ExecutionContext executionContext) {
-        WizardWicketToDoItem newToDo = toDoItems.newToDo(description, category, subcategory, user, dueBy);
-        return executionContext.add(this, newToDo);
+            final BigDecimal cost) {
+        return toDoItems.newTransientToDo(description, category, subcategory, user, dueBy);
     }
 
     private LocalDate nowPlusDays(int days) {
@@ -0,0 +1,138 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.fixture.app;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import org.isisaddons.wicket.wizard.cpt.applib.WizardStateStore;
+import org.isisaddons.wicket.wizard.cpt.metrics.AllocationBudget;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.security.UserMemento;
+import org.apache.isis.core.unittestsupport.jmocking.IsisActions;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2.Mode;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Guards the bytes allocated by the wizard's hot paths; see <tt>allocation-budgets.properties</tt>.
+ *
+ * <p>
+ * The budgets include what the mock container allocates for each call (to <tt>getUser()</tt>), which is constant.
+ */
+public class ToDoItemWizardAllocationTest {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(Mode.INTERFACES_ONLY);
+
+    @Mock
+    private DomainObjectContainer mockContainer;
+
+    private final AllocationBudget budget = AllocationBudget.forTest(ToDoItemWizardAllocationTest.class);
+
+    private ToDoItemWizardSupport toDoItemWizardSupport;
+    private WizardStateStore wizardStateStore;
+    private ToDoItemWizard wizard;
+
+    @Before
+    public void setUp() throws Exception {
+        final UserMemento user = new UserMemento("sven");
+        context.checking(new Expectations() {{
+            allowing(mockContainer).getUser();
+            will(returnValue(user));
+
+            // when next() clones the wizard
+            allowing(mockContainer).injectServicesInto(with(any(ToDoItemWizard.class)));
+            will(IsisActions.returnArgument(0));
+        }});
+
+        wizardStateStore = new WizardStateStore();
+        wizardStateStore.init(Collections.<String, String>emptyMap());
+        toDoItemWizardSupport = new ToDoItemWizardSupport();
+        inject(toDoItemWizardSupport, "container", mockContainer);
+        inject(toDoItemWizardSupport, "wizardStateStore", wizardStateStore);
+        inject(wizardStateStore, "container", mockContainer);
+
+        wizard = inject(new ToDoItemWizard());
+        wizard.setDescription("Buy milk");
+        wizard.setCategory(WizardWicketToDoItem.Category.Domestic);
+        wizard.setDueBy(new LocalDate(2014, 6, 1));
+    }
+
+    @Test
+    public void next() throws Exception {
+        budget.assertWithinBudget("ToDoItemWizard.next", new AllocationBudget.Operation() {
+            @Override
+            public void run() {
+                wizard.setState(ToDoItemWizard.State.DESCRIPTION);
+                wizard.next();
+            }
+        });
+        assertThat(wizard.getState(), is(ToDoItemWizard.State.CATEGORIES));
+    }
+
+    @Test
+    public void mementoRoundTrip() throws Exception {
+        final ToDoItemWizard target = inject(new ToDoItemWizard());
+        budget.assertWithinBudget("ToDoItemWizardSupport.mementoRoundTrip", new AllocationBudget.Operation() {
+            @Override
+            public void run() {
+                toDoItemWizardSupport.initOf(toDoItemWizardSupport.mementoFor(wizard), target);
+            }
+        });
+        assertThat(target.getDescription(), is(wizard.getDescription()));
+        assertThat(target.getDueBy(), is(wizard.getDueBy()));
+    }
+
+    @Test
+    public void mementoRoundTripWithStateStore() throws Exception {
+        wizardStateStore.init(Collections.singletonMap("isis.services.WizardStateStore.enabled", "true"));
+        final ToDoItemWizard target = inject(new ToDoItemWizard());
+        budget.assertWithinBudget("ToDoItemWizardSupport.mementoRoundTrip.stateStore", new AllocationBudget.Operation() {
+            @Override
+            public void run() {
+                toDoItemWizardSupport.initOf(toDoItemWizardSupport.mementoFor(wizard), target);
+            }
+        });
+        assertThat(target.getDescription(), is(wizard.getDescription()));
+    }
+
+    private <T> T inject(final T object) {
+        if(object instanceof ToDoItemWizard) {
+            inject(object, "toDoItemWizardSupport", toDoItemWizardSupport);
+        }
+        return object;
+    }
+
+    private static void inject(final Object object, final String fieldName, final Object value) {
+        try {
+            final Field field = object.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(object, value);
+        } catch (final ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
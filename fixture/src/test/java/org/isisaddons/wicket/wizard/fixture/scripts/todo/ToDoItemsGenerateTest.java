@@ -0,0 +1,325 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.fixture.scripts.todo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Category;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Subcategory;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ToDoItemsGenerateTest {
+
+    private final LocalDate today = new LocalDate(2014, 6, 1);
+
+    private PersistenceManagerFactory pmf;
+
+    /**
+     * Against an in-memory HSQLDB, configured as in the webapp's <tt>persistor_datanucleus.properties</tt> (though
+     * without the L2 cache).
+     */
+    @Before
+    public void setUp() throws Exception {
+        final Map<String, Object> props = Maps.newHashMap();
+        props.put("javax.jdo.PersistenceManagerFactoryClass", "org.datanucleus.api.jdo.JDOPersistenceManagerFactory");
+        props.put("javax.jdo.option.ConnectionDriverName", "org.hsqldb.jdbcDriver");
+        props.put("javax.jdo.option.ConnectionURL", "jdbc:hsqldb:mem:" + ToDoItemsGenerateTest.class.getSimpleName());
+        props.put("javax.jdo.option.ConnectionUserName", "sa");
+        props.put("javax.jdo.option.ConnectionPassword", "");
+        props.put("datanucleus.autoCreateSchema", "true");
+        props.put("datanucleus.identifier.case", "PreserveCase");
+        props.put("datanucleus.rdbms.statementBatchLimit", "500");
+        props.put("datanucleus.cache.level2.type", "none");
+        pmf = JDOHelper.getPersistenceManagerFactory(props);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(pmf == null) {
+            return;
+        }
+        final PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+            pm.currentTransaction().begin();
+            pm.newQuery(WizardWicketToDoItem.class).deletePersistentAll();
+            pm.currentTransaction().commit();
+        } finally {
+            pm.close();
+            pmf.close();
+        }
+    }
+
+    @Test
+    public void sameSeedGeneratesSameItems() throws Exception {
+        final Random random1 = new Random(42);
+        final Random random2 = new Random(42);
+        for (int i = 1; i <= 100; i++) {
+            final WizardWicketToDoItem item1 = ToDoItemsGenerate.newToDo("perf-00001", i, random1, today);
+            final WizardWicketToDoItem item2 = ToDoItemsGenerate.newToDo("perf-00001", i, random2, today);
+            assertThat(item1.getDescription(), is(item2.getDescription()));
+            assertThat(item1.getCategory(), is(item2.getCategory()));
+            assertThat(item1.getSubcategory(), is(item2.getSubcategory()));
+            assertThat(item1.getDueBy(), is(item2.getDueBy()));
+            assertThat(item1.isComplete(), is(item2.isComplete()));
+        }
+    }
+
+    @Test
+    public void subcategoryIsValidForCategory() throws Exception {
+        final Random random = new Random(1);
+        for (int i = 1; i <= 1000; i++) {
+            final WizardWicketToDoItem item = ToDoItemsGenerate.newToDo("perf-00001", i, random, today);
+            assertTrue(item.getCategory().subcategories().contains(item.getSubcategory()));
+            assertTrue(item.getDescription().endsWith(" " + i));
+        }
+    }
+
+    @Test
+    public void userNames() throws Exception {
+        assertThat(ToDoItemsGenerate.userNameFor(42), is("perf-00042"));
+    }
+
+    @Test
+    public void usersGeneratedInParallel() throws Exception {
+        final RecordingPersistenceManagerFactory recording = new RecordingPersistenceManagerFactory(pmf, 4);
+
+        final int generated = ToDoItemsGenerate.generate(recording.proxy(), today, 8, 20, 1L, 4, 500);
+
+        assertThat(generated, is(8 * 20));
+        // a persistence manager (so a task) per user, the first four of which were in use at the same time
+        assertThat(recording.getPersistenceManagers(), is(8));
+        assertThat(recording.getThreads().size(), is(4));
+        assertTrue("tasks did not run in parallel", recording.isAllStartedTogether());
+        for (int i = 1; i <= 8; i++) {
+            assertThat(itemsOf(ToDoItemsGenerate.userNameFor(i)).size(), is(20));
+        }
+    }
+
+    @Test
+    public void transactionPerBatch() throws Exception {
+        final RecordingPersistenceManagerFactory recording = new RecordingPersistenceManagerFactory(pmf, 1);
+
+        ToDoItemsGenerate.generate(recording.proxy(), today, 2, 250, 1L, 2, 100);
+
+        // for each user, one to delete their previous items, then one for each of the three batches
+        assertThat(recording.getCommits(), is(2 * (1 + 3)));
+        final List<Integer> batchSizes = Lists.newArrayList(recording.getBatchSizes());
+        Collections.sort(batchSizes);
+        assertThat(batchSizes, is((List<Integer>) Lists.newArrayList(50, 50, 100, 100, 100, 100)));
+        assertThat(itemsOf("perf-00001").size(), is(250));
+        assertThat(itemsOf("perf-00002").size(), is(250));
+    }
+
+    @Test
+    public void regeneratingReplacesOnlyTheUsersItems() throws Exception {
+        persist(newToDo("Not generated", "sven"));
+        ToDoItemsGenerate.generate(pmf, today, 2, 50, 1L, 2, 20);
+        final List<String> descriptions = descriptionsOf(itemsOf("perf-00001"));
+
+        final int generated = ToDoItemsGenerate.generate(pmf, today, 2, 30, 1L, 2, 20);
+
+        assertThat(generated, is(2 * 30));
+        assertThat(itemsOf("perf-00001").size(), is(30));
+        assertThat(itemsOf("perf-00002").size(), is(30));
+        assertThat(itemsOf("sven").size(), is(1));
+        // the same seed, so the same items (as far as generated)
+        assertThat(descriptionsOf(itemsOf("perf-00001")), is(descriptions.subList(0, 30)));
+    }
+
+    //region > helpers
+
+    private static WizardWicketToDoItem newToDo(final String description, final String ownedBy) {
+        final WizardWicketToDoItem toDoItem = new WizardWicketToDoItem();
+        toDoItem.setDescription(description);
+        toDoItem.setCategory(Category.Other);
+        toDoItem.setSubcategory(Subcategory.Other);
+        toDoItem.setOwnedBy(ownedBy);
+        return toDoItem;
+    }
+
+    private void persist(final WizardWicketToDoItem toDoItem) {
+        final PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+            pm.currentTransaction().begin();
+            pm.makePersistent(toDoItem);
+            pm.currentTransaction().commit();
+        } finally {
+            pm.close();
+        }
+    }
+
+    private List<WizardWicketToDoItem> itemsOf(final String ownedBy) {
+        final PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+            final Query query = pm.newQuery(WizardWicketToDoItem.class, "ownedBy == :ownedBy");
+            @SuppressWarnings("unchecked")
+            final List<WizardWicketToDoItem> items = (List<WizardWicketToDoItem>) query.execute(ownedBy);
+            return Lists.newArrayList(pm.detachCopyAll(items));
+        } finally {
+            pm.close();
+        }
+    }
+
+    /**
+     * In the order generated, that is of the item number (ending each description).
+     */
+    private static List<String> descriptionsOf(final List<WizardWicketToDoItem> items) {
+        final String[] descriptions = new String[items.size()];
+        for (final WizardWicketToDoItem item : items) {
+            final String description = item.getDescription();
+            descriptions[Integer.parseInt(description.substring(description.lastIndexOf(' ') + 1)) - 1] = description;
+        }
+        return Arrays.asList(descriptions);
+    }
+
+    /**
+     * Records the persistence managers obtained from the wrapped factory (and on which threads), the transactions
+     * committed and the batches made persistent.
+     *
+     * <p>
+     * Obtaining each of the first <tt>startTogether</tt> persistence managers waits (for a while) until all of them
+     * have been obtained, so that they can only all be obtained if obtained in parallel.
+     */
+    static class RecordingPersistenceManagerFactory {
+
+        private final PersistenceManagerFactory pmf;
+        private final CountDownLatch started;
+
+        private final AtomicInteger persistenceManagers = new AtomicInteger();
+        private final Set<Thread> threads = Sets.newConcurrentHashSet();
+        private final AtomicInteger commits = new AtomicInteger();
+        private final Queue<Integer> batchSizes = new ConcurrentLinkedQueue<>();
+        private volatile boolean allStartedTogether = true;
+
+        RecordingPersistenceManagerFactory(final PersistenceManagerFactory pmf, final int startTogether) {
+            this.pmf = pmf;
+            this.started = new CountDownLatch(startTogether);
+        }
+
+        PersistenceManagerFactory proxy() {
+            return proxy(PersistenceManagerFactory.class, pmf, new Wrapper() {
+                @Override
+                public Object wrap(final Method method, final Object[] args, final Object result) throws InterruptedException {
+                    if(!(result instanceof PersistenceManager)) {
+                        return result;
+                    }
+                    persistenceManagers.incrementAndGet();
+                    threads.add(Thread.currentThread());
+                    started.countDown();
+                    if(!started.await(10, TimeUnit.SECONDS)) {
+                        allStartedTogether = false;
+                    }
+                    return wrapPersistenceManager((PersistenceManager) result);
+                }
+            });
+        }
+
+        private PersistenceManager wrapPersistenceManager(final PersistenceManager pm) {
+            return proxy(PersistenceManager.class, pm, new Wrapper() {
+                @Override
+                public Object wrap(final Method method, final Object[] args, final Object result) {
+                    if(method.getName().equals("makePersistentAll") && args[0] instanceof Collection) {
+                        batchSizes.add(((Collection<?>) args[0]).size());
+                    }
+                    return result instanceof Transaction ? wrapTransaction((Transaction) result) : result;
+                }
+            });
+        }
+
+        private Transaction wrapTransaction(final Transaction transaction) {
+            return proxy(Transaction.class, transaction, new Wrapper() {
+                @Override
+                public Object wrap(final Method method, final Object[] args, final Object result) {
+                    if(method.getName().equals("commit")) {
+                        commits.incrementAndGet();
+                    }
+                    return result;
+                }
+            });
+        }
+
+        int getPersistenceManagers() {
+            return persistenceManagers.get();
+        }
+
+        Set<Thread> getThreads() {
+            return threads;
+        }
+
+        boolean isAllStartedTogether() {
+            return allStartedTogether;
+        }
+
+        int getCommits() {
+            return commits.get();
+        }
+
+        Collection<Integer> getBatchSizes() {
+            return batchSizes;
+        }
+
+        private interface Wrapper {
+            Object wrap(Method method, Object[] args, Object result) throws Exception;
+        }
+
+        private static <T> T proxy(final Class<T> type, final T delegate, final Wrapper wrapper) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                    final Object result;
+                    try {
+                        result = method.invoke(delegate, args);
+                    } catch (final InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                    return wrapper.wrap(method, args, result);
+                }
+            }));
+        }
+    }
+    //endregion
+}
@@ -28,6 +28,11 @@
 import com.google.inject.name.Names;
 import com.google.inject.util.Modules;
 import com.google.inject.util.Providers;
+import org.isisaddons.wicket.wizard.cpt.metrics.WizardStepMetricsJmx;
+import org.isisaddons.wicket.wizard.webapp.cache.Level2CacheMetrics;
+import org.isisaddons.wicket.wizard.cpt.ui.WizardPropertiesPanelFactoryMetrics;
+import org.isisaddons.wicket.wizard.cpt.ui.WizardSettings;
+import org.isisaddons.wicket.wizard.cpt.ui.WizardWarmup;
 import org.apache.wicket.Session;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Response;
@@ -99,6 +104,45 @@ public WebRequest newWebRequest(HttpServletRequest servletRequest, String filter
         return request;
     }
 
+    private transient WizardStepMetricsJmx wizardStepMetricsJmx;
+    private transient WizardPropertiesPanelFactoryMetrics panelFactoryMetrics;
+
+    /**
+     * Once Isis has been bootstrapped, loads everything needed to render the wizards, so that the first user to open
+     * each one does not have to wait for it (see <tt>isis.viewer.wicket.wizard.warmup.*</tt> in
+     * <tt>isis.properties</tt>).
+     *
+     * <p>
+     * Also registers the MBeans for the latencies of the wizard steps (recorded if
+     * <tt>isis.viewer.wicket.wizard.metrics.enabled</tt>, or once enabled over JMX), for the hits and misses of the
+     * wizard panel factory's cache, and for the counters of the DataNucleus L2 cache.
+     */
+    @Override
+    protected void init() {
+        super.init();
+        WizardWarmup.warmUpIfEnabled(this);
+
+        wizardStepMetricsJmx = new WizardStepMetricsJmx();
+        wizardStepMetricsJmx.register(WizardSettings.isMetricsEnabled());
+        panelFactoryMetrics = WizardPropertiesPanelFactoryMetrics.forRegistry(getComponentFactoryRegistry());
+        if(panelFactoryMetrics != null) {
+            panelFactoryMetrics.register();
+        }
+        Level2CacheMetrics.get().register();
+    }
+
+    @Override
+    protected void onDestroy() {
+        if(wizardStepMetricsJmx != null) {
+            wizardStepMetricsJmx.unregister();
+        }
+        if(panelFactoryMetrics != null) {
+            panelFactoryMetrics.unregister();
+        }
+        Level2CacheMetrics.get().unregister();
+        super.onDestroy();
+    }
+
     private static final String APP_NAME = "Wizard (Wicket Component) Example App";
 
     @Override
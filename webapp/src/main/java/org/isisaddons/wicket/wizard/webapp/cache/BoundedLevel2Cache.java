@@ -0,0 +1,178 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.cache;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.datanucleus.NucleusContext;
+import org.datanucleus.cache.AbstractLevel2Cache;
+import org.datanucleus.cache.CachedPC;
+
+/**
+ * A DataNucleus level 2 cache holding at most <tt>datanucleus.cache.level2.maxSize</tt> objects, discarding the
+ * least recently used once full, and recording its {@link Level2CacheMetrics metrics}.
+ *
+ * <p>
+ * Registered (in <tt>plugin.xml</tt>) as the <tt>bounded</tt> cache type, so enabled with:
+ *
+ * <pre>
+ * datanucleus.cache.level2.type=bounded
+ * datanucleus.cache.level2.maxSize=10000
+ * </pre>
+ *
+ * <p>
+ * DataNucleus itself keeps the cache up to date, replacing the cached copy (including its version) of an object
+ * updated in a transaction once that transaction commits, and evicting those deleted; it is only changes made
+ * outside DataNucleus (eg by SQL) that need the objects to be {@link javax.jdo.datastore.DataStoreCache#evictAll(boolean, Class) evicted}
+ * explicitly.
+ */
+public class BoundedLevel2Cache extends AbstractLevel2Cache {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final Level2CacheMetrics metrics;
+    @SuppressWarnings("rawtypes") // CachedPC, as used by Level2Cache
+    private final Map<Object, CachedPC> cache;
+
+    public BoundedLevel2Cache(final NucleusContext nucleusCtx) {
+        this(nucleusCtx, Level2CacheMetrics.get());
+    }
+
+    @SuppressWarnings("rawtypes") // CachedPC, as used by Level2Cache
+    BoundedLevel2Cache(final NucleusContext nucleusCtx, final Level2CacheMetrics metrics) {
+        super(nucleusCtx);
+        if(maxSize <= 0) {
+            maxSize = DEFAULT_MAX_SIZE;
+        }
+        this.metrics = metrics;
+        this.cache = new LinkedHashMap<Object, CachedPC>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, CachedPC> eldest) {
+                if(size() <= maxSize) {
+                    return false;
+                }
+                BoundedLevel2Cache.this.metrics.evicted();
+                return true;
+            }
+        };
+        metrics.cacheCreated(this);
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    //region > get, put
+
+    @SuppressWarnings("rawtypes") // CachedPC, as used by Level2Cache
+    @Override
+    public synchronized CachedPC get(final Object oid) {
+        final CachedPC cachedPC = cache.get(oid);
+        if(cachedPC != null) {
+            metrics.hit();
+        } else {
+            metrics.miss();
+        }
+        return cachedPC;
+    }
+
+    @SuppressWarnings("rawtypes") // CachedPC, as used by Level2Cache
+    @Override
+    public synchronized CachedPC put(final Object oid, final CachedPC pc) {
+        if(oid == null || pc == null) {
+            return null;
+        }
+        metrics.put();
+        return cache.put(oid, pc);
+    }
+
+    @Override
+    public synchronized boolean containsOid(final Object oid) {
+        return cache.containsKey(oid);
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return cache.size();
+    }
+    //endregion
+
+    //region > evict
+
+    @Override
+    public synchronized void evict(final Object oid) {
+        if(cache.remove(oid) != null) {
+            metrics.invalidated(1);
+        }
+    }
+
+    @Override
+    public synchronized void evictAll() {
+        metrics.invalidated(cache.size());
+        cache.clear();
+    }
+
+    @Override
+    public synchronized void evictAll(final Object[] oids) {
+        if(oids == null) {
+            return;
+        }
+        for (final Object oid : oids) {
+            evict(oid);
+        }
+    }
+
+    @SuppressWarnings("rawtypes") // as declared by Level2Cache
+    @Override
+    public synchronized void evictAll(final Collection oids) {
+        if(oids == null) {
+            return;
+        }
+        for (final Object oid : oids) {
+            evict(oid);
+        }
+    }
+
+    @SuppressWarnings("rawtypes") // as declared by Level2Cache
+    @Override
+    public synchronized void evictAll(final Class pcClass, final boolean subclasses) {
+        final Class<?> evictedClass = pcClass;
+        int count = 0;
+        for (final Iterator<CachedPC> iterator = cache.values().iterator(); iterator.hasNext(); ) {
+            final Class<?> cachedClass = iterator.next().getObjectClass();
+            if(cachedClass == evictedClass || (subclasses && evictedClass.isAssignableFrom(cachedClass))) {
+                iterator.remove();
+                count++;
+            }
+        }
+        metrics.invalidated(count);
+    }
+    //endregion
+
+    @Override
+    public synchronized void close() {
+        if(clearAtClose) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the hits, misses, puts, evictions and invalidations of the {@link BoundedLevel2Cache} (there being only
+ * one DataNucleus persistence manager factory, and so only one cache, per webapp).
+ *
+ * <p>
+ * Typically {@link #register() registered} as an MBean (<tt>org.isisaddons.wicket.wizard:type=Level2Cache</tt>)
+ * from the <tt>init()</tt> of the Wicket application, and {@link #unregister() unregistered} from its
+ * <tt>onDestroy()</tt>.
+ */
+public class Level2CacheMetrics implements Level2CacheMetricsMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Level2CacheMetrics.class);
+
+    private static final Level2CacheMetrics INSTANCE = new Level2CacheMetrics();
+
+    public static Level2CacheMetrics get() {
+        return INSTANCE;
+    }
+
+    static final String OBJECT_NAME = "org.isisaddons.wicket.wizard:type=Level2Cache";
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile BoundedLevel2Cache cache;
+
+    Level2CacheMetrics() {
+    }
+
+    //region > recording (called by the cache)
+
+    void cacheCreated(final BoundedLevel2Cache cache) {
+        this.cache = cache;
+    }
+
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    void put() {
+        puts.incrementAndGet();
+    }
+
+    void evicted() {
+        evictions.incrementAndGet();
+    }
+
+    void invalidated(final int count) {
+        invalidations.addAndGet(count);
+    }
+    //endregion
+
+    //region > Level2CacheMetricsMXBean
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        final long hits = getHits();
+        final long lookups = hits + getMisses();
+        return lookups != 0 ? (double) hits / lookups : 0;
+    }
+
+    @Override
+    public long getPuts() {
+        return puts.get();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public int getSize() {
+        final BoundedLevel2Cache cache = this.cache;
+        return cache != null ? cache.getSize() : 0;
+    }
+
+    @Override
+    public int getMaxSize() {
+        final BoundedLevel2Cache cache = this.cache;
+        return cache != null ? cache.getMaxSize() : 0;
+    }
+
+    @Override
+    public void reset() {
+        hits.set(0);
+        misses.set(0);
+        puts.set(0);
+        evictions.set(0);
+        invalidations.set(0);
+    }
+    //endregion
+
+    //region > register, unregister (JMX)
+
+    public void register() {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if(mBeanServer.isRegistered(objectName)) {
+                // eg left over from an earlier deployment within the same JVM
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (final JMException ex) {
+            LOG.warn("Could not register level 2 cache metrics", ex);
+        }
+    }
+
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (final JMException ex) {
+            LOG.debug("Could not unregister level 2 cache metrics", ex);
+        }
+    }
+    //endregion
+}
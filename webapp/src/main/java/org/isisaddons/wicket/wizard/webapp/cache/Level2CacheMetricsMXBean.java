@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.cache;
+
+/**
+ * The counters of the {@link BoundedLevel2Cache}, as exposed over JMX by {@link Level2CacheMetrics#register()}.
+ */
+public interface Level2CacheMetricsMXBean {
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * Hits as a proportion of all lookups, or 0 if there have been none.
+     */
+    double getHitRatio();
+
+    long getPuts();
+
+    /**
+     * Entries discarded (least recently used first) to keep within the maximum size.
+     */
+    long getEvictions();
+
+    /**
+     * Entries removed because the object was updated or deleted (or explicitly evicted).
+     */
+    long getInvalidations();
+
+    int getSize();
+
+    int getMaxSize();
+
+    /**
+     * Resets the counters (though not the cache itself).
+     */
+    void reset();
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Properties;
+import com.google.common.collect.Maps;
+
+/**
+ * For tests running DataNucleus directly (rather than through Isis), configured as in
+ * <tt>persistor_datanucleus.properties</tt>.
+ */
+final class PersistenceTestSupport {
+
+    private static final String PERSISTOR_PROPERTIES = "src/main/webapp/WEB-INF/persistor_datanucleus.properties";
+    private static final String PERSISTOR_IMPL_PREFIX = "isis.persistor.datanucleus.impl.";
+
+    private PersistenceTestSupport() {
+    }
+
+    /**
+     * The DataNucleus properties (those passed through by the Isis persistor), along with the JDO implementation.
+     */
+    static Map<String, Object> persistorImplProperties() throws Exception {
+        final Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(PERSISTOR_PROPERTIES)) {
+            properties.load(in);
+        }
+        final Map<String, Object> props = Maps.newHashMap();
+        for (final String key : properties.stringPropertyNames()) {
+            if(key.startsWith(PERSISTOR_IMPL_PREFIX)) {
+                props.put(key.substring(PERSISTOR_IMPL_PREFIX.length()), properties.getProperty(key));
+            }
+        }
+        props.put("javax.jdo.PersistenceManagerFactoryClass", "org.datanucleus.api.jdo.JDOPersistenceManagerFactory");
+        return props;
+    }
+
+    /**
+     * Injects a service into the (only) field of its type, as Isis would.
+     */
+    static void inject(final Object target, final Class<?> type, final Object value) throws IllegalAccessException {
+        for (final Field field : target.getClass().getDeclaredFields()) {
+            if(field.getType() == type) {
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No " + type.getSimpleName() + " field in " + target.getClass().getName());
+    }
+}
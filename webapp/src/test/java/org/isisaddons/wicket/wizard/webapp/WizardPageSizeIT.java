@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import com.google.common.collect.Maps;
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
+import org.isisaddons.wicket.wizard.cpt.metrics.WizardStepHistogram;
+import org.isisaddons.wicket.wizard.cpt.ui.SerializedSizeBudget;
+import org.isisaddons.wicket.wizard.cpt.ui.WizardPropertiesForm;
+import org.isisaddons.wicket.wizard.fixture.app.ToDoItemWizard;
+import org.isisaddons.wicket.wizard.webapp.loadtest.EmbeddedWebapp;
+import org.isisaddons.wicket.wizard.webapp.loadtest.WizardUser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.apache.isis.core.metamodel.adapter.ObjectAdapter;
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.Page;
+import org.apache.wicket.application.IComponentOnAfterRenderListener;
+import org.apache.wicket.request.cycle.AbstractRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Guards the serialized size of the page holding the {@link WizardPropertiesForm} of each page of the
+ * {@link ToDoItemWizard}, running in the {@link EmbeddedWebapp embedded webapp}; see {@link SerializedSizeBudget}.
+ *
+ * <p>
+ * The page is measured at the end of each request that renders the form, once detached (as it is when written to
+ * the page store), and the largest taken for each wizard page.
+ *
+ * <p>
+ * Being an integration test (starting the webapp), this is run only by the <tt>integtest</tt> profile.
+ */
+public class WizardPageSizeIT {
+
+    private static final int WIZARDS = 3;
+
+    private final RenderedPages renderedPages = new RenderedPages();
+
+    private EmbeddedWebapp webapp;
+
+    @Before
+    public void setUp() throws Exception {
+        webapp = EmbeddedWebapp.start();
+        final Application application = webapp.getApplication();
+        application.getComponentOnAfterRenderListeners().add(renderedPages);
+        application.getRequestCycleListeners().add(renderedPages);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(webapp != null) {
+            webapp.stop();
+        }
+    }
+
+    @Test
+    public void pageSize() throws Exception {
+        final ConcurrentMap<String, WizardStepHistogram> latencies = Maps.newConcurrentMap();
+        new WizardUser(webapp.getBaseUrl(), "sven", "pass", WIZARDS, latencies).call();
+        renderedPages.rethrowAnyFailure();
+
+        for (final ToDoItemWizard.State state : ToDoItemWizard.State.values()) {
+            final Integer size = renderedPages.get(state.name());
+            assertThat("no render of " + state, size, is(notNullValue()));
+            SerializedSizeBudget.assertSizeWithinBudget("Page rendering " + state + " of ToDoItemWizard", size);
+        }
+    }
+
+    /**
+     * The size of the largest (as serialized, once detached) page rendering a wizard's form, by the wizard's page.
+     */
+    static class RenderedPages extends AbstractRequestCycleListener implements IComponentOnAfterRenderListener {
+
+        private final ThreadLocal<String> renderedState = new ThreadLocal<>();
+        private final ThreadLocal<Page> renderedPage = new ThreadLocal<>();
+        private final Map<String, Integer> largestByState = Maps.newHashMap();
+        private volatile AssertionError failure;
+
+        @Override
+        public void onAfterRender(final Component component) {
+            if(!(component instanceof WizardPropertiesForm)) {
+                return;
+            }
+            final ObjectAdapter adapter = (ObjectAdapter) component.getDefaultModelObject();
+            renderedState.set(((AbstractWizard<?, ?>) adapter.getObject()).getState().toString());
+            renderedPage.set(component.getPage());
+        }
+
+        /**
+         * Called once the page has been detached, but before it is written to the page store.
+         */
+        @Override
+        public void onDetach(final RequestCycle cycle) {
+            final String state = renderedState.get();
+            final Page page = renderedPage.get();
+            renderedState.remove();
+            renderedPage.remove();
+            if(state == null || page == null) {
+                return;
+            }
+            final int size;
+            try {
+                size = SerializedSizeBudget.sizeOf(page);
+            } catch(final AssertionError error) {
+                // not to be swallowed by the request cycle
+                failure = error;
+                return;
+            }
+            synchronized (largestByState) {
+                final Integer largest = largestByState.get(state);
+                if(largest == null || size > largest) {
+                    largestByState.put(state, size);
+                }
+            }
+        }
+
+        void rethrowAnyFailure() {
+            if(failure != null) {
+                throw failure;
+            }
+        }
+
+        Integer get(final String state) {
+            synchronized (largestByState) {
+                return largestByState.get(state);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.isisaddons.wicket.wizard.cpt.applib.AbstractWizard;
+import org.isisaddons.wicket.wizard.cpt.metrics.AllocationBudget;
+import org.isisaddons.wicket.wizard.cpt.metrics.WizardStepHistogram;
+import org.isisaddons.wicket.wizard.cpt.ui.WizardPropertiesForm;
+import org.isisaddons.wicket.wizard.fixture.app.ToDoItemWizard;
+import org.isisaddons.wicket.wizard.webapp.loadtest.EmbeddedWebapp;
+import org.isisaddons.wicket.wizard.webapp.loadtest.WizardUser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.apache.isis.core.metamodel.adapter.ObjectAdapter;
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.application.IComponentOnAfterRenderListener;
+import org.apache.wicket.application.IComponentOnBeforeRenderListener;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Guards the bytes allocated rendering the {@link WizardPropertiesForm} of each page of the
+ * {@link ToDoItemWizard}, running in the {@link EmbeddedWebapp embedded webapp}; see
+ * <tt>allocation-budgets.properties</tt>.
+ *
+ * <p>
+ * A render is measured (on the request's thread) from the form's <tt>onBeforeRender</tt> to its
+ * <tt>onAfterRender</tt>, as is the <tt>RENDER</tt> phase of the wizard step metrics, and the median taken for
+ * each page.
+ *
+ * <p>
+ * Being an integration test (starting the webapp), this is run only by the <tt>integtest</tt> profile.
+ */
+public class WizardPropertiesFormAllocationIT {
+
+    private static final int WARMUP_WIZARDS = 20;
+    private static final int MEASURED_WIZARDS = 20;
+
+    private final AllocationBudget budget = AllocationBudget.forTest(WizardPropertiesFormAllocationIT.class);
+    private final RenderAllocations renderAllocations = new RenderAllocations();
+
+    private EmbeddedWebapp webapp;
+
+    @Before
+    public void setUp() throws Exception {
+        // skips if cannot be measured
+        AllocationBudget.allocatedBytes();
+
+        webapp = EmbeddedWebapp.start();
+        final Application application = webapp.getApplication();
+        application.getComponentPreOnBeforeRenderListeners().add(renderAllocations);
+        application.getComponentOnAfterRenderListeners().add(renderAllocations);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(webapp != null) {
+            webapp.stop();
+        }
+    }
+
+    @Test
+    public void render() throws Exception {
+        final ConcurrentMap<String, WizardStepHistogram> latencies = Maps.newConcurrentMap();
+        new WizardUser(webapp.getBaseUrl(), "sven", "pass", WARMUP_WIZARDS, latencies).call();
+        renderAllocations.clear();
+        new WizardUser(webapp.getBaseUrl(), "sven", "pass", MEASURED_WIZARDS, latencies).call();
+
+        for (final ToDoItemWizard.State state : ToDoItemWizard.State.values()) {
+            final List<Long> renders = renderAllocations.get(state.name());
+            assertThat("no render of " + state, renders, is(notNullValue()));
+            Collections.sort(renders);
+            budget.assertWithinBudget("WizardPropertiesForm.render." + state, renders.get(renders.size() / 2));
+        }
+    }
+
+    /**
+     * The bytes allocated by each render of a wizard's form, by the wizard's page.
+     */
+    static class RenderAllocations implements IComponentOnBeforeRenderListener, IComponentOnAfterRenderListener {
+
+        private final ThreadLocal<Long> startBytes = new ThreadLocal<>();
+        private final Map<String, List<Long>> bytesByPage = Maps.newHashMap();
+
+        @Override
+        public void onBeforeRender(final Component component) {
+            if(component instanceof WizardPropertiesForm) {
+                startBytes.set(AllocationBudget.allocatedBytes());
+            }
+        }
+
+        @Override
+        public void onAfterRender(final Component component) {
+            if(!(component instanceof WizardPropertiesForm)) {
+                return;
+            }
+            final Long start = startBytes.get();
+            if(start == null) {
+                return;
+            }
+            final long bytes = AllocationBudget.allocatedBytes() - start;
+            startBytes.remove();
+
+            final ObjectAdapter adapter = (ObjectAdapter) component.getDefaultModelObject();
+            final Object state = ((AbstractWizard<?, ?>) adapter.getObject()).getState();
+            synchronized (bytesByPage) {
+                List<Long> bytesForPage = bytesByPage.get(state.toString());
+                if(bytesForPage == null) {
+                    bytesForPage = Lists.newArrayList();
+                    bytesByPage.put(state.toString(), bytesForPage);
+                }
+                bytesForPage.add(bytes);
+            }
+        }
+
+        List<Long> get(final String page) {
+            synchronized (bytesByPage) {
+                final List<Long> bytes = bytesByPage.get(page);
+                return bytes != null ? Lists.newArrayList(bytes) : null;
+            }
+        }
+
+        void clear() {
+            synchronized (bytesByPage) {
+                bytesByPage.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp;
+
+import java.util.Collections;
+import java.util.Map;
+import javax.jdo.JDOHelper;
+import javax.jdo.JDOObjectNotFoundException;
+import javax.jdo.JDOOptimisticVerificationException;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import org.datanucleus.api.jdo.JDOPersistenceManagerFactory;
+import org.datanucleus.cache.Level2Cache;
+import org.hamcrest.Description;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Category;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Subcategory;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItemContributions;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItems;
+import org.isisaddons.wicket.wizard.webapp.cache.BoundedLevel2Cache;
+import org.isisaddons.wicket.wizard.webapp.cache.Level2CacheMetrics;
+import org.jmock.Expectations;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.auto.Mock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.query.Query;
+import org.apache.isis.applib.security.UserMemento;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2.Mode;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the {@link BoundedLevel2Cache} (as configured in <tt>persistor_datanucleus.properties</tt>) never serves
+ * a stale {@link WizardWicketToDoItem}: neither after the item's own actions, nor after it has been updated through
+ * another {@link PersistenceManager}.
+ *
+ * <p>
+ * Each "request" uses its own {@link PersistenceManager}, so that the item is read from the L2 cache (if cached)
+ * rather than from the PM's own L1 cache.  The item's (mock) {@link DomainObjectContainer} deletes using the
+ * {@link PersistenceManager} directly, as the Isis persistor does.
+ */
+public class WizardWicketToDoItemLevel2CacheTest {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(Mode.INTERFACES_ONLY);
+
+    @Mock
+    private DomainObjectContainer mockContainer;
+
+    private PersistenceManagerFactory pmf;
+    private Level2Cache level2Cache;
+    private Object oid;
+
+    @Before
+    public void setUp() throws Exception {
+        final Map<String, Object> props = PersistenceTestSupport.persistorImplProperties();
+        props.put("javax.jdo.option.ConnectionDriverName", "org.hsqldb.jdbcDriver");
+        props.put("javax.jdo.option.ConnectionURL", "jdbc:hsqldb:mem:" + WizardWicketToDoItemLevel2CacheTest.class.getSimpleName());
+        props.put("javax.jdo.option.ConnectionUserName", "sa");
+        props.put("javax.jdo.option.ConnectionPassword", "");
+
+        pmf = JDOHelper.getPersistenceManagerFactory(props);
+        level2Cache = ((JDOPersistenceManagerFactory) pmf).getNucleusContext().getLevel2Cache();
+        assertThat(level2Cache, is(instanceOf(BoundedLevel2Cache.class)));
+
+        final PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+            pm.currentTransaction().begin();
+            final WizardWicketToDoItem toDoItem = new WizardWicketToDoItem();
+            toDoItem.setDescription("Buy milk");
+            toDoItem.setCategory(Category.Domestic);
+            toDoItem.setSubcategory(Subcategory.Shopping);
+            toDoItem.setOwnedBy("sven");
+            pm.makePersistent(toDoItem);
+            pm.currentTransaction().commit();
+            oid = pm.getObjectId(toDoItem);
+        } finally {
+            pm.close();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(pmf != null) {
+            final PersistenceManager pm = pmf.getPersistenceManager();
+            try {
+                pm.currentTransaction().begin();
+                pm.newQuery(WizardWicketToDoItem.class).deletePersistentAll();
+                pm.currentTransaction().commit();
+            } finally {
+                pm.close();
+            }
+            pmf.close();
+        }
+    }
+
+    @Test
+    public void readFromCache() throws Exception {
+        read();
+        assertThat(level2Cache.containsOid(oid), is(true));
+
+        final long hits = Level2CacheMetrics.get().getHits();
+        read();
+        assertThat(Level2CacheMetrics.get().getHits(), is(hits + 1));
+    }
+
+    @Test
+    public void completedAndNotYetCompleted() throws Exception {
+        update(new Update() {
+            @Override
+            public void apply(final WizardWicketToDoItem toDoItem) {
+                toDoItem.completed();
+            }
+        });
+        assertThat(read().isComplete(), is(true));
+
+        update(new Update() {
+            @Override
+            public void apply(final WizardWicketToDoItem toDoItem) {
+                toDoItem.notYetCompleted();
+            }
+        });
+        assertThat(read().isComplete(), is(false));
+    }
+
+    @Test
+    public void updateCategory() throws Exception {
+        final WizardWicketToDoItemContributions contributions = new WizardWicketToDoItemContributions();
+        update(new Update() {
+            @Override
+            public void apply(final WizardWicketToDoItem toDoItem) {
+                contributions.updateCategory(toDoItem, Category.Professional, Subcategory.Consulting);
+            }
+        });
+
+        final Snapshot snapshot = read();
+        assertThat(snapshot.getCategory(), is(Category.Professional));
+        assertThat(snapshot.getSubcategory(), is(Subcategory.Consulting));
+    }
+
+    @SuppressWarnings("unchecked") // any(Query.class)
+    @Test
+    public void delete() throws Exception {
+        read();
+        final WizardWicketToDoItems toDoItems = new WizardWicketToDoItems();
+        PersistenceTestSupport.inject(toDoItems, DomainObjectContainer.class, mockContainer);
+        context.checking(new Expectations() {{
+            allowing(mockContainer).getUser();
+            will(returnValue(new UserMemento("sven")));
+            allowing(mockContainer).titleOf(with(any(Object.class)));
+            will(returnValue("Buy milk"));
+            allowing(mockContainer).informUser(with(any(String.class)));
+            allowing(mockContainer).allMatches(with(any(Query.class)));
+            will(returnValue(Collections.emptyList()));
+        }});
+
+        final PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+            context.checking(new Expectations() {{
+                oneOf(mockContainer).removeIfNotAlready(with(any(WizardWicketToDoItem.class)));
+                will(deletePersistent(pm));
+            }});
+            pm.currentTransaction().begin();
+            final WizardWicketToDoItem toDoItem = (WizardWicketToDoItem) pm.getObjectById(oid);
+            PersistenceTestSupport.inject(toDoItem, DomainObjectContainer.class, mockContainer);
+            PersistenceTestSupport.inject(toDoItem, WizardWicketToDoItems.class, toDoItems);
+            toDoItem.delete();
+            pm.currentTransaction().commit();
+        } finally {
+            pm.close();
+        }
+
+        assertThat(level2Cache.containsOid(oid), is(false));
+        try {
+            read();
+            fail("deleted item still found");
+        } catch (final JDOObjectNotFoundException expected) {
+        }
+    }
+
+    @Test
+    public void staleVersionRejectedAndCachedCopyRefreshed() throws Exception {
+        final Snapshot original = read();
+
+        // the first user's (optimistic) transaction reads the item...
+        final PersistenceManager pm1 = pmf.getPersistenceManager();
+        try {
+            pm1.currentTransaction().setOptimistic(true);
+            pm1.currentTransaction().begin();
+            final WizardWicketToDoItem toDoItem = (WizardWicketToDoItem) pm1.getObjectById(oid);
+            assertThat((Long) JDOHelper.getVersion(toDoItem), is(original.getVersion()));
+
+            // ... which is then updated through a second PM
+            update(new Update() {
+                @Override
+                public void apply(final WizardWicketToDoItem toDoItem) {
+                    toDoItem.setDescription("Buy semi-skimmed milk");
+                }
+            });
+
+            // so the first user's update, made against the old version, fails
+            toDoItem.setDescription("Buy skimmed milk");
+            try {
+                pm1.currentTransaction().commit();
+                fail("update of stale version was committed");
+            } catch (final JDOOptimisticVerificationException expected) {
+            }
+        } finally {
+            if(pm1.currentTransaction().isActive()) {
+                pm1.currentTransaction().rollback();
+            }
+            pm1.close();
+        }
+
+        final Snapshot refreshed = read();
+        assertThat(refreshed.getDescription(), is("Buy semi-skimmed milk"));
+        assertThat(refreshed.getVersion(), is(original.getVersion() + 1));
+    }
+
+    //region > helpers
+
+    private interface Update {
+        void apply(WizardWicketToDoItem toDoItem);
+    }
+
+    private void update(final Update update) {
+        final PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+            pm.currentTransaction().begin();
+            update.apply((WizardWicketToDoItem) pm.getObjectById(oid));
+            pm.currentTransaction().commit();
+        } finally {
+            if(pm.currentTransaction().isActive()) {
+                pm.currentTransaction().rollback();
+            }
+            pm.close();
+        }
+    }
+
+    /**
+     * The item as read (from the L2 cache, if cached) in a new {@link PersistenceManager}.
+     */
+    private Snapshot read() {
+        final PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+            return new Snapshot((WizardWicketToDoItem) pm.getObjectById(oid));
+        } finally {
+            pm.close();
+        }
+    }
+
+    private static class Snapshot {
+        private final String description;
+        private final Category category;
+        private final Subcategory subcategory;
+        private final boolean complete;
+        private final Long version;
+
+        Snapshot(final WizardWicketToDoItem toDoItem) {
+            description = toDoItem.getDescription();
+            category = toDoItem.getCategory();
+            subcategory = toDoItem.getSubcategory();
+            complete = toDoItem.isComplete();
+            version = (Long) JDOHelper.getVersion(toDoItem);
+        }
+
+        String getDescription() {
+            return description;
+        }
+
+        Category getCategory() {
+            return category;
+        }
+
+        Subcategory getSubcategory() {
+            return subcategory;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        Long getVersion() {
+            return version;
+        }
+    }
+
+    private static Action deletePersistent(final PersistenceManager pm) {
+        return new Action() {
+            @Override
+            public Object invoke(final Invocation invocation) {
+                pm.deletePersistent(invocation.getParameter(0));
+                return null;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                description.appendText("delete persistent");
+            }
+        };
+    }
+    //endregion
+}
@@ -0,0 +1,282 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.sql.DataSource;
+import com.google.common.collect.Lists;
+import org.hamcrest.Description;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Category;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItem.Subcategory;
+import org.isisaddons.wicket.wizard.fixture.dom.WizardWicketToDoItems;
+import org.jmock.Expectations;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.auto.Mock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.core.unittestsupport.jmocking.IsisActions;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2.Mode;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks that {@link WizardWicketToDoItems#newToDos(List)} sends its inserts as JDBC batches, running against the
+ * in-memory HSQLDB configured as in <tt>persistor_datanucleus.properties</tt>.
+ *
+ * <p>
+ * The repository's (mock) {@link DomainObjectContainer} persists and flushes using the {@link PersistenceManager} directly,
+ * as the Isis persistor does (making each queued object persistent, then flushing), within a datastore transaction.
+ */
+public class WizardWicketToDoItemsBatchingTest {
+
+    private static final int ITEMS = 1200;
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(Mode.INTERFACES_ONLY);
+
+    @Mock
+    private DomainObjectContainer mockContainer;
+
+    private final InsertCounter insertCounter = new InsertCounter(WizardWicketToDoItem.class.getSimpleName());
+
+    private PersistenceManagerFactory pmf;
+    private PersistenceManager pm;
+    private WizardWicketToDoItems toDoItems;
+    private int statementBatchLimit;
+
+    @Before
+    public void setUp() throws Exception {
+        final Map<String, Object> props = PersistenceTestSupport.persistorImplProperties();
+        statementBatchLimit = Integer.parseInt((String) props.get("datanucleus.rdbms.statementBatchLimit"));
+
+        // the connection is provided (counting its inserts), and the L2 cache is not of interest here
+        props.remove("javax.jdo.option.ConnectionDriverName");
+        props.remove("javax.jdo.option.ConnectionURL");
+        props.remove("javax.jdo.option.ConnectionUserName");
+        props.remove("javax.jdo.option.ConnectionPassword");
+        props.put("datanucleus.cache.level2.type", "none");
+        props.put("datanucleus.ConnectionFactory", insertCounter.wrap(dataSource()));
+
+        pmf = JDOHelper.getPersistenceManagerFactory(props);
+        pm = pmf.getPersistenceManager();
+        context.checking(new Expectations() {{
+            allowing(mockContainer).newTransientInstance(WizardWicketToDoItem.class);
+            will(IsisActions.returnNewTransientInstance());
+            allowing(mockContainer).persist(with(any(WizardWicketToDoItem.class)));
+            will(makePersistent(pm));
+            allowing(mockContainer).flush();
+            will(flush(pm));
+        }});
+        toDoItems = new WizardWicketToDoItems();
+        PersistenceTestSupport.inject(toDoItems, DomainObjectContainer.class, mockContainer);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(pm != null) {
+            if(pm.currentTransaction().isActive()) {
+                pm.currentTransaction().rollback();
+            }
+            pm.close();
+        }
+        if(pmf != null) {
+            pmf.close();
+        }
+    }
+
+    @Test
+    public void newToDosInsertsInBatches() throws Exception {
+        final List<WizardWicketToDoItem> newToDos = Lists.newArrayList();
+        for (int i = 1; i <= ITEMS; i++) {
+            newToDos.add(toDoItems.newTransientToDo("Batched " + i, Category.Other, Subcategory.Other, "batcher", null));
+        }
+
+        pm.currentTransaction().begin();
+        insertCounter.reset();
+        toDoItems.newToDos(newToDos);
+
+        assertThat(insertCounter.getRows(), is(ITEMS));
+        assertThat(insertCounter.getBatches(), is((ITEMS + statementBatchLimit - 1) / statementBatchLimit));
+        assertThat(insertCounter.getSingleInserts(), is(0));
+
+        pm.currentTransaction().commit();
+    }
+
+    //region > helpers
+
+    private static DataSource dataSource() {
+        final JDBCDataSource dataSource = new JDBCDataSource();
+        dataSource.setUrl("jdbc:hsqldb:mem:" + WizardWicketToDoItemsBatchingTest.class.getSimpleName());
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        return dataSource;
+    }
+
+    private static Action makePersistent(final PersistenceManager pm) {
+        return new Action() {
+            @Override
+            public Object invoke(final Invocation invocation) {
+                pm.makePersistent(invocation.getParameter(0));
+                return null;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                description.appendText("make persistent");
+            }
+        };
+    }
+
+    private static Action flush(final PersistenceManager pm) {
+        return new Action() {
+            @Override
+            public Object invoke(final Invocation invocation) {
+                pm.flush();
+                // (some versions of the applib return whether there was anything to flush)
+                return invocation.getInvokedMethod().getReturnType() == boolean.class ? Boolean.TRUE : null;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                description.appendText("flush");
+            }
+        };
+    }
+
+    /**
+     * Counts the rows inserted into a table using the wrapped {@link DataSource}'s connections, and how: as a batch,
+     * or singly.
+     */
+    static class InsertCounter {
+
+        private final String insertPrefix;
+
+        private final AtomicInteger rows = new AtomicInteger();
+        private final AtomicInteger batches = new AtomicInteger();
+        private final AtomicInteger singleInserts = new AtomicInteger();
+
+        InsertCounter(final String table) {
+            insertPrefix = "INSERT INTO " + table.toUpperCase();
+        }
+
+        DataSource wrap(final DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, new Wrapper() {
+                @Override
+                public Object wrap(final Method method, final Object[] args, final Object result) {
+                    return result instanceof Connection ? wrapConnection((Connection) result) : result;
+                }
+            });
+        }
+
+        private Connection wrapConnection(final Connection connection) {
+            return proxy(Connection.class, connection, new Wrapper() {
+                @Override
+                public Object wrap(final Method method, final Object[] args, final Object result) {
+                    if(!(result instanceof PreparedStatement) || !isInsert((String) args[0])) {
+                        return result;
+                    }
+                    return wrapInsert((PreparedStatement) result);
+                }
+            });
+        }
+
+        private PreparedStatement wrapInsert(final PreparedStatement statement) {
+            final AtomicInteger pending = new AtomicInteger();
+            return proxy(PreparedStatement.class, statement, new Wrapper() {
+                @Override
+                public Object wrap(final Method method, final Object[] args, final Object result) {
+                    switch (method.getName()) {
+                        case "addBatch":
+                            pending.incrementAndGet();
+                            break;
+                        case "executeBatch":
+                            rows.addAndGet(pending.getAndSet(0));
+                            batches.incrementAndGet();
+                            break;
+                        case "execute":
+                        case "executeUpdate":
+                            rows.incrementAndGet();
+                            singleInserts.incrementAndGet();
+                            break;
+                    }
+                    return result;
+                }
+            });
+        }
+
+        private boolean isInsert(final String sql) {
+            return sql.trim().toUpperCase().replace("\"", "").startsWith(insertPrefix);
+        }
+
+        int getRows() {
+            return rows.get();
+        }
+
+        int getBatches() {
+            return batches.get();
+        }
+
+        int getSingleInserts() {
+            return singleInserts.get();
+        }
+
+        void reset() {
+            rows.set(0);
+            batches.set(0);
+            singleInserts.set(0);
+        }
+
+        private interface Wrapper {
+            Object wrap(Method method, Object[] args, Object result);
+        }
+
+        private static <T> T proxy(final Class<T> type, final T delegate, final Wrapper wrapper) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                    final Object result;
+                    try {
+                        result = method.invoke(delegate, args);
+                    } catch (final InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                    return wrapper.wrap(method, args, result);
+                }
+            }));
+        }
+    }
+    //endregion
+}
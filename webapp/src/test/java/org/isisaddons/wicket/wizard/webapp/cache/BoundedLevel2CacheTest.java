@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.cache;
+
+import java.util.Collections;
+import org.datanucleus.NucleusContext;
+import org.datanucleus.PersistenceNucleusContextImpl;
+import org.datanucleus.cache.CachedPC;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class BoundedLevel2CacheTest {
+
+    private Level2CacheMetrics metrics;
+    private BoundedLevel2Cache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        final NucleusContext nucleusContext = new PersistenceNucleusContextImpl("JDO",
+                Collections.<String, Object>singletonMap("datanucleus.cache.level2.maxSize", "2"));
+        metrics = new Level2CacheMetrics();
+        cache = new BoundedLevel2Cache(nucleusContext, metrics);
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void countsHitsAndMisses() throws Exception {
+        final CachedPC cachedPC = cachedPC(String.class);
+        cache.put("1", cachedPC);
+
+        assertThat(cache.get("1"), is(cachedPC));
+        assertThat(cache.get("2"), is(nullValue()));
+
+        assertThat(metrics.getHits(), is(1L));
+        assertThat(metrics.getMisses(), is(1L));
+        assertThat(metrics.getPuts(), is(1L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOnceFull() throws Exception {
+        cache.put("1", cachedPC(String.class));
+        cache.put("2", cachedPC(String.class));
+        cache.get("1");
+        cache.put("3", cachedPC(String.class));
+
+        assertThat(cache.getSize(), is(2));
+        assertThat(cache.containsOid("1"), is(true));
+        assertThat(cache.containsOid("2"), is(false));
+        assertThat(metrics.getEvictions(), is(1L));
+        assertThat(metrics.getMaxSize(), is(2));
+    }
+
+    @Test
+    public void invalidatesByClass() throws Exception {
+        cache.put("1", cachedPC(String.class));
+        cache.put("2", cachedPC(Integer.class));
+
+        cache.evictAll(String.class, false);
+
+        assertThat(cache.containsOid("1"), is(false));
+        assertThat(cache.containsOid("2"), is(true));
+        assertThat(metrics.getInvalidations(), is(1L));
+        assertThat(metrics.getEvictions(), is(0L));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static CachedPC cachedPC(final Class<?> cls) {
+        return new CachedPC(cls, new boolean[0], null);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.loadtest;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import org.apache.wicket.Application;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+/**
+ * The webapp, running in-process on an embedded Jetty bound (to an ephemeral port) on the loopback interface only,
+ * against the in-memory HSQLDB configured in <tt>persistor.properties</tt>.
+ *
+ * <p>
+ * The webapp shares this class loader, so (for example) its {@link #getApplication() Wicket application} and the
+ * wizard's metrics can be accessed directly.
+ */
+public final class EmbeddedWebapp {
+
+    private static final String WEBAPP_DIR = "src/main/webapp";
+
+    private final Server server;
+    private final URL baseUrl;
+
+    private EmbeddedWebapp(final Server server, final URL baseUrl) {
+        this.server = server;
+        this.baseUrl = baseUrl;
+    }
+
+    public static EmbeddedWebapp start() throws Exception {
+        final InetAddress loopback = InetAddress.getLoopbackAddress();
+        final Server server = new Server(new InetSocketAddress(loopback, 0));
+        final WebAppContext webApp = new WebAppContext(WEBAPP_DIR, "/");
+        webApp.setParentLoaderPriority(true);
+        server.setHandler(webApp);
+        server.start();
+
+        final int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+        return new EmbeddedWebapp(server, new URL("http", loopback.getHostAddress(), port, "/"));
+    }
+
+    public URL getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * The Wicket application (as initialized by the <tt>WicketFilter</tt>).
+     */
+    public Application getApplication() {
+        for (final String key : Application.getApplicationKeys()) {
+            return Application.get(key);
+        }
+        throw new IllegalStateException("Wicket application not initialized");
+    }
+
+    public void stop() throws Exception {
+        server.stop();
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl.toString();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.loadtest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Counts the SQL statements issued by DataNucleus, from its (debug) log of each native statement.
+ *
+ * <p>
+ * While {@link #attach() attached}, the logger's other appenders are detached, so that the statements are counted
+ * rather than printed.
+ */
+final class StatementCounter extends AppenderSkeleton {
+
+    private static final String NATIVE_SQL_LOGGER = "DataNucleus.Datastore.Native";
+
+    private final AtomicLong count = new AtomicLong();
+
+    private Level previousLevel;
+    private List<Appender> previousAppenders;
+
+    void attach() {
+        final Logger logger = Logger.getLogger(NATIVE_SQL_LOGGER);
+        previousLevel = logger.getLevel();
+        @SuppressWarnings("unchecked")
+        final List<Appender> appenders = Collections.list(logger.getAllAppenders());
+        previousAppenders = appenders;
+        logger.removeAllAppenders();
+        logger.setLevel(Level.DEBUG);
+        logger.addAppender(this);
+    }
+
+    void detach() {
+        final Logger logger = Logger.getLogger(NATIVE_SQL_LOGGER);
+        logger.removeAppender(this);
+        logger.setLevel(previousLevel);
+        for (final Appender appender : previousAppenders) {
+            logger.addAppender(appender);
+        }
+    }
+
+    long getCount() {
+        return count.get();
+    }
+
+    void reset() {
+        count.set(0);
+    }
+
+    /**
+     * Overridden (rather than just {@link #append(LoggingEvent)}) to avoid the superclass' lock, which would
+     * otherwise serialize the sessions' statements.
+     */
+    @Override
+    public void doAppend(final LoggingEvent event) {
+        count.incrementAndGet();
+    }
+
+    @Override
+    protected void append(final LoggingEvent event) {
+        count.incrementAndGet();
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
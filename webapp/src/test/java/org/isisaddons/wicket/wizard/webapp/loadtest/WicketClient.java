@@ -0,0 +1,175 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Maps;
+
+/**
+ * A minimal browser for a single simulated user: keeps its own cookies (and so its own HTTP session), follows
+ * redirects, and submits forms either normally or as Wicket AJAX requests.  No JavaScript is run.
+ */
+final class WicketClient {
+
+    private static final Charset UTF_8 = Charsets.UTF_8;
+    private static final int MAX_REDIRECTS = 10;
+
+    private final Map<String, String> cookies = Maps.newLinkedHashMap();
+
+    WicketPage get(final URL url) throws IOException {
+        URL current = url;
+        for (int i = 0; i < MAX_REDIRECTS; i++) {
+            final HttpURLConnection connection = open(current, "GET");
+            final int status = connection.getResponseCode();
+            final URL location = redirectOf(connection, current, status);
+            final String body = read(connection);
+            if(location == null) {
+                if(status >= 400) {
+                    throw new IOException("GET " + current + " returned " + status);
+                }
+                return new WicketPage(current, body);
+            }
+            current = location;
+        }
+        throw new IOException("Too many redirects from " + url);
+    }
+
+    /**
+     * Submits a form normally, following the redirect (after post) to the resulting page.
+     */
+    WicketPage post(final URL action, final Map<String, String> fields) throws IOException {
+        final HttpURLConnection connection = open(action, "POST");
+        write(connection, fields);
+        final int status = connection.getResponseCode();
+        final URL location = redirectOf(connection, action, status);
+        final String body = read(connection);
+        if(location != null) {
+            return get(location);
+        }
+        if(status >= 400) {
+            throw new IOException("POST " + action + " returned " + status);
+        }
+        return new WicketPage(action, body);
+    }
+
+    /**
+     * Submits a form as a Wicket AJAX request (as an <tt>AjaxButton</tt> would), returning the
+     * <tt>ajax-response</tt>.
+     */
+    String ajax(final WicketPage page, final URL callback, final Map<String, String> fields) throws IOException {
+        final HttpURLConnection connection = open(callback, "POST");
+        connection.setRequestProperty("Wicket-Ajax", "true");
+        connection.setRequestProperty("Wicket-Ajax-BaseURL", page.getWicketBaseUrl());
+        connection.setRequestProperty("Accept", "text/xml");
+        write(connection, fields);
+        final int status = connection.getResponseCode();
+        final String body = read(connection);
+        if(status >= 400) {
+            throw new IOException("AJAX POST " + callback + " returned " + status);
+        }
+        return body;
+    }
+
+    //region > helpers
+
+    private HttpURLConnection open(final URL url, final String method) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setInstanceFollowRedirects(false);
+        connection.setRequestMethod(method);
+        connection.setUseCaches(false);
+        synchronized (cookies) {
+            if(!cookies.isEmpty()) {
+                connection.setRequestProperty("Cookie", Joiner.on("; ").withKeyValueSeparator("=").join(cookies));
+            }
+        }
+        return connection;
+    }
+
+    private URL redirectOf(final HttpURLConnection connection, final URL url, final int status) throws IOException {
+        storeCookies(connection);
+        if(status < 300 || status >= 400) {
+            return null;
+        }
+        final String location = connection.getHeaderField("Location");
+        return location != null ? new URL(url, location) : null;
+    }
+
+    private void storeCookies(final HttpURLConnection connection) {
+        final List<String> setCookies = connection.getHeaderFields().get("Set-Cookie");
+        if(setCookies == null) {
+            return;
+        }
+        synchronized (cookies) {
+            for (final String setCookie : setCookies) {
+                final String nameValue = setCookie.split(";", 2)[0];
+                final int equals = nameValue.indexOf('=');
+                if(equals > 0) {
+                    cookies.put(nameValue.substring(0, equals).trim(), nameValue.substring(equals + 1).trim());
+                }
+            }
+        }
+    }
+
+    private static void write(final HttpURLConnection connection, final Map<String, String> fields) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        for (final Map.Entry<String, String> field : fields.entrySet()) {
+            if(buf.length() > 0) {
+                buf.append('&');
+            }
+            buf.append(URLEncoder.encode(field.getKey(), UTF_8.name()))
+                    .append('=')
+                    .append(URLEncoder.encode(field.getValue() != null ? field.getValue() : "", UTF_8.name()));
+        }
+        final byte[] bytes = buf.toString().getBytes(UTF_8);
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+        connection.setFixedLengthStreamingMode(bytes.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String read(final HttpURLConnection connection) throws IOException {
+        final InputStream in = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if(in == null) {
+            return "";
+        }
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            int read;
+            while ((read = in.read(buf)) != -1) {
+                out.write(buf, 0, read);
+            }
+            return new String(out.toByteArray(), UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+    //endregion
+}
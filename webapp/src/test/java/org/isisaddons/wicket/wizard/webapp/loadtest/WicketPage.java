@@ -0,0 +1,359 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.loadtest;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import com.google.common.collect.Maps;
+
+/**
+ * A page as rendered by the Wicket viewer, with just enough (regular expression based) parsing of its markup to find
+ * links, forms and their fields, and the callbacks of AJAX buttons and Select2 choices.
+ *
+ * <p>
+ * This relies on the markup as rendered by the viewer and by the wizard's panel, and would need to follow any
+ * changes to either.
+ */
+final class WicketPage {
+
+    private static final Pattern FORM = Pattern.compile("<form\\b([^>]*)>(.*?)</form>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern INPUT = Pattern.compile("<input\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TEXTAREA = Pattern.compile("<textarea\\b([^>]*)>(.*?)</textarea>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern SELECT = Pattern.compile("<select\\b([^>]*)>(.*?)</select>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern SELECTED_OPTION = Pattern.compile("<option\\b([^>]*\\bselected\\b[^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ATTRIBUTE = Pattern.compile("([\\w:-]+)\\s*=\\s*(\"([^\"]*)\"|'([^']*)')");
+    private static final Pattern FIELD = Pattern.compile("<(?:input|textarea|select)\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ANCHOR = Pattern.compile("<a\\b([^>]*)>(.*?)</a>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern AJAX_CALL = Pattern.compile("Wicket\\.Ajax\\.ajax\\(\\{(.*?)\\}\\);", Pattern.DOTALL);
+    private static final Pattern AJAX_REDIRECT = Pattern.compile("<redirect>\\s*<!\\[CDATA\\[(.*?)\\]\\]>\\s*</redirect>", Pattern.DOTALL);
+    private static final Pattern AJAX_BASE_URL = Pattern.compile("Wicket\\.Ajax\\.baseUrl\\s*=\\s*\"([^\"]*)\"");
+    private static final Pattern JSON_RESULT = Pattern.compile("\\{\\s*\"id\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"\\s*,\\s*\"text\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private static final String WICKET_PATH = "/wicket/";
+
+    private final URL url;
+    private final String html;
+
+    WicketPage(final URL url, final String html) {
+        this.url = url;
+        this.html = html;
+    }
+
+    URL getUrl() {
+        return url;
+    }
+
+    String getHtml() {
+        return html;
+    }
+
+    /**
+     * The URL of this page relative to the Wicket filter, as sent by Wicket's AJAX requests (and as rendered in the
+     * page's <tt>Wicket.Ajax.baseUrl</tt>).
+     */
+    String getWicketBaseUrl() {
+        final Matcher matcher = AJAX_BASE_URL.matcher(html);
+        final String baseUrl;
+        if(matcher.find()) {
+            baseUrl = matcher.group(1);
+        } else {
+            final String file = url.getFile();
+            final int wicket = file.indexOf(WICKET_PATH);
+            baseUrl = wicket >= 0 ? file.substring(wicket + WICKET_PATH.length()) : file;
+        }
+        // as does wicket-ajax-jquery.js, for a page rendered at the filter's root
+        return baseUrl.isEmpty() ? "." : baseUrl;
+    }
+
+    boolean contains(final String text) {
+        return html.contains(text);
+    }
+
+    //region > links
+
+    /**
+     * The AJAX callback of the (first) link whose text includes the provided text; the viewer's action links are
+     * all <tt>AjaxLink</tt>s.
+     */
+    URL ajaxCallbackOfLink(final String text) throws MalformedURLException {
+        final Matcher anchor = ANCHOR.matcher(html);
+        while (anchor.find()) {
+            final String linkText = unescape(TAG.matcher(anchor.group(2)).replaceAll(" ")).replaceAll("\\s+", " ");
+            final String id = attributesOf(anchor.group(1)).get("id");
+            if(linkText.contains(text) && id != null) {
+                return ajaxCallback("c", id, false);
+            }
+        }
+        throw new IllegalStateException("No link for '" + text + "' on " + url);
+    }
+    //endregion
+
+    //region > forms
+
+    /**
+     * The (first) form whose markup includes the provided text (eg the name of one of its buttons).
+     */
+    Form formContaining(final String text) throws MalformedURLException {
+        final Form form = formContainingOrNull(text);
+        if(form == null) {
+            throw new IllegalStateException("No form containing '" + text + "' on " + url);
+        }
+        return form;
+    }
+
+    Form formContainingOrNull(final String text) throws MalformedURLException {
+        final Matcher form = FORM.matcher(html);
+        while (form.find()) {
+            if(form.group(2).contains(text)) {
+                return new Form(attributesOf(form.group(1)), form.group(2));
+            }
+        }
+        return null;
+    }
+
+    final class Form {
+
+        private final String id;
+        private final URL action;
+        private final String markup;
+        private final Map<String, String> fields = Maps.newLinkedHashMap();
+
+        private Form(final Map<String, String> attributes, final String markup) throws MalformedURLException {
+            this.id = attributes.get("id");
+            this.action = resolve(attributes.containsKey("action") ? attributes.get("action") : url.toString());
+            this.markup = markup;
+
+            final Matcher input = INPUT.matcher(markup);
+            while (input.find()) {
+                final Map<String, String> inputAttributes = attributesOf(input.group(1));
+                final String name = inputAttributes.get("name");
+                final String type = inputAttributes.containsKey("type") ? inputAttributes.get("type").toLowerCase() : "text";
+                if(name == null || type.equals("submit") || type.equals("button") || type.equals("image")) {
+                    continue;
+                }
+                if((type.equals("checkbox") || type.equals("radio")) && !inputAttributes.containsKey("checked")) {
+                    continue;
+                }
+                fields.put(name, inputAttributes.containsKey("value") ? inputAttributes.get("value") : "");
+            }
+            final Matcher textarea = TEXTAREA.matcher(markup);
+            while (textarea.find()) {
+                final String name = attributesOf(textarea.group(1)).get("name");
+                if(name != null) {
+                    fields.put(name, unescape(textarea.group(2)));
+                }
+            }
+            final Matcher select = SELECT.matcher(markup);
+            while (select.find()) {
+                final String name = attributesOf(select.group(1)).get("name");
+                final Matcher selected = SELECTED_OPTION.matcher(select.group(2));
+                if(name != null) {
+                    fields.put(name, selected.find() ? attributesOf(selected.group(1)).get("value") : "");
+                }
+            }
+        }
+
+        String getId() {
+            return id;
+        }
+
+        URL getAction() {
+            return action;
+        }
+
+        /**
+         * The current values of the form's fields, as would be submitted (excluding any buttons).
+         */
+        Map<String, String> getFields() {
+            return Maps.newLinkedHashMap(fields);
+        }
+
+        String fieldEndingWith(final String nameSuffix) {
+            for (final String name : fields.keySet()) {
+                if(name.endsWith(nameSuffix)) {
+                    return name;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The name of the (first) field following the element whose CSS class names the property, as added by
+         * the viewer's scalar panels (eg <tt>ToDoItemWizard-description</tt>).
+         */
+        String fieldForProperty(final String propertyId) {
+            final Matcher cssClass = Pattern.compile("class=\"[^\"]*-" + Pattern.quote(propertyId) + "\\b").matcher(markup);
+            if(!cssClass.find()) {
+                return null;
+            }
+            final Matcher field = FIELD.matcher(markup);
+            field.region(cssClass.end(), markup.length());
+            while (field.find()) {
+                final String name = attributesOf(field.group(1)).get("name");
+                if(name != null && fields.containsKey(name)) {
+                    return name;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The markup id of the provided field.
+         */
+        String idOf(final String fieldName) {
+            final Matcher field = FIELD.matcher(markup);
+            while (field.find()) {
+                final Map<String, String> attributes = attributesOf(field.group(1));
+                if(fieldName.equals(attributes.get("name"))) {
+                    return attributes.get("id");
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The AJAX callback of the button whose name (Wicket's input name) ends with the provided id, eg
+         * <tt>wizardNext</tt>.
+         */
+        URL ajaxCallbackOf(final String buttonId) throws MalformedURLException {
+            return ajaxCallback("sc", buttonId, true);
+        }
+    }
+    //endregion
+
+    //region > select2
+
+    /**
+     * The URL from which a Select2 field obtains its choices.
+     */
+    URL select2ChoicesUrlOf(final String fieldId) throws MalformedURLException {
+        final int select2 = html.indexOf("#" + fieldId + "').select2(");
+        if(select2 < 0) {
+            throw new IllegalStateException("No Select2 choices for '" + fieldId + "' on " + url);
+        }
+        // the options include functions, so run to the end of the statement rather than of the call
+        final int end = html.indexOf("})(jQuery);", select2);
+        final String options = html.substring(select2, end >= 0 ? end : html.length());
+        final String choicesUrl = jsonString(options, "url");
+        if(choicesUrl == null) {
+            throw new IllegalStateException("No Select2 choices URL for '" + fieldId + "' on " + url);
+        }
+        return resolve(choicesUrl + (choicesUrl.contains("?") ? "&" : "?") + "term=&page=1");
+    }
+
+    /**
+     * The id of the (first) Select2 choice (from {@link #select2ChoicesUrlOf(String) its choices}) with the provided
+     * text, or the first choice if none has.
+     */
+    static String select2IdOf(final String choicesJson, final String text) {
+        final Matcher result = JSON_RESULT.matcher(choicesJson);
+        String first = null;
+        while (result.find()) {
+            final String id = unescapeJson(result.group(1));
+            if(first == null) {
+                first = id;
+            }
+            if(unescapeJson(result.group(2)).equals(text)) {
+                return id;
+            }
+        }
+        if(first == null) {
+            throw new IllegalStateException("No Select2 choices in " + choicesJson);
+        }
+        return first;
+    }
+    //endregion
+
+    //region > ajax responses
+
+    /**
+     * The page (if any) that an <tt>ajax-response</tt> redirects to.
+     */
+    URL ajaxRedirectOf(final String ajaxResponse) throws MalformedURLException {
+        final Matcher redirect = AJAX_REDIRECT.matcher(ajaxResponse);
+        return redirect.find() ? resolve(redirect.group(1)) : null;
+    }
+    //endregion
+
+    //region > helpers
+
+    /**
+     * The callback (<tt>u</tt>) of the (first) <tt>Wicket.Ajax.ajax(...)</tt> call whose attribute equals (or ends
+     * with) the provided value.
+     */
+    private URL ajaxCallback(final String attribute, final String value, final boolean suffix) throws MalformedURLException {
+        final Matcher ajaxCall = AJAX_CALL.matcher(html);
+        while (ajaxCall.find()) {
+            final String attributes = ajaxCall.group(1);
+            final String actual = jsonString(attributes, attribute);
+            final String callbackUrl = jsonString(attributes, "u");
+            if(actual != null && callbackUrl != null && (suffix ? actual.endsWith(value) : actual.equals(value))) {
+                return resolve(callbackUrl);
+            }
+        }
+        throw new IllegalStateException("No AJAX callback for '" + value + "' on " + url);
+    }
+
+    private URL resolve(final String href) throws MalformedURLException {
+        return new URL(url, unescape(href));
+    }
+
+    private static Map<String, String> attributesOf(final String tagAttributes) {
+        final Map<String, String> attributes = Maps.newLinkedHashMap();
+        final Matcher attribute = ATTRIBUTE.matcher(tagAttributes);
+        while (attribute.find()) {
+            final String value = attribute.group(3) != null ? attribute.group(3) : attribute.group(4);
+            attributes.put(attribute.group(1).toLowerCase(), unescape(value));
+        }
+        // boolean attributes (eg 'checked', 'selected') have no value
+        for (final String flag : new String[] { "checked", "selected" }) {
+            if(!attributes.containsKey(flag) && Pattern.compile("\\b" + flag + "\\b").matcher(tagAttributes).find()) {
+                attributes.put(flag, flag);
+            }
+        }
+        return attributes;
+    }
+
+    private static String jsonString(final String json, final String key) {
+        final Matcher value = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"").matcher(json);
+        return value.find() ? unescapeJson(value.group(1)) : null;
+    }
+
+    private static String unescapeJson(final String value) {
+        return value.replace("\\/", "/").replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    private static String unescape(final String value) {
+        return value
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#039;", "'")
+                .replace("&#39;", "'")
+                .replace("&amp;", "&");
+    }
+    //endregion
+
+    @Override
+    public String toString() {
+        return url.toString();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.isisaddons.wicket.wizard.cpt.metrics.WizardStepHistogram;
+import org.isisaddons.wicket.wizard.cpt.metrics.WizardStepMetrics;
+
+/**
+ * Runs the {@link EmbeddedWebapp webapp in-process} and drives it with a number of concurrent
+ * {@link WizardUser simulated users}, each with its own session, running the to-do item wizard to completion.
+ *
+ * <p>
+ * Reports:
+ * <ul>
+ *     <li>throughput, as completed wizards per second</li>
+ *     <li>the client-side latency percentiles of each step</li>
+ *     <li>the server-side latency percentiles of each phase of each step (from {@link WizardStepMetrics})</li>
+ *     <li>the heap retained per session</li>
+ *     <li>the SQL statements issued per completed wizard</li>
+ * </ul>
+ *
+ * <p>
+ * Configured using system properties:
+ * <ul>
+ *     <li><tt>loadtest.sessions</tt> - the number of concurrent users (default 8)</li>
+ *     <li><tt>loadtest.wizardsPerSession</tt> - the number of wizards each user completes (default 10)</li>
+ *     <li><tt>loadtest.users</tt> - comma separated <tt>username:password</tt>s from <tt>shiro.ini</tt>, assigned
+ *     to the sessions in turn (default <tt>sven:pass</tt>, being the only user permitted to run the wizard)</li>
+ * </ul>
+ *
+ * <p>
+ * Run using <tt>mvn -P loadtest verify</tt> (from the <tt>webapp</tt> module).
+ */
+public final class WizardLoadHarness {
+
+    private WizardLoadHarness() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int sessions = Integer.getInteger("loadtest.sessions", 8);
+        final int wizardsPerSession = Integer.getInteger("loadtest.wizardsPerSession", 10);
+        final List<String> users = Lists.newArrayList(
+                Splitter.on(',').trimResults().omitEmptyStrings().split(System.getProperty("loadtest.users", "sven:pass")));
+
+        final EmbeddedWebapp webapp = EmbeddedWebapp.start();
+        final StatementCounter statementCounter = new StatementCounter();
+        try {
+            final URL baseUrl = webapp.getBaseUrl();
+            final WizardStepMetrics metrics = WizardStepMetrics.get();
+            metrics.setEnabled(true);
+            statementCounter.attach();
+
+            // warm up, then discard what was recorded
+            final ConcurrentMap<String, WizardStepHistogram> warmup = Maps.newConcurrentMap();
+            newUser(baseUrl, users, 0, 1, warmup).call();
+            metrics.reset();
+            statementCounter.reset();
+            final long baselineHeap = usedHeapAfterGc();
+
+            final ConcurrentMap<String, WizardStepHistogram> latencies = Maps.newConcurrentMap();
+            final ExecutorService executor = Executors.newFixedThreadPool(sessions);
+            final List<Future<Integer>> results = Lists.newArrayList();
+            final long start = System.nanoTime();
+            for (int i = 0; i < sessions; i++) {
+                results.add(executor.submit(newUser(baseUrl, users, i, wizardsPerSession, latencies)));
+            }
+            int completed = 0;
+            for (final Future<Integer> result : results) {
+                completed += result.get();
+            }
+            final long elapsedNanos = System.nanoTime() - start;
+            executor.shutdown();
+
+            // the sessions are still live (not yet expired), so are included
+            final long heapPerSession = (usedHeapAfterGc() - baselineHeap) / sessions;
+
+            report(sessions, completed, elapsedNanos, latencies, metrics.getHistograms(), heapPerSession,
+                    statementCounter.getCount());
+        } finally {
+            statementCounter.detach();
+            webapp.stop();
+        }
+    }
+
+    private static WizardUser newUser(
+            final URL baseUrl,
+            final List<String> users,
+            final int i,
+            final int wizards,
+            final ConcurrentMap<String, WizardStepHistogram> latencies) {
+        final String user = users.get(i % users.size());
+        final int colon = user.indexOf(':');
+        return new WizardUser(baseUrl, user.substring(0, colon), user.substring(colon + 1), wizards, latencies);
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    //region > report
+
+    private static void report(
+            final int sessions,
+            final int completed,
+            final long elapsedNanos,
+            final Map<String, WizardStepHistogram> latencies,
+            final Map<WizardStepMetrics.Key, WizardStepHistogram> serverLatencies,
+            final long heapPerSession,
+            final long statements) {
+        final double elapsedSeconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.println("==== Wizard load test ====");
+        System.out.printf("sessions:                %d%n", sessions);
+        System.out.printf("completed wizards:       %d in %.1fs%n", completed, elapsedSeconds);
+        System.out.printf("throughput:              %.1f wizards/s%n", completed / elapsedSeconds);
+        System.out.printf("heap per session:        %d KB%n", heapPerSession / 1024);
+        System.out.printf("statements per wizard:   %.1f%n", completed > 0 ? (double) statements / completed : 0.0);
+
+        System.out.println();
+        System.out.println("-- client latencies per step (ms) --");
+        printHeader("step");
+        for (final Map.Entry<String, WizardStepHistogram> entry : latencies.entrySet()) {
+            printRow(entry.getKey(), entry.getValue());
+        }
+
+        System.out.println();
+        System.out.println("-- server latencies per phase (ms) --");
+        printHeader("page/transition/phase");
+        for (final Map.Entry<WizardStepMetrics.Key, WizardStepHistogram> entry : serverLatencies.entrySet()) {
+            final WizardStepMetrics.Key key = entry.getKey();
+            if(entry.getValue().getCount() > 0) {
+                printRow(key.getPage() + "/" + key.getTransition() + "/" + key.getPhase(), entry.getValue());
+            }
+        }
+    }
+
+    private static void printHeader(final String title) {
+        System.out.printf("%-36s %8s %9s %9s %9s %9s%n", title, "count", "p50", "p90", "p99", "max");
+    }
+
+    private static void printRow(final String name, final WizardStepHistogram histogram) {
+        System.out.printf("%-36s %8d %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getCount(),
+                histogram.getP50Micros() / 1000.0, histogram.getP90Micros() / 1000.0,
+                histogram.getP99Micros() / 1000.0, histogram.getMaxMicros() / 1000.0);
+    }
+    //endregion
+}
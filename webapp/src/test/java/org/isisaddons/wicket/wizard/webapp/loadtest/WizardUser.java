@@ -0,0 +1,172 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.wicket.wizard.webapp.loadtest;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import org.isisaddons.wicket.wizard.cpt.metrics.WizardStepHistogram;
+import org.isisaddons.wicket.wizard.fixture.app.ToDoItemWizard;
+
+/**
+ * A simulated user: signs in (with its own HTTP session) and then repeatedly runs the
+ * {@link ToDoItemWizard to-do item wizard} from its menu action, through each of its
+ * {@link ToDoItemWizard.State pages}, to finish.
+ *
+ * <p>
+ * The client-side latency of each step (including following any redirect) is recorded against the step's name.
+ */
+public final class WizardUser implements Callable<Integer> {
+
+    static final String STEP_SIGN_IN = "SIGN_IN";
+    static final String STEP_OPEN = "OPEN";
+    static final String STEP_FINISH = "FINISH";
+
+    private static final String MENU_ACTION = "New To Do (wizard)";
+    private static final String ID_NEXT = "wizardNext";
+    private static final String ID_FINISH = "wizardFinish";
+    private static final String CATEGORY = "Domestic";
+
+    private final URL baseUrl;
+    private final String username;
+    private final String password;
+    private final int wizards;
+    private final ConcurrentMap<String, WizardStepHistogram> latencies;
+    private final WicketClient client = new WicketClient();
+
+    public WizardUser(
+            final URL baseUrl,
+            final String username,
+            final String password,
+            final int wizards,
+            final ConcurrentMap<String, WizardStepHistogram> latencies) {
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.password = password;
+        this.wizards = wizards;
+        this.latencies = latencies;
+    }
+
+    /**
+     * @return the number of wizards completed.
+     */
+    @Override
+    public Integer call() throws Exception {
+        signIn();
+        for (int i = 0; i < wizards; i++) {
+            runWizard(i);
+        }
+        return wizards;
+    }
+
+    //region > sign in
+
+    private void signIn() throws IOException {
+        final long start = System.nanoTime();
+        final WicketPage signInPage = client.get(new URL(baseUrl, "wicket/"));
+        final WicketPage.Form form = signInPage.formContaining("password");
+        final Map<String, String> fields = form.getFields();
+        fields.put(form.fieldEndingWith("username"), username);
+        fields.put(form.fieldEndingWith("password"), password);
+        final WicketPage home = client.post(form.getAction(), fields);
+        if(home.formContainingOrNull("password") != null) {
+            throw new IllegalStateException("Could not sign in as '" + username + "'");
+        }
+        record(STEP_SIGN_IN, start);
+    }
+    //endregion
+
+    //region > wizard
+
+    private void runWizard(final int i) throws IOException {
+        long start = System.nanoTime();
+        final WicketPage home = client.get(new URL(baseUrl, "wicket/"));
+        WicketPage page = followAjax(home, home.ajaxCallbackOfLink(MENU_ACTION), null);
+        record(STEP_OPEN, start);
+
+        for (final ToDoItemWizard.State state : ToDoItemWizard.State.values()) {
+            start = System.nanoTime();
+            final WicketPage.Form form = page.formContaining(ID_NEXT);
+            final Map<String, String> fields = form.getFields();
+            switch (state) {
+                case DESCRIPTION:
+                    fields.put(fieldFor(form, "description"), "Load test " + username + " " + i);
+                    break;
+                case CATEGORIES:
+                    fields.put(fieldFor(form, "category"), categoryIdFor(page, form));
+                    break;
+                default:
+                    break;
+            }
+            if(state.next() != null) {
+                page = followAjax(page, form.ajaxCallbackOf(ID_NEXT), fields);
+                record("NEXT from " + state, start);
+            } else {
+                page = followAjax(page, form.ajaxCallbackOf(ID_FINISH), fields);
+                record(STEP_FINISH, start);
+            }
+        }
+    }
+
+    private static String fieldFor(final WicketPage.Form form, final String propertyId) {
+        final String field = form.fieldForProperty(propertyId);
+        if(field == null) {
+            throw new IllegalStateException("No field for '" + propertyId + "' in form " + form.getId());
+        }
+        return field;
+    }
+
+    /**
+     * The category is an enum, and so rendered as a Select2 choice whose ids are obtained from its AJAX choices.
+     */
+    private String categoryIdFor(final WicketPage page, final WicketPage.Form form) throws IOException {
+        final String fieldId = form.idOf(fieldFor(form, "category"));
+        final WicketPage choices = client.get(page.select2ChoicesUrlOf(fieldId));
+        return WicketPage.select2IdOf(choices.getHtml(), CATEGORY);
+    }
+
+    /**
+     * Performs an AJAX request, and follows the redirect in its response; if there is none (eg the wizard was
+     * repainted in place) then the current state of the page is re-rendered instead.
+     */
+    private WicketPage followAjax(final WicketPage page, final URL callback, final Map<String, String> fields) throws IOException {
+        final String ajaxResponse = client.ajax(page, callback, fields != null ? fields : Collections.<String, String>emptyMap());
+        final URL redirect = page.ajaxRedirectOf(ajaxResponse);
+        final WicketPage next = client.get(redirect != null ? redirect : page.getUrl());
+        if(next.contains("feedbackPanelERROR")) {
+            throw new IllegalStateException("Validation failed on " + next + ": " + excerptOf(ajaxResponse));
+        }
+        return next;
+    }
+
+    private static String excerptOf(final String text) {
+        return text.length() > 500 ? text.substring(0, 500) + "..." : text;
+    }
+    //endregion
+
+    private void record(final String step, final long startNanos) {
+        WizardStepHistogram histogram = latencies.get(step);
+        if(histogram == null) {
+            latencies.putIfAbsent(step, new WizardStepHistogram());
+            histogram = latencies.get(step);
+        }
+        histogram.record((System.nanoTime() - startNanos) / 1000L);
+    }
+}